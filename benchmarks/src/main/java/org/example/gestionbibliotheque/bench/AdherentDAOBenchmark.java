@@ -0,0 +1,109 @@
+package org.example.gestionbibliotheque.bench;
+
+import org.example.gestionbibliotheque.dao.AdherentDAO;
+import org.example.gestionbibliotheque.model.Adherent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bancs d'essai d'AdherentDAO : insertion, lecture par identifiant, chargement complet et recherches LIKE
+ * La taille est celle de la base de banc : elle contient taille / 5 adhérents
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdherentDAOBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int taille;
+
+    private BaseDeBanc base;
+    private AdherentDAO adherentDAO;
+    private SplittableRandom aleatoire;
+    private int compteur;
+
+    @Setup(Level.Trial)
+    public void preparer() throws SQLException {
+        base = BaseDeBanc.creer(taille);
+        adherentDAO = new AdherentDAO();
+        aleatoire = new SplittableRandom(GenerateurDonnees.GRAINE);
+    }
+
+    @TearDown(Level.Trial)
+    public void nettoyer() {
+        base.supprimer();
+    }
+
+    /**
+     * Insertion d'un adhérent (l'email doit être unique)
+     */
+    @Benchmark
+    public Adherent ajouterAdherent() throws SQLException {
+        compteur++;
+        Adherent adherent = new Adherent("Banc", "Essai", "banc." + compteur + "@exemple.fr", "20000000");
+        adherentDAO.ajouterAdherent(adherent);
+        return adherent;
+    }
+
+    /**
+     * Lecture par identifiant, servie essentiellement par le cache des adhérents
+     */
+    @Benchmark
+    public Adherent getAdherentById() throws SQLException {
+        return adherentDAO.getAdherentById(1 + aleatoire.nextInt(base.getNbAdherents()));
+    }
+
+    /**
+     * Lecture par identifiant dans la base : le cache réduit à une entrée ne sert presque jamais
+     */
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dbibliotheque.cache.adherents.tailleMax=1")
+    public Adherent getAdherentByIdSansCache() throws SQLException {
+        return adherentDAO.getAdherentById(1 + aleatoire.nextInt(base.getNbAdherents()));
+    }
+
+    /**
+     * Chargement complet de la table
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Adherent> getAdherents() throws SQLException {
+        return adherentDAO.getAdherents();
+    }
+
+    /**
+     * Recherche LIKE '%...%' sur le nom
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Adherent> rechercherParNom() throws SQLException {
+        return adherentDAO.rechercherParNom("Dubois");
+    }
+
+    /**
+     * Recherche combinée sur le nom, le prénom et l'email, limitée comme dans l'interface
+     */
+    @Benchmark
+    public List<Adherent> rechercherAdherents() throws SQLException {
+        return adherentDAO.rechercherAdherents("camille", 500);
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.gestionbibliotheque.bench;
+
+import org.example.gestionbibliotheque.dao.Database;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+/**
+ * Base de données temporaire remplie de façon reproductible pour les bancs d'essai
+ * Pour une taille N, la base contient N livres, N / 5 adhérents et N emprunts (GenerateurDonnees).
+ * Le contenu ne dépend que de la taille et de la graine : deux exécutions mesurent les mêmes données.
+ */
+public final class BaseDeBanc {
+
+    private final Path fichier;
+    private final GenerateurDonnees.Parametres parametres;
+
+    private BaseDeBanc(Path fichier, GenerateurDonnees.Parametres parametres) {
+        this.fichier = fichier;
+        this.parametres = parametres;
+    }
+
+    /**
+     * Crée une base temporaire, y applique les migrations et la remplit
+     * La base devient la base de l'application (Database.configurerUrl) jusqu'à l'appel de supprimer()
+     * @param taille Le nombre de livres (et d'emprunts)
+     * @return La base créée
+     */
+    public static BaseDeBanc creer(int taille) throws SQLException {
+        Path fichier;
+        try {
+            fichier = Files.createTempFile("bibliotheque-banc-" + taille + "-", ".db");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Database.configurerUrl("jdbc:sqlite:" + fichier.toAbsolutePath());
+        Database.initDatabase();
+
+        BaseDeBanc base = new BaseDeBanc(fichier, GenerateurDonnees.Parametres.pourTaille(taille));
+        GenerateurDonnees.Bilan bilan = new GenerateurDonnees(base.parametres).generer();
+        System.out.println("Base de banc (" + taille + " livres) remplie en " + bilan.dureeMs() + " ms : " + fichier);
+        return base;
+    }
+
+    /**
+     * @return Le nombre de livres de la base
+     */
+    public int getNbLivres() {
+        return parametres.nbLivres();
+    }
+
+    /**
+     * @return Le nombre d'adhérents de la base
+     */
+    public int getNbAdherents() {
+        return parametres.nbAdherents();
+    }
+
+    /**
+     * Ferme le pool de connexions et supprime le fichier de la base
+     */
+    public void supprimer() {
+        Database.fermer();
+        try {
+            Files.deleteIfExists(fichier);
+        } catch (IOException e) {
+            System.err.println("Impossible de supprimer la base de banc " + fichier + " : " + e.getMessage());
+        }
+    }
+}
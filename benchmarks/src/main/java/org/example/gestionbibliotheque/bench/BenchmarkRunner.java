@@ -0,0 +1,39 @@
+package org.example.gestionbibliotheque.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Point d'entrée des bancs d'essai
+ * Accepte les options habituelles de JMH (filtre de bancs, -p taille=..., -f, -wi, -i...) et ajoute
+ * toujours le profileur GC et un fichier de résultats JSON, à comparer d'une version à l'autre.
+ * Exemple : java -jar benchmarks.jar LivreDAOBenchmark -p taille=10000
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions ligneDeCommande = new CommandLineOptions(args);
+
+        // Fichier de résultats horodaté, sauf si -rff est donné
+        String fichierResultats = ligneDeCommande.getResult().orElse("jmh-resultats-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+
+        Options options = new OptionsBuilder()
+                .parent(ligneDeCommande)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(fichierResultats)
+                .build();
+        new Runner(options).run();
+        System.out.println("Résultats JSON : " + fichierResultats);
+    }
+}
@@ -0,0 +1,139 @@
+package org.example.gestionbibliotheque.bench;
+
+import org.example.gestionbibliotheque.dao.AdherentDAO;
+import org.example.gestionbibliotheque.dao.EmpruntDAO;
+import org.example.gestionbibliotheque.dao.LivreDAO;
+import org.example.gestionbibliotheque.model.Emprunt;
+import org.example.gestionbibliotheque.model.EmpruntDetail;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bancs d'essai d'EmpruntDAO : chargements complets, jointure du tableau des emprunts
+ * comparée aux lectures une par une (N+1), recherches par période et lecture par identifiant
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmpruntDAOBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int taille;
+
+    private BaseDeBanc base;
+    private EmpruntDAO empruntDAO;
+    private LivreDAO livreDAO;
+    private AdherentDAO adherentDAO;
+    private SplittableRandom aleatoire;
+
+    @Setup(Level.Trial)
+    public void preparer() throws SQLException {
+        base = BaseDeBanc.creer(taille);
+        empruntDAO = new EmpruntDAO();
+        livreDAO = new LivreDAO();
+        adherentDAO = new AdherentDAO();
+        aleatoire = new SplittableRandom(GenerateurDonnees.GRAINE);
+    }
+
+    @TearDown(Level.Trial)
+    public void nettoyer() {
+        base.supprimer();
+    }
+
+    /**
+     * Chargement complet des emprunts, sans les livres ni les adhérents
+     */
+    @Benchmark
+    public List<Emprunt> getEmprunts() throws SQLException {
+        return empruntDAO.getEmprunts();
+    }
+
+    /**
+     * Tableau des emprunts en une seule requête avec jointures
+     */
+    @Benchmark
+    public List<EmpruntDetail> getEmpruntsDetailles() throws SQLException {
+        return empruntDAO.getEmpruntsDetailles();
+    }
+
+    /**
+     * Tableau des emprunts construit comme avant la jointure : une lecture du livre
+     * et une lecture de l'adhérent par emprunt (N+1 requêtes). Les caches d'entités réduits à une entrée
+     * et le cache de requêtes préparées désactivé, chaque lecture va jusqu'à la base comme avant ces caches
+     */
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Dbibliotheque.cache.livres.tailleMax=1",
+            "-Dbibliotheque.cache.adherents.tailleMax=1", "-Dbibliotheque.pool.tailleCacheRequetes=0"})
+    public void getEmpruntsLecturesUnitaires(Blackhole trou) throws SQLException {
+        for (Emprunt emprunt : empruntDAO.getEmprunts()) {
+            trou.consume(livreDAO.getLivreById(emprunt.getLivreId()));
+            trou.consume(adherentDAO.getAdherentById(emprunt.getAdherentId()));
+        }
+    }
+
+    /**
+     * Emprunts en cours (index partiel)
+     */
+    @Benchmark
+    public List<Emprunt> getEmpruntsEnCours() throws SQLException {
+        return empruntDAO.getEmpruntsEnCours();
+    }
+
+    /**
+     * Première page du tableau des emprunts en cours, triés par date de retour prévue
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object getEmpruntsDetaillesPage() throws SQLException {
+        return empruntDAO.getEmpruntsDetaillesPage(null, 200, EmpruntDAO.Tri.DATE_RETOUR_PREVUE, EmpruntDAO.Filtre.EN_COURS);
+    }
+
+    /**
+     * Emprunts d'un mois tiré au hasard dans l'historique (intervalle de l'index sur date_emprunt)
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Emprunt> getEmpruntsEntre() throws SQLException {
+        LocalDate debut = GenerateurDonnees.DATE_FIN.minusMonths(1 + aleatoire.nextInt(59)).withDayOfMonth(1);
+        return empruntDAO.getEmpruntsEntre(debut, debut.plusMonths(1).minusDays(1));
+    }
+
+    /**
+     * Emprunts en cours arrivant à échéance dans la dernière semaine de l'historique (index partiel)
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Emprunt> getEmpruntsAEcheanceSemaine() throws SQLException {
+        return empruntDAO.getEmpruntsAEcheanceSemaine(GenerateurDonnees.DATE_FIN);
+    }
+
+    /**
+     * Lecture d'un emprunt par identifiant
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Emprunt getEmpruntById() throws SQLException {
+        return empruntDAO.getEmpruntById(1 + aleatoire.nextInt(base.getNbLivres()));
+    }
+}
@@ -0,0 +1,362 @@
+package org.example.gestionbibliotheque.bench;
+
+import org.example.gestionbibliotheque.dao.Database;
+import org.example.gestionbibliotheque.dao.EmpruntDAO;
+import org.example.gestionbibliotheque.dao.ProfilStockage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Générateur déterministe d'un jeu de données de bibliothèque, pour les tests de charge et de volume
+ * - popularité des livres selon une loi de Zipf : quelques titres concentrent la plupart des emprunts ;
+ * - adhérents aux noms français, dont les emails sont uniques comme l'impose le schéma ;
+ * - historique d'emprunts réparti sur plusieurs années, en ordre chronologique, avec des retours
+ *   à l'heure, en retard ou encore attendus ; le stock des livres tient compte des emprunts en cours.
+ * Le contenu ne dépend que des paramètres et de la graine. Les lignes sont écrites par lots JDBC
+ * dans de grandes transactions.
+ *
+ * Utilisation : java -cp benchmarks.jar org.example.gestionbibliotheque.bench.GenerateurDonnees
+ *               --fichier bibliotheque-charge.db --livres 200000 --adherents 50000 --emprunts 10000000
+ */
+public final class GenerateurDonnees {
+
+    /**
+     * Paramètres de génération
+     * @param nbLivres Le nombre de livres
+     * @param nbAdherents Le nombre d'adhérents
+     * @param nbEmprunts Le nombre d'emprunts de l'historique
+     * @param nbAnnees La durée couverte par l'historique
+     * @param dateFin La date du dernier emprunt (date « du jour » du jeu de données)
+     * @param exposantZipf L'exposant de la loi de popularité des livres
+     * @param graine La graine des tirages aléatoires
+     */
+    public record Parametres(int nbLivres, int nbAdherents, long nbEmprunts, int nbAnnees,
+                             LocalDate dateFin, double exposantZipf, long graine) {
+
+        public Parametres {
+            if (nbLivres < 1 || nbAdherents < 1 || nbEmprunts < 0 || nbAnnees < 1) {
+                throw new IllegalArgumentException("Il faut au moins un livre, un adhérent et une année d'historique");
+            }
+            if (exposantZipf < 0) {
+                throw new IllegalArgumentException("L'exposant de Zipf doit être positif");
+            }
+        }
+
+        /**
+         * Paramètres par défaut pour une taille de base : taille livres, taille / 5 adhérents et taille emprunts
+         * @param taille Le nombre de livres
+         */
+        public static Parametres pourTaille(int taille) {
+            return new Parametres(taille, Math.max(1, taille / 5), taille, 5, DATE_FIN, 1.0, GRAINE);
+        }
+    }
+
+    /**
+     * Résumé d'une génération
+     * @param livres Le nombre de livres écrits
+     * @param adherents Le nombre d'adhérents écrits
+     * @param emprunts Le nombre d'emprunts écrits
+     * @param empruntsEnCours Le nombre d'emprunts non retournés
+     * @param dureeMs La durée totale de la génération
+     */
+    public record Bilan(int livres, int adherents, long emprunts, long empruntsEnCours, long dureeMs) {
+    }
+
+    public static final long GRAINE = 42L;
+    public static final LocalDate DATE_FIN = LocalDate.of(2025, 12, 31);
+
+    // Nombre de lignes par exécution de lot, et par transaction
+    private static final int TAILLE_LOT = 10_000;
+    private static final int LIGNES_PAR_TRANSACTION = 500_000;
+
+    private static final String[] DEBUTS_TITRE = {
+            "Le jardin", "La nuit", "Le voyage", "La mémoire", "L'ombre", "Le secret", "La rivière", "Le roi",
+            "La lumière", "Le chemin", "L'enfant", "La montagne", "Le silence", "La maison", "Le dernier été",
+            "La guerre", "Le pays", "La mer", "Le retour", "La ville", "Le temps", "La promesse", "Le prince",
+            "La forêt", "Le miroir", "La lettre", "Le fleuve", "La route", "L'héritage", "Le phare"
+    };
+    private static final String[] SUITES_TITRE = {
+            "des étoiles", "du temps", "de la mer", "d'automne", "sans fin", "au bord du monde", "de minuit",
+            "des oubliés", "d'hiver", "du nord", "des songes", "perdu", "du désert", "des anges", "de cendres",
+            "des vents", "de pierre", "d'argent", "des marées", "interdit", "du matin", "de sable", "des rois",
+            "en exil", "des lointains"
+    };
+    private static final String[] PRENOMS = {
+            "Camille", "Léa", "Hugo", "Louis", "Chloé", "Lucas", "Emma", "Jules", "Inès", "Nathan",
+            "Manon", "Gabriel", "Zoé", "Arthur", "Jade", "Raphaël", "Louise", "Adam", "Alice", "Paul",
+            "Sarah", "Tom", "Lina", "Noah", "Clara", "Théo", "Juliette", "Ethan", "Anna", "Maël",
+            "Margaux", "Victor", "Lucie", "Martin", "Élise", "Antoine", "Agathe", "Simon", "Mathilde", "Rose",
+            "Julien", "Claire", "Nicolas", "Sophie", "Pierre", "Marie", "François", "Isabelle", "Yasmine", "Karim"
+    };
+    private static final String[] NOMS = {
+            "Martin", "Bernard", "Dubois", "Thomas", "Robert", "Richard", "Petit", "Durand", "Leroy", "Moreau",
+            "Simon", "Laurent", "Lefebvre", "Michel", "Garcia", "David", "Bertrand", "Roux", "Vincent", "Fournier",
+            "Morel", "Girard", "André", "Lefèvre", "Mercier", "Dupont", "Lambert", "Bonnet", "François", "Martinez",
+            "Legrand", "Garnier", "Faure", "Rousseau", "Blanc", "Guérin", "Muller", "Henry", "Roussel", "Nicolas",
+            "Perrin", "Morin", "Mathieu", "Clément", "Gauthier", "Dumont", "Lopez", "Fontaine", "Chevalier", "Robin"
+    };
+    private static final String[] DOMAINES = {
+            "exemple.fr", "courriel.fr", "poste.fr", "messagerie.com", "biblio.org"
+    };
+
+    private final Parametres parametres;
+
+    public GenerateurDonnees(Parametres parametres) {
+        this.parametres = parametres;
+    }
+
+    /**
+     * Remplit la base de l'application (Database), dont le schéma doit être à jour
+     * Les tables sont supposées vides : les identifiants générés commencent à 1
+     * Les lignes sont écrites sans passer par les DAOs : l'index des emprunts, s'il est actif, est rechargé
+     * @return Le résumé de la génération
+     */
+    public Bilan generer() throws SQLException {
+        Bilan bilan = remplir();
+        if (EmpruntDAO.getStatistiquesIndex().actif()) {
+            EmpruntDAO.chargerIndex();
+        }
+        return bilan;
+    }
+
+    private Bilan remplir() throws SQLException {
+        long debut = System.nanoTime();
+        SplittableRandom aleatoire = new SplittableRandom(parametres.graine());
+        try (Connection conn = Database.getConnection()) {
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT EXISTS (SELECT 1 FROM Livres) OR EXISTS (SELECT 1 FROM Adherents)"
+                         + " OR EXISTS (SELECT 1 FROM Emprunts)")) {
+                if (rs.getBoolean(1)) {
+                    throw new SQLException("La base doit être vide pour y générer un jeu de données");
+                }
+            }
+            // Chargement en masse : la base peut être regénérée en cas d'interruption
+            ProfilStockage.CHARGEMENT.appliquer(conn);
+            conn.setAutoCommit(false);
+            try {
+                LoiZipf popularite = new LoiZipf(parametres.nbLivres(), parametres.exposantZipf(), aleatoire.split());
+                int[] exemplaires = genererLivres(conn, popularite, aleatoire.split());
+                genererAdherents(conn, aleatoire.split());
+                int[] enCours = new int[parametres.nbLivres()];
+                long nbEnCours = genererEmprunts(conn, popularite, exemplaires, enCours, aleatoire.split());
+                mettreAJourStock(conn, exemplaires, enCours);
+                conn.commit();
+                return new Bilan(parametres.nbLivres(), parametres.nbAdherents(), parametres.nbEmprunts(),
+                        nbEnCours, (System.nanoTime() - debut) / 1_000_000);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+                // La connexion retourne au pool : elle reprend le profil des autres connexions
+                Database.getProfilStockage().appliquer(conn);
+            }
+        }
+    }
+
+    // Écrit les livres et retourne le nombre d'exemplaires de chacun (indice = id - 1)
+    private int[] genererLivres(Connection conn, LoiZipf popularite, SplittableRandom aleatoire) throws SQLException {
+        int n = parametres.nbLivres();
+        int[] rangs = popularite.rangs();
+        int[] exemplaires = new int[n];
+        // Un auteur écrit en moyenne huit livres
+        String[] auteurs = new String[Math.max(1, n / 8)];
+        for (int i = 0; i < auteurs.length; i++) {
+            auteurs[i] = PRENOMS[aleatoire.nextInt(PRENOMS.length)] + " " + NOMS[aleatoire.nextInt(NOMS.length)];
+        }
+        String sql = "INSERT INTO Livres (titre, auteur, nb_exemplaires) VALUES (?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < n; i++) {
+                // Les titres les plus empruntés sont achetés en plusieurs exemplaires
+                int rang = rangs[i];
+                exemplaires[i] = 1 + aleatoire.nextInt(3) + (rang < n / 100 ? 3 + aleatoire.nextInt(5) : 0);
+                stmt.setString(1, titre(aleatoire));
+                stmt.setString(2, auteurs[aleatoire.nextInt(auteurs.length)]);
+                stmt.setInt(3, exemplaires[i]);
+                ajouterAuLot(conn, stmt, i + 1, "Livres", n);
+            }
+            stmt.executeBatch();
+        }
+        return exemplaires;
+    }
+
+    private void genererAdherents(Connection conn, SplittableRandom aleatoire) throws SQLException {
+        int n = parametres.nbAdherents();
+        // Nombre d'adhérents déjà inscrits pour chaque prénom.nom@domaine
+        Map<String, Integer> homonymes = new HashMap<>();
+        String sql = "INSERT INTO Adherents (nom, prenom, email, telephone) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 1; i <= n; i++) {
+                String prenom = PRENOMS[aleatoire.nextInt(PRENOMS.length)];
+                String nom = NOMS[aleatoire.nextInt(NOMS.length)];
+                String base = sansAccents(prenom + "." + nom) + "@" + DOMAINES[aleatoire.nextInt(DOMAINES.length)];
+                int rang = homonymes.merge(base, 1, Integer::sum);
+                String email = rang == 1 ? base : base.replace("@", rang + "@");
+                stmt.setString(1, nom);
+                stmt.setString(2, prenom);
+                stmt.setString(3, email);
+                // Huit chiffres, comme l'exige la validation des adhérents
+                stmt.setString(4, String.valueOf(20_000_000 + aleatoire.nextInt(80_000_000)));
+                ajouterAuLot(conn, stmt, i, "Adherents", n);
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    // Écrit l'historique des emprunts en ordre chronologique et retourne le nombre d'emprunts en cours
+    private long genererEmprunts(Connection conn, LoiZipf popularite, int[] exemplaires, int[] enCours,
+                                 SplittableRandom aleatoire) throws SQLException {
+        long n = parametres.nbEmprunts();
+        // Les adhérents ne sont pas tous aussi assidus
+        LoiZipf assiduite = new LoiZipf(parametres.nbAdherents(), 0.6, aleatoire.split());
+        LocalDate fin = parametres.dateFin();
+        LocalDate origine = fin.minusYears(parametres.nbAnnees());
+        long nbJours = fin.toEpochDay() - origine.toEpochDay();
+        long nbEnCours = 0;
+
+        String sql = "INSERT INTO Emprunts (date_emprunt, date_retour_prevue, date_retour_effective, livre_id, adherent_id) "
+                + "VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (long i = 0; i < n; i++) {
+                LocalDate dateEmprunt = origine.plusDays(n == 1 ? nbJours : i * nbJours / (n - 1));
+                int livreId = popularite.tirer(aleatoire);
+                LocalDate retour = dateEmprunt.plusDays(dureeEmprunt(aleatoire));
+                if (retour.isAfter(fin)) {
+                    // Pas encore rendu, s'il reste un exemplaire ; sinon il a été rendu aujourd'hui
+                    if (enCours[livreId - 1] < exemplaires[livreId - 1]) {
+                        enCours[livreId - 1]++;
+                        nbEnCours++;
+                        retour = null;
+                    } else {
+                        retour = fin;
+                    }
+                }
+                // Dates en jours depuis le 1970-01-01, comme les écrit EmpruntDAO
+                stmt.setLong(1, dateEmprunt.toEpochDay());
+                stmt.setLong(2, dateEmprunt.toEpochDay() + 14);
+                if (retour == null) {
+                    stmt.setNull(3, Types.INTEGER);
+                } else {
+                    stmt.setLong(3, retour.toEpochDay());
+                }
+                stmt.setInt(4, livreId);
+                stmt.setInt(5, assiduite.tirer(aleatoire));
+                ajouterAuLot(conn, stmt, i + 1, "Emprunts", n);
+            }
+            stmt.executeBatch();
+        }
+        return nbEnCours;
+    }
+
+    // Durée avant le retour : le plus souvent dans les quatorze jours, parfois en retard, rarement très en retard
+    private static int dureeEmprunt(SplittableRandom aleatoire) {
+        int tirage = aleatoire.nextInt(100);
+        if (tirage < 70) {
+            return 1 + aleatoire.nextInt(14);
+        }
+        if (tirage < 95) {
+            return 15 + aleatoire.nextInt(26);
+        }
+        return 41 + aleatoire.nextInt(50);
+    }
+
+    // Le stock disponible est le nombre d'exemplaires moins les emprunts en cours
+    private static void mettreAJourStock(Connection conn, int[] exemplaires, int[] enCours) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("UPDATE Livres SET nb_exemplaires = ? WHERE id = ?")) {
+            int nbLignes = 0;
+            for (int i = 0; i < enCours.length; i++) {
+                if (enCours[i] > 0) {
+                    stmt.setInt(1, exemplaires[i] - enCours[i]);
+                    stmt.setInt(2, i + 1);
+                    stmt.addBatch();
+                    if (++nbLignes % TAILLE_LOT == 0) {
+                        stmt.executeBatch();
+                    }
+                }
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    // Exécute le lot tous les TAILLE_LOT lignes et valide la transaction tous les LIGNES_PAR_TRANSACTION lignes
+    private static void ajouterAuLot(Connection conn, PreparedStatement stmt, long rang, String table, long total)
+            throws SQLException {
+        stmt.addBatch();
+        if (rang % TAILLE_LOT == 0) {
+            stmt.executeBatch();
+        }
+        if (rang % LIGNES_PAR_TRANSACTION == 0) {
+            stmt.executeBatch();
+            conn.commit();
+            System.out.println(table + " : " + rang + " / " + total);
+        }
+    }
+
+    private static String titre(SplittableRandom aleatoire) {
+        String titre = DEBUTS_TITRE[aleatoire.nextInt(DEBUTS_TITRE.length)] + " "
+                + SUITES_TITRE[aleatoire.nextInt(SUITES_TITRE.length)];
+        // Une partie des livres appartient à une série
+        if (aleatoire.nextInt(10) == 0) {
+            titre += ", tome " + (1 + aleatoire.nextInt(6));
+        }
+        return titre;
+    }
+
+    private static String sansAccents(String texte) {
+        return Normalizer.normalize(texte, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Crée une base de données et la remplit
+     * Options : --fichier, --livres, --adherents, --emprunts, --annees, --fin (AAAA-MM-JJ), --zipf, --graine
+     */
+    public static void main(String[] args) throws SQLException {
+        String fichier = "bibliotheque-charge.db";
+        int nbLivres = 100_000;
+        int nbAdherents = 20_000;
+        long nbEmprunts = 1_000_000;
+        int nbAnnees = 5;
+        LocalDate fin = DATE_FIN;
+        double exposant = 1.0;
+        long graine = GRAINE;
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Valeur manquante pour l'option " + args[i]);
+            }
+            String valeur = args[i + 1];
+            switch (args[i]) {
+                case "--fichier" -> fichier = valeur;
+                case "--livres" -> nbLivres = Integer.parseInt(valeur);
+                case "--adherents" -> nbAdherents = Integer.parseInt(valeur);
+                case "--emprunts" -> nbEmprunts = Long.parseLong(valeur);
+                case "--annees" -> nbAnnees = Integer.parseInt(valeur);
+                case "--fin" -> fin = LocalDate.parse(valeur);
+                case "--zipf" -> exposant = Double.parseDouble(valeur);
+                case "--graine" -> graine = Long.parseLong(valeur);
+                default -> throw new IllegalArgumentException("Option inconnue : " + args[i]);
+            }
+        }
+
+        Database.configurerUrl("jdbc:sqlite:" + fichier);
+        Database.initDatabase();
+        Bilan bilan = new GenerateurDonnees(new Parametres(nbLivres, nbAdherents, nbEmprunts, nbAnnees,
+                fin, exposant, graine)).generer();
+        Database.fermer();
+        System.out.println("Base " + fichier + " générée en " + bilan.dureeMs() / 1000.0 + " s : "
+                + bilan.livres() + " livres, " + bilan.adherents() + " adhérents, " + bilan.emprunts()
+                + " emprunts (" + bilan.empruntsEnCours() + " en cours)");
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.gestionbibliotheque.bench;
+
+import org.example.gestionbibliotheque.dao.EmpruntDAO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bancs d'essai des questions de circulation (exemplaires d'un livre prêtés, emprunts en cours
+ * d'un adhérent), servies par la base ou par l'index en mémoire des emprunts en cours
+ * Chaque combinaison de paramètres tourne dans sa propre JVM : l'index chargé n'en sort pas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndexEmpruntsBenchmark {
+
+    @Param({"10000", "100000"})
+    public int taille;
+
+    @Param({"false", "true"})
+    public boolean indexe;
+
+    private BaseDeBanc base;
+    private EmpruntDAO empruntDAO;
+    private SplittableRandom aleatoire;
+
+    @Setup(Level.Trial)
+    public void preparer() throws SQLException {
+        base = BaseDeBanc.creer(taille);
+        if (indexe) {
+            EmpruntDAO.chargerIndex();
+            System.out.println("Index : " + EmpruntDAO.getStatistiquesIndex());
+        }
+        empruntDAO = new EmpruntDAO();
+        aleatoire = new SplittableRandom(GenerateurDonnees.GRAINE);
+    }
+
+    @TearDown(Level.Trial)
+    public void nettoyer() {
+        base.supprimer();
+    }
+
+    /**
+     * Nombre d'exemplaires prêtés d'un livre tiré au hasard
+     */
+    @Benchmark
+    public int compterEmpruntsEnCoursLivre() throws SQLException {
+        return empruntDAO.compterEmpruntsEnCoursLivre(1 + aleatoire.nextInt(base.getNbLivres()));
+    }
+
+    /**
+     * Emprunts en cours d'un adhérent tiré au hasard
+     */
+    @Benchmark
+    public int[] getIdsEmpruntsEnCoursAdherent() throws SQLException {
+        return empruntDAO.getIdsEmpruntsEnCoursAdherent(1 + aleatoire.nextInt(base.getNbAdherents()));
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.gestionbibliotheque.bench;
+
+import org.example.gestionbibliotheque.dao.LivreDAO;
+import org.example.gestionbibliotheque.model.Livre;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bancs d'essai de LivreDAO : insertion, lecture par identifiant, chargements complets et recherches LIKE
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LivreDAOBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int taille;
+
+    private BaseDeBanc base;
+    private LivreDAO livreDAO;
+    private SplittableRandom aleatoire;
+
+    @Setup(Level.Trial)
+    public void preparer() throws SQLException {
+        base = BaseDeBanc.creer(taille);
+        livreDAO = new LivreDAO();
+        aleatoire = new SplittableRandom(GenerateurDonnees.GRAINE);
+    }
+
+    @TearDown(Level.Trial)
+    public void nettoyer() {
+        base.supprimer();
+    }
+
+    /**
+     * Insertion d'un livre (la table grandit au fil des itérations)
+     */
+    @Benchmark
+    public Livre ajouterLivre() throws SQLException {
+        Livre livre = new Livre("Banc d'essai", "Auteur de banc", 3);
+        livreDAO.ajouterLivre(livre);
+        return livre;
+    }
+
+    /**
+     * Lecture par identifiant, servie essentiellement par le cache des livres
+     */
+    @Benchmark
+    public Livre getLivreById() throws SQLException {
+        return livreDAO.getLivreById(1 + aleatoire.nextInt(base.getNbLivres()));
+    }
+
+    /**
+     * Lecture par identifiant dans la base : le cache réduit à une entrée ne sert presque jamais
+     */
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dbibliotheque.cache.livres.tailleMax=1")
+    public Livre getLivreByIdSansCache() throws SQLException {
+        return livreDAO.getLivreById(1 + aleatoire.nextInt(base.getNbLivres()));
+    }
+
+    /**
+     * Chargement complet de la table
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Livre> getLivres() throws SQLException {
+        return livreDAO.getLivres();
+    }
+
+    /**
+     * Première page de la table triée par titre
+     */
+    @Benchmark
+    public Object getLivresPage() throws SQLException {
+        return livreDAO.getLivresPage(null, 200, LivreDAO.Tri.TITRE);
+    }
+
+    /**
+     * Recherche LIKE '%...%' sur le titre (parcours complet de la table)
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Livre> rechercherParTitre() throws SQLException {
+        return livreDAO.rechercherParTitre("voyage");
+    }
+
+    /**
+     * Recherche LIKE '%...%' sur l'auteur
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Livre> rechercherParAuteur() throws SQLException {
+        return livreDAO.rechercherParAuteur("Dubois");
+    }
+}
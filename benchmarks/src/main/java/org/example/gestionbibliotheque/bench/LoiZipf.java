@@ -0,0 +1,70 @@
+package org.example.gestionbibliotheque.bench;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Tirage d'éléments selon une loi de Zipf : l'élément de rang k est tiré avec une probabilité
+ * proportionnelle à 1 / k^s. Les rangs sont répartis au hasard sur les identifiants 1..n,
+ * pour que les éléments populaires ne soient pas les premiers insérés.
+ */
+final class LoiZipf {
+
+    private final double[] cumul;
+    private final int[] identifiants;
+
+    /**
+     * @param n Le nombre d'éléments
+     * @param exposant L'exposant s (0 donne une loi uniforme ; 1 est typique d'un catalogue)
+     * @param aleatoire La source d'aléa utilisée pour répartir les rangs sur les identifiants
+     */
+    LoiZipf(int n, double exposant, SplittableRandom aleatoire) {
+        if (n < 1) {
+            throw new IllegalArgumentException("La loi de Zipf demande au moins un élément");
+        }
+        cumul = new double[n];
+        double total = 0;
+        for (int rang = 0; rang < n; rang++) {
+            total += 1.0 / Math.pow(rang + 1, exposant);
+            cumul[rang] = total;
+        }
+        identifiants = new int[n];
+        for (int i = 0; i < n; i++) {
+            identifiants[i] = i + 1;
+        }
+        // Mélange de Fisher-Yates
+        for (int i = n - 1; i > 0; i--) {
+            int j = aleatoire.nextInt(i + 1);
+            int tmp = identifiants[i];
+            identifiants[i] = identifiants[j];
+            identifiants[j] = tmp;
+        }
+    }
+
+    /**
+     * @return Le rang (0 = le plus populaire) tiré
+     */
+    int tirerRang(SplittableRandom aleatoire) {
+        double u = aleatoire.nextDouble() * cumul[cumul.length - 1];
+        int position = Arrays.binarySearch(cumul, u);
+        return position >= 0 ? position : Math.min(-position - 1, cumul.length - 1);
+    }
+
+    /**
+     * @return L'identifiant (entre 1 et n) tiré
+     */
+    int tirer(SplittableRandom aleatoire) {
+        return identifiants[tirerRang(aleatoire)];
+    }
+
+    /**
+     * @return Le rang de chaque identifiant (indice = identifiant - 1)
+     */
+    int[] rangs() {
+        int[] rangs = new int[identifiants.length];
+        for (int rang = 0; rang < identifiants.length; rang++) {
+            rangs[identifiants[rang] - 1] = rang;
+        }
+        return rangs;
+    }
+}
@@ -0,0 +1,162 @@
+package org.example.gestionbibliotheque.bench;
+
+import org.example.gestionbibliotheque.dao.Database;
+import org.example.gestionbibliotheque.dao.EmpruntDAO;
+import org.example.gestionbibliotheque.dao.LivreDAO;
+import org.example.gestionbibliotheque.model.Emprunt;
+import org.example.gestionbibliotheque.model.Livre;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût de la conversion ResultSet -> modèle, isolé du reste des DAOs
+ * parcourir() ne fait que lire les curseurs : l'écart avec les autres mesures est le coût du mapping
+ * (résolution des noms de colonnes, propriétés JavaFX, construction des dates).
+ * Les mesures ...ParNom reproduisent l'ancien mapping des DAOs (SELECT *, colonnes lues par nom) ;
+ * les mesures ...Mappeur passent par les DAOs, qui lisent par position avec MappeurLignes.
+ * Chaque table contient taille lignes : pour taille=1000000, le score est le coût par million de lignes,
+ * et le profil GC de BenchmarkRunner donne les octets alloués par million de lignes (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int taille;
+
+    private BaseDeBanc base;
+
+    @Setup(Level.Trial)
+    public void preparer() throws SQLException {
+        base = BaseDeBanc.creer(taille);
+    }
+
+    @TearDown(Level.Trial)
+    public void nettoyer() {
+        base.supprimer();
+    }
+
+    /**
+     * Parcours des lignes sans construire d'objet
+     */
+    @Benchmark
+    public long parcourir() throws SQLException {
+        long total = 0;
+        try (Connection conn = Database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT id, titre, auteur, nb_exemplaires FROM Livres");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                total += rs.getInt(1);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Mapping des livres par nom de colonne, comme dans LivreDAO
+     */
+    @Benchmark
+    public List<Livre> livresParNom() throws SQLException {
+        List<Livre> livres = new ArrayList<>();
+        try (Connection conn = Database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT * FROM Livres");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                Livre livre = new Livre();
+                livre.setId(rs.getInt("id"));
+                livre.setTitre(rs.getString("titre"));
+                livre.setAuteur(rs.getString("auteur"));
+                livre.setNbExemplaires(rs.getInt("nb_exemplaires"));
+                livres.add(livre);
+            }
+        }
+        return livres;
+    }
+
+    /**
+     * Mapping des livres par position de colonne, sur une liste de colonnes explicite
+     */
+    @Benchmark
+    public List<Livre> livresParPosition() throws SQLException {
+        List<Livre> livres = new ArrayList<>();
+        try (Connection conn = Database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT id, titre, auteur, nb_exemplaires FROM Livres");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                Livre livre = new Livre();
+                livre.setId(rs.getInt(1));
+                livre.setTitre(rs.getString(2));
+                livre.setAuteur(rs.getString(3));
+                livre.setNbExemplaires(rs.getInt(4));
+                livres.add(livre);
+            }
+        }
+        return livres;
+    }
+
+    /**
+     * Mapping des livres par LivreDAO (MappeurLignes)
+     */
+    @Benchmark
+    public List<Livre> livresMappeur() throws SQLException {
+        return new LivreDAO().getLivres();
+    }
+
+    /**
+     * Mapping des emprunts par nom de colonne (SELECT *), comme dans l'ancien EmpruntDAO
+     */
+    @Benchmark
+    public List<Emprunt> empruntsParNom() throws SQLException {
+        List<Emprunt> emprunts = new ArrayList<>();
+        try (Connection conn = Database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT * FROM Emprunts");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                Emprunt emprunt = new Emprunt();
+                emprunt.setId(rs.getInt("id"));
+                emprunt.setLivreId(rs.getInt("livre_id"));
+                emprunt.setAdherentId(rs.getInt("adherent_id"));
+                emprunt.setDateEmprunt(LocalDate.ofEpochDay(rs.getLong("date_emprunt")));
+                emprunt.setDateRetourPrevue(LocalDate.ofEpochDay(rs.getLong("date_retour_prevue")));
+                long dateRetourEffective = rs.getLong("date_retour_effective");
+                if (!rs.wasNull()) {
+                    emprunt.setDateRetourEffective(LocalDate.ofEpochDay(dateRetourEffective));
+                }
+                emprunts.add(emprunt);
+            }
+        }
+        return emprunts;
+    }
+
+    /**
+     * Mapping des emprunts par EmpruntDAO (MappeurLignes)
+     */
+    @Benchmark
+    public List<Emprunt> empruntsMappeur() throws SQLException {
+        return new EmpruntDAO().getEmprunts();
+    }
+}
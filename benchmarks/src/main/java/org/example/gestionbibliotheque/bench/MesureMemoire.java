@@ -0,0 +1,106 @@
+package org.example.gestionbibliotheque.bench;
+
+import org.example.gestionbibliotheque.dao.Database;
+import org.example.gestionbibliotheque.dao.EmpruntDAO;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Mesure du tas retenu par tous les emprunts chargés en mémoire, selon leur représentation
+ * Compare les Emprunt à propriétés JavaFX (EmpruntDAO.getEmprunts) aux enregistrements immuables
+ * EmpruntLigne (EmpruntDAO.getEmpruntsLignes). Le tas occupé est lu après plusieurs GC complets,
+ * avant le chargement puis avec la liste encore référencée ; la différence est le coût de la liste.
+ * À lancer avec un tas assez grand et un seul ramasse-miettes actif, par exemple -Xmx4g -XX:+UseSerialGC.
+ *
+ * Utilisation : java -Xmx4g -XX:+UseSerialGC -cp benchmarks.jar org.example.gestionbibliotheque.bench.MesureMemoire
+ *               --fichier emprunts-1m.db --emprunts 1000000
+ */
+public final class MesureMemoire {
+
+    private static final MemoryMXBean MEMOIRE = ManagementFactory.getMemoryMXBean();
+
+    /**
+     * Chargement d'une représentation
+     */
+    @FunctionalInterface
+    private interface Chargement {
+        List<?> charger() throws SQLException;
+    }
+
+    private MesureMemoire() {
+    }
+
+    // Tas occupé après stabilisation : on répète les GC jusqu'à ce que la mesure ne baisse plus
+    private static long tasOccupe() throws InterruptedException {
+        long precedent = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            Thread.sleep(50);
+            long occupe = MEMOIRE.getHeapMemoryUsage().getUsed();
+            if (occupe >= precedent) {
+                return occupe;
+            }
+            precedent = occupe;
+        }
+        return precedent;
+    }
+
+    private static void mesurer(String representation, Chargement chargement) throws SQLException, InterruptedException {
+        // Un premier chargement, abandonné, sort les classes et caches de la mesure
+        chargement.charger();
+        long avant = tasOccupe();
+        List<?> lignes = chargement.charger();
+        long apres = tasOccupe();
+        long octets = apres - avant;
+        System.out.printf(Locale.ROOT, "%-30s %,10d lignes  %,8.1f Mo  %6.1f octets/ligne%n", representation,
+                lignes.size(), octets / (1024.0 * 1024.0), lignes.isEmpty() ? 0.0 : (double) octets / lignes.size());
+        // La liste doit rester atteignable jusqu'à la seconde mesure
+        Reference.reachabilityFence(lignes);
+    }
+
+    /**
+     * Options : --fichier, --graine.
+     * Si le fichier n'existe pas, il est d'abord rempli par GenerateurDonnees (--livres, --adherents, --emprunts).
+     */
+    public static void main(String[] args) throws Exception {
+        String fichier = "emprunts-1m.db";
+        long graine = GenerateurDonnees.GRAINE;
+        int nbLivres = 20_000;
+        int nbAdherents = 4_000;
+        long nbEmprunts = 1_000_000;
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Valeur manquante pour l'option " + args[i]);
+            }
+            String valeur = args[i + 1];
+            switch (args[i]) {
+                case "--fichier" -> fichier = valeur;
+                case "--graine" -> graine = Long.parseLong(valeur);
+                case "--livres" -> nbLivres = Integer.parseInt(valeur);
+                case "--adherents" -> nbAdherents = Integer.parseInt(valeur);
+                case "--emprunts" -> nbEmprunts = Long.parseLong(valeur);
+                default -> throw new IllegalArgumentException("Option inconnue : " + args[i]);
+            }
+        }
+
+        boolean nouvelleBase = !Files.exists(Path.of(fichier));
+        Database.configurerUrl("jdbc:sqlite:" + fichier);
+        Database.initDatabase();
+        if (nouvelleBase) {
+            new GenerateurDonnees(new GenerateurDonnees.Parametres(nbLivres, nbAdherents, nbEmprunts, 5,
+                    GenerateurDonnees.DATE_FIN, 1.0, graine)).generer();
+        }
+
+        EmpruntDAO empruntDAO = new EmpruntDAO();
+        mesurer("Emprunt (propriétés JavaFX)", empruntDAO::getEmprunts);
+        mesurer("EmpruntLigne (record)", empruntDAO::getEmpruntsLignes);
+        Database.fermer();
+    }
+}
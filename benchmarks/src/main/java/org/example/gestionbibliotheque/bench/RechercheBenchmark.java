@@ -0,0 +1,68 @@
+package org.example.gestionbibliotheque.bench;
+
+import org.example.gestionbibliotheque.dao.LivreDAO;
+import org.example.gestionbibliotheque.model.Livre;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherche dans le catalogue : LIKE '%...%' comparé à l'index plein texte (FTS5)
+ * Les deux recherches sont limitées au même nombre de résultats que l'interface
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RechercheBenchmark {
+
+    private static final int LIMITE = 500;
+
+    @Param({"10000", "100000", "1000000"})
+    public int taille;
+
+    // Un mot fréquent, un préfixe, et un titre précis
+    @Param({"voyage", "lumi", "jardin des étoiles"})
+    public String texte;
+
+    private BaseDeBanc base;
+    private LivreDAO livreDAO;
+
+    @Setup(Level.Trial)
+    public void preparer() throws SQLException {
+        base = BaseDeBanc.creer(taille);
+        livreDAO = new LivreDAO();
+    }
+
+    @TearDown(Level.Trial)
+    public void nettoyer() {
+        base.supprimer();
+    }
+
+    @Benchmark
+    public List<Livre> like() throws SQLException {
+        List<Livre> livres = livreDAO.rechercherParTitre(texte);
+        return livres.size() > LIMITE ? livres.subList(0, LIMITE) : livres;
+    }
+
+    @Benchmark
+    public List<Livre> pleinTexte() throws SQLException {
+        return livreDAO.rechercherTexte(texte, LIMITE);
+    }
+}
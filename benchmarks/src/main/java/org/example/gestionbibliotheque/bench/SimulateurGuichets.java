@@ -0,0 +1,355 @@
+package org.example.gestionbibliotheque.bench;
+
+import org.example.gestionbibliotheque.dao.AdherentDAO;
+import org.example.gestionbibliotheque.dao.ConnectionPool;
+import org.example.gestionbibliotheque.dao.Database;
+import org.example.gestionbibliotheque.dao.EmpruntDAO;
+import org.example.gestionbibliotheque.dao.LivreDAO;
+import org.example.gestionbibliotheque.model.Adherent;
+import org.example.gestionbibliotheque.model.Emprunt;
+import org.example.gestionbibliotheque.util.HistogrammeLatence;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simulation de plusieurs postes de prêt travaillant en même temps sur la même base
+ * Chaque guichet est un thread virtuel qui enchaîne des opérations tirées selon un mélange configurable
+ * (emprunts, retours, recherches, consultation du tableau des emprunts, modification d'adhérents)
+ * en passant par les DAOs de l'application. Le rapport donne le débit, les latences p50/p99/p99.9
+ * par opération et le nombre d'erreurs de verrouillage (SQLITE_BUSY / SQLITE_LOCKED).
+ * Les latences comprennent l'attente d'une connexion du pool. La base utilisée est modifiée.
+ *
+ * Utilisation : java -cp benchmarks.jar org.example.gestionbibliotheque.bench.SimulateurGuichets
+ *               --fichier bibliotheque-charge.db --guichets 8 --duree 60
+ *               --melange emprunt=30,retour=25,recherche=30,consultation=10,adherent=5
+ */
+public final class SimulateurGuichets {
+
+    /**
+     * Opérations effectuées par un guichet
+     */
+    enum Operation {
+        EMPRUNT, RETOUR, RECHERCHE, CONSULTATION, ADHERENT
+    }
+
+    // Mesures d'une opération, partagées par tous les guichets
+    private static final class Mesures {
+        final HistogrammeLatence latences = new HistogrammeLatence();
+        final LongAdder contention = new LongAdder();
+        final LongAdder erreurs = new LongAdder();
+        final LongAdder sansEffet = new LongAdder();
+    }
+
+    // Codes d'erreur SQLite signalant un conflit de verrou
+    private static final int SQLITE_BUSY = 5;
+    private static final int SQLITE_LOCKED = 6;
+
+    private static final String[] RECHERCHES = {
+            "voyage", "jardin", "nuit", "lumi", "secret", "mer", "étoiles", "temps", "forêt", "prince"
+    };
+
+    private final int nbGuichets;
+    private final Map<Operation, Integer> melange;
+    private final long pauseMoyenneMs;
+    private final long graine;
+    private final Map<Operation, Mesures> mesures = new EnumMap<>(Operation.class);
+    private final ConcurrentLinkedQueue<Integer> empruntsEnCours = new ConcurrentLinkedQueue<>();
+    private final LivreDAO livreDAO = new LivreDAO();
+    private final AdherentDAO adherentDAO = new AdherentDAO();
+    private final EmpruntDAO empruntDAO = new EmpruntDAO();
+    private volatile boolean enMesure;
+    private LoiZipf popularite;
+    private int nbAdherents;
+
+    SimulateurGuichets(int nbGuichets, Map<Operation, Integer> melange, long pauseMoyenneMs, long graine) {
+        if (nbGuichets < 1) {
+            throw new IllegalArgumentException("Il faut au moins un guichet");
+        }
+        if (melange.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("Le mélange d'opérations doit contenir au moins une opération");
+        }
+        this.nbGuichets = nbGuichets;
+        this.melange = melange;
+        this.pauseMoyenneMs = pauseMoyenneMs;
+        this.graine = graine;
+        for (Operation operation : Operation.values()) {
+            mesures.put(operation, new Mesures());
+        }
+    }
+
+    /**
+     * Lance les guichets, ignore les mesures pendant la chauffe, puis affiche le rapport
+     * @param chauffeS La durée de chauffe en secondes
+     * @param dureeS La durée mesurée en secondes
+     */
+    void executer(int chauffeS, int dureeS) throws SQLException, InterruptedException {
+        preparer();
+        SplittableRandom aleatoire = new SplittableRandom(graine);
+        long debut = System.nanoTime();
+        long debutMesure = debut + TimeUnit.SECONDS.toNanos(chauffeS);
+        long fin = debutMesure + TimeUnit.SECONDS.toNanos(dureeS);
+
+        System.out.println(nbGuichets + " guichets, chauffe " + chauffeS + " s, mesure " + dureeS + " s, mélange " + melange);
+        List<Future<?>> guichets = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < nbGuichets; i++) {
+                SplittableRandom aleatoireGuichet = aleatoire.split();
+                guichets.add(executor.submit(() -> guichet(aleatoireGuichet, fin)));
+            }
+            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(Math.max(0, debutMesure - System.nanoTime())));
+            enMesure = true;
+        }
+        for (Future<?> guichet : guichets) {
+            try {
+                guichet.get();
+            } catch (ExecutionException e) {
+                System.err.println("Un guichet s'est arrêté sur une erreur : " + e.getCause());
+            }
+        }
+        afficherRapport((System.nanoTime() - debutMesure) / 1e9);
+    }
+
+    // Lit les bornes du jeu de données et les emprunts en cours, que les retours vont clore
+    private void preparer() throws SQLException {
+        int nbLivres;
+        try (Connection conn = Database.getConnection();
+             Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT (SELECT MAX(id) FROM Livres), (SELECT MAX(id) FROM Adherents)")) {
+                nbLivres = rs.getInt(1);
+                nbAdherents = rs.getInt(2);
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT id FROM Emprunts WHERE date_retour_effective IS NULL")) {
+                while (rs.next()) {
+                    empruntsEnCours.add(rs.getInt(1));
+                }
+            }
+        }
+        if (nbLivres < 1 || nbAdherents < 1) {
+            throw new SQLException("La base doit contenir des livres et des adhérents");
+        }
+        popularite = new LoiZipf(nbLivres, 1.0, new SplittableRandom(graine));
+        System.out.println(nbLivres + " livres, " + nbAdherents + " adhérents, "
+                + empruntsEnCours.size() + " emprunts en cours");
+    }
+
+    private void guichet(SplittableRandom aleatoire, long fin) {
+        int total = melange.values().stream().mapToInt(Integer::intValue).sum();
+        while (System.nanoTime() < fin && !Thread.currentThread().isInterrupted()) {
+            Operation operation = tirer(aleatoire.nextInt(total));
+            Mesures mesure = mesures.get(operation);
+            boolean compter = enMesure;
+            long debut = System.nanoTime();
+            try {
+                if (!effectuer(operation, aleatoire) && compter) {
+                    mesure.sansEffet.increment();
+                }
+            } catch (SQLException e) {
+                if (compter) {
+                    (estConflitDeVerrou(e) ? mesure.contention : mesure.erreurs).increment();
+                }
+            } catch (RuntimeException e) {
+                if (compter) {
+                    mesure.erreurs.increment();
+                }
+            }
+            if (compter) {
+                mesure.latences.enregistrer(System.nanoTime() - debut);
+            }
+            if (pauseMoyenneMs > 0) {
+                // Temps de réflexion du bibliothécaire, de loi exponentielle
+                long pause = (long) (-Math.log(1 - aleatoire.nextDouble()) * pauseMoyenneMs);
+                try {
+                    Thread.sleep(pause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                // Les appels JDBC ne rendent pas la main aux autres threads virtuels : un guichet qui trouve
+                // toujours une connexion libre garderait le thread porteur et affamerait les autres guichets
+                Thread.yield();
+            }
+        }
+    }
+
+    private Operation tirer(int tirage) {
+        for (Map.Entry<Operation, Integer> entree : melange.entrySet()) {
+            tirage -= entree.getValue();
+            if (tirage < 0) {
+                return entree.getKey();
+            }
+        }
+        throw new IllegalStateException("Tirage hors du mélange");
+    }
+
+    // Effectue une opération ; retourne false si elle n'a rien changé (rupture de stock, rien à retourner...)
+    private boolean effectuer(Operation operation, SplittableRandom aleatoire) throws SQLException {
+        switch (operation) {
+            case EMPRUNT -> {
+                LocalDate aujourdhui = LocalDate.now();
+                Emprunt emprunt = new Emprunt(popularite.tirer(aleatoire), 1 + aleatoire.nextInt(nbAdherents),
+                        aujourdhui, aujourdhui.plusDays(14));
+                if (empruntDAO.emprunterLivre(emprunt) != EmpruntDAO.ResultatEmprunt.EFFECTUE) {
+                    return false;
+                }
+                empruntsEnCours.add(emprunt.getId());
+                return true;
+            }
+            case RETOUR -> {
+                Integer empruntId = empruntsEnCours.poll();
+                if (empruntId == null) {
+                    return false;
+                }
+                empruntDAO.retournerLivre(empruntId);
+                return true;
+            }
+            case RECHERCHE -> {
+                return !livreDAO.rechercherTexte(RECHERCHES[aleatoire.nextInt(RECHERCHES.length)], 500).isEmpty();
+            }
+            case CONSULTATION -> {
+                return !empruntDAO.getEmpruntsDetaillesPage(null, 200, EmpruntDAO.Tri.DATE_RETOUR_PREVUE,
+                        EmpruntDAO.Filtre.EN_COURS).elements().isEmpty();
+            }
+            case ADHERENT -> {
+                Adherent adherent = adherentDAO.getAdherentById(1 + aleatoire.nextInt(nbAdherents));
+                if (adherent == null) {
+                    return false;
+                }
+                adherent.setTelephone(String.valueOf(20_000_000 + aleatoire.nextInt(80_000_000)));
+                adherentDAO.modifierAdherent(adherent);
+                return true;
+            }
+            default -> throw new IllegalStateException("Opération inconnue : " + operation);
+        }
+    }
+
+    // SQLITE_BUSY ou SQLITE_LOCKED, éventuellement avec un code étendu (SQLITE_BUSY_SNAPSHOT...)
+    private static boolean estConflitDeVerrou(SQLException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql) {
+                int code = sql.getErrorCode() & 0xFF;
+                if (code == SQLITE_BUSY || code == SQLITE_LOCKED) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void afficherRapport(double dureeS) {
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-13s %9s %9s %9s %9s %9s %9s %10s %8s %10s%n", "Opération", "Nombre",
+                "Débit/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "Verrou", "Erreurs", "Sans effet");
+        HistogrammeLatence global = new HistogrammeLatence();
+        long contention = 0;
+        long erreurs = 0;
+        for (Operation operation : Operation.values()) {
+            Mesures mesure = mesures.get(operation);
+            if (mesure.latences.getNombre() == 0) {
+                continue;
+            }
+            afficherLigne(operation.name(), mesure.latences, dureeS, mesure.contention.sum(),
+                    mesure.erreurs.sum(), mesure.sansEffet.sum());
+            global.ajouter(mesure.latences);
+            contention += mesure.contention.sum();
+            erreurs += mesure.erreurs.sum();
+        }
+        afficherLigne("TOTAL", global, dureeS, contention, erreurs, -1);
+
+        ConnectionPool.Statistiques pool = Database.getStatistiquesPool();
+        System.out.printf(Locale.ROOT, "%nPool : %d emprunts de connexion, attente moyenne %.1f µs, max %.1f ms%n",
+                pool.emprunts(), pool.attenteMoyenneMicros(), pool.attenteMaxNs() / 1e6);
+    }
+
+    private static void afficherLigne(String nom, HistogrammeLatence latences, double dureeS,
+                                      long contention, long erreurs, long sansEffet) {
+        System.out.printf(Locale.ROOT, "%-13s %9d %9.1f %9.3f %9.3f %9.3f %9.3f %10d %8d %10s%n", nom,
+                latences.getNombre(), latences.getNombre() / dureeS,
+                latences.getPercentile(50) / 1e6, latences.getPercentile(99) / 1e6,
+                latences.getPercentile(99.9) / 1e6, latences.getMax() / 1e6,
+                contention, erreurs, sansEffet < 0 ? "" : String.valueOf(sansEffet));
+    }
+
+    // Lit un mélange de la forme emprunt=30,retour=25,recherche=30
+    static Map<Operation, Integer> lireMelange(String texte) {
+        Map<Operation, Integer> melange = new EnumMap<>(Operation.class);
+        for (String element : texte.split(",")) {
+            String[] parties = element.split("=");
+            if (parties.length != 2) {
+                throw new IllegalArgumentException("Élément de mélange invalide : " + element);
+            }
+            int poids = Integer.parseInt(parties[1].strip());
+            if (poids < 0) {
+                throw new IllegalArgumentException("Le poids d'une opération doit être positif : " + element);
+            }
+            melange.put(Operation.valueOf(parties[0].strip().toUpperCase(Locale.ROOT)), poids);
+        }
+        return melange;
+    }
+
+    /**
+     * Options : --fichier, --guichets, --duree (s), --chauffe (s), --melange, --pause (ms, temps de réflexion moyen),
+     * --pool (taille maximale du pool de connexions), --graine.
+     * Si le fichier n'existe pas, il est d'abord rempli par GenerateurDonnees (--livres, --adherents, --emprunts).
+     */
+    public static void main(String[] args) throws Exception {
+        String fichier = "bibliotheque-charge.db";
+        int nbGuichets = 8;
+        int dureeS = 30;
+        int chauffeS = 5;
+        String melange = "emprunt=30,retour=25,recherche=30,consultation=10,adherent=5";
+        long pauseMs = 0;
+        long graine = GenerateurDonnees.GRAINE;
+        int nbLivres = 10_000;
+        int nbAdherents = 2_000;
+        long nbEmprunts = 100_000;
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Valeur manquante pour l'option " + args[i]);
+            }
+            String valeur = args[i + 1];
+            switch (args[i]) {
+                case "--fichier" -> fichier = valeur;
+                case "--guichets" -> nbGuichets = Integer.parseInt(valeur);
+                case "--duree" -> dureeS = Integer.parseInt(valeur);
+                case "--chauffe" -> chauffeS = Integer.parseInt(valeur);
+                case "--melange" -> melange = valeur;
+                case "--pause" -> pauseMs = Long.parseLong(valeur);
+                case "--pool" -> System.setProperty("bibliotheque.pool.tailleMax", valeur);
+                case "--graine" -> graine = Long.parseLong(valeur);
+                case "--livres" -> nbLivres = Integer.parseInt(valeur);
+                case "--adherents" -> nbAdherents = Integer.parseInt(valeur);
+                case "--emprunts" -> nbEmprunts = Long.parseLong(valeur);
+                default -> throw new IllegalArgumentException("Option inconnue : " + args[i]);
+            }
+        }
+
+        boolean nouvelleBase = !Files.exists(Path.of(fichier));
+        Database.configurerUrl("jdbc:sqlite:" + fichier);
+        Database.initDatabase();
+        if (nouvelleBase) {
+            new GenerateurDonnees(new GenerateurDonnees.Parametres(nbLivres, nbAdherents, nbEmprunts, 5,
+                    GenerateurDonnees.DATE_FIN, 1.0, graine)).generer();
+        }
+        new SimulateurGuichets(nbGuichets, lireMelange(melange), pauseMs, graine).executer(chauffeS, dureeS);
+        Database.fermer();
+    }
+}
@@ -2,6 +2,8 @@ module org.example.gestionbibliotheque {
     requires javafx.controls;
     requires javafx.fxml;
     requires transitive java.sql;
+    requires java.management;
+    requires java.logging;
 
     // Export the main package
     exports org.example.gestionbibliotheque;
@@ -15,6 +17,9 @@ module org.example.gestionbibliotheque {
     // Export the dao package
     exports org.example.gestionbibliotheque.dao;
 
+    // Export the util package
+    exports org.example.gestionbibliotheque.util;
+
     // Open the controller package to JavaFX FXML for reflection
     opens org.example.gestionbibliotheque.controller to javafx.fxml;
     
@@ -37,6 +37,12 @@ public class Main extends Application {
         }
     }
 
+    @Override
+    public void stop() {
+        // Fermer les connexions du pool avant de quitter
+        Database.fermer();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -0,0 +1,147 @@
+package org.example.gestionbibliotheque.controller;
+
+import javafx.collections.ObservableList;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableView;
+import org.example.gestionbibliotheque.dao.Page;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Chargement paresseux d'une table par pages
+ * La première page est chargée à l'affichage ; les pages suivantes sont lues quand
+ * l'utilisateur approche du bas de la table. Seules les lignes parcourues sont en mémoire.
+ * Les pages sont lues en arrière-plan et ajoutées à la liste sur le thread JavaFX.
+ * @param <T> Le type des lignes de la table
+ */
+public class ChargeurPages<T> {
+
+    /**
+     * Lecture d'une page à partir d'un curseur
+     * @param <T> Le type des lignes
+     */
+    @FunctionalInterface
+    public interface SourcePages<T> {
+        Page<T> charger(Page.Curseur apres, int taille) throws SQLException;
+    }
+
+    // Proportion de défilement à partir de laquelle la page suivante est demandée
+    private static final double SEUIL_DEFILEMENT = 0.9;
+
+    private final String action;
+    private final ObservableList<T> lignes;
+    private SourcePages<T> source;
+    private final int taillePage;
+    private final TachesArrierePlan taches;
+    private final Consumer<Throwable> gestionErreur;
+    private Page.Curseur curseur;
+    private boolean termine;
+    private CompletableFuture<Page<T>> pageEnCours;
+    // Incrémentée à chaque rechargement : le résultat d'une lecture lancée avant est ignoré
+    private int generation;
+
+    /**
+     * Crée un chargeur qui remplit la liste donnée
+     * @param action Le nom sous lequel le chargement des pages est mesuré
+     * @param lignes La liste affichée par la table
+     * @param source La lecture paginée dans la base
+     * @param taillePage Le nombre de lignes lues à chaque page
+     * @param taches L'exécution des lectures en arrière-plan
+     * @param gestionErreur Le traitement des erreurs de lecture
+     */
+    public ChargeurPages(String action, ObservableList<T> lignes, SourcePages<T> source, int taillePage,
+                         TachesArrierePlan taches, Consumer<Throwable> gestionErreur) {
+        this.action = action;
+        this.lignes = lignes;
+        this.source = source;
+        this.taillePage = taillePage;
+        this.taches = taches;
+        this.gestionErreur = gestionErreur;
+    }
+
+    /**
+     * Écoute le défilement vertical de la table pour charger les pages suivantes
+     * La barre de défilement n'existe qu'une fois le skin de la table créé
+     * @param table La table affichant les lignes
+     */
+    public void attacher(TableView<?> table) {
+        if (!ecouterDefilement(table)) {
+            table.skinProperty().addListener((obs, ancien, nouveau) -> ecouterDefilement(table));
+        }
+    }
+
+    private boolean ecouterDefilement(TableView<?> table) {
+        for (Node noeud : table.lookupAll(".scroll-bar")) {
+            if (noeud instanceof ScrollBar barre && barre.getOrientation() == Orientation.VERTICAL) {
+                barre.valueProperty().addListener((obs, ancienne, valeur) -> {
+                    if (valeur.doubleValue() >= barre.getMax() * SEUIL_DEFILEMENT) {
+                        chargerPageSuivante();
+                    }
+                });
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Vide la liste et recharge la première page
+     * Une lecture de page encore en cours est annulée ; si elle vient de se terminer, son résultat
+     * (déjà transmis au thread JavaFX) est ignoré
+     */
+    public void recharger() {
+        recharger(source);
+    }
+
+    /**
+     * Vide la liste et recharge la première page depuis une nouvelle source (changement de filtre)
+     * La source est fixée sur le thread JavaFX : les lectures en arrière-plan n'accèdent pas à l'état de l'interface
+     * @param nouvelleSource La lecture paginée utilisée pour cette page et les suivantes
+     */
+    public void recharger(SourcePages<T> nouvelleSource) {
+        source = nouvelleSource;
+        generation++;
+        if (pageEnCours != null) {
+            pageEnCours.cancel(true);
+            pageEnCours = null;
+        }
+        lignes.clear();
+        curseur = null;
+        termine = false;
+        chargerPageSuivante();
+    }
+
+    /**
+     * Demande la page suivante, s'il en reste une et qu'aucune lecture n'est déjà en cours
+     */
+    public void chargerPageSuivante() {
+        if (termine || pageEnCours != null) {
+            return;
+        }
+        Page.Curseur apres = curseur;
+        int lancement = generation;
+        SourcePages<T> lecture = source;
+        pageEnCours = taches.lancer(action, () -> lecture.charger(apres, taillePage),
+                page -> {
+                    if (lancement != generation) {
+                        return;
+                    }
+                    pageEnCours = null;
+                    lignes.addAll(page.elements());
+                    curseur = page.suivant();
+                    termine = page.estDerniere();
+                },
+                erreur -> {
+                    if (lancement != generation) {
+                        return;
+                    }
+                    pageEnCours = null;
+                    termine = true;
+                    gestionErreur.accept(erreur);
+                });
+    }
+}
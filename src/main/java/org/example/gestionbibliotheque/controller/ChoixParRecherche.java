@@ -0,0 +1,133 @@
+package org.example.gestionbibliotheque.controller;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.ComboBox;
+import javafx.util.StringConverter;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Liste de choix alimentée par une recherche au fil de la frappe
+ * La liste déroulante a ses propres éléments, indépendants des tables paginées : chaque saisie
+ * lance une recherche en arrière-plan (la précédente est abandonnée) et remplace les choix proposés.
+ * Un texte vide propose les premiers éléments dans l'ordre de la recherche.
+ * @param <T> Le type des éléments proposés
+ */
+public class ChoixParRecherche<T> {
+
+    /**
+     * Recherche des éléments correspondant au texte saisi
+     * @param <T> Le type des éléments
+     */
+    @FunctionalInterface
+    public interface Recherche<T> {
+        List<T> chercher(String texte, int limite) throws SQLException;
+    }
+
+    private final String action;
+    private final ComboBox<T> liste;
+    private final Function<T, String> libelle;
+    private final Recherche<T> recherche;
+    private final int limite;
+    private final TachesArrierePlan taches;
+    private final Consumer<Throwable> gestionErreur;
+    private final ObservableList<T> choix = FXCollections.observableArrayList();
+    private CompletableFuture<List<T>> rechercheEnCours;
+    // Incrémentée à chaque saisie : le résultat d'une recherche plus ancienne est ignoré
+    private int generation;
+
+    /**
+     * Rend la liste déroulante éditable et la relie à la recherche
+     * @param action Le nom sous lequel les recherches sont mesurées
+     * @param liste La liste déroulante
+     * @param libelle Le texte affiché pour un élément
+     * @param recherche La recherche dans la base
+     * @param limite Le nombre maximal d'éléments proposés
+     * @param taches L'exécution des recherches en arrière-plan
+     * @param gestionErreur Le traitement des erreurs de recherche
+     */
+    public ChoixParRecherche(String action, ComboBox<T> liste, Function<T, String> libelle, Recherche<T> recherche,
+                             int limite, TachesArrierePlan taches, Consumer<Throwable> gestionErreur) {
+        this.action = action;
+        this.liste = liste;
+        this.libelle = libelle;
+        this.recherche = recherche;
+        this.limite = limite;
+        this.taches = taches;
+        this.gestionErreur = gestionErreur;
+
+        liste.setEditable(true);
+        liste.setItems(choix);
+        liste.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(T element) {
+                return element == null ? "" : libelle.apply(element);
+            }
+
+            @Override
+            public T fromString(String texte) {
+                return retrouver(texte);
+            }
+        });
+        liste.getEditor().textProperty().addListener((obs, ancien, texte) -> {
+            // Le texte recopié à la sélection d'un élément ne relance pas de recherche
+            T valeur = liste.getValue();
+            if (valeur != null && libelle.apply(valeur).equals(texte)) {
+                return;
+            }
+            chercher(texte);
+        });
+    }
+
+    /**
+     * Recherche les éléments correspondant au texte et remplace les choix proposés
+     * @param texte Le texte saisi (vide pour les premiers éléments)
+     */
+    public void chercher(String texte) {
+        generation++;
+        if (rechercheEnCours != null) {
+            rechercheEnCours.cancel(true);
+            rechercheEnCours = null;
+        }
+        int lancement = generation;
+        String saisie = texte == null ? "" : texte.strip();
+        rechercheEnCours = taches.lancer(action, () -> recherche.chercher(saisie, limite),
+                resultats -> {
+                    if (lancement != generation) {
+                        return;
+                    }
+                    rechercheEnCours = null;
+                    choix.setAll(resultats);
+                    if (liste.isFocused() && !choix.isEmpty()) {
+                        liste.show();
+                    }
+                },
+                erreur -> {
+                    if (lancement != generation) {
+                        return;
+                    }
+                    rechercheEnCours = null;
+                    gestionErreur.accept(erreur);
+                });
+    }
+
+    // Élément proposé dont le libellé est exactement le texte validé, ou null
+    private T retrouver(String texte) {
+        T valeur = liste.getValue();
+        if (valeur != null && libelle.apply(valeur).equals(texte)) {
+            return valeur;
+        }
+        for (T element : choix) {
+            if (Objects.equals(libelle.apply(element), texte)) {
+                return element;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.gestionbibliotheque.controller;
+
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.control.TableColumn;
+import javafx.util.Callback;
+
+import java.util.function.Function;
+
+/**
+ * Adaptation des enregistrements immuables (EmpruntLigne, ...) aux colonnes d'une TableView
+ * Les lignes ne portent aucune propriété JavaFX : la fabrique de valeurs n'en crée une qu'à l'appel
+ * de la cellule, c'est-à-dire pour les seules lignes affichées. La propriété vit le temps de l'affichage
+ * de la cellule ; une ligne modifiée est remplacée dans la liste par une nouvelle instance.
+ */
+public final class ColonnesLignes {
+
+    private ColonnesLignes() {
+    }
+
+    /**
+     * Crée la fabrique de valeurs d'une colonne
+     * @param lecture L'accesseur de la valeur dans la ligne (EmpruntLigne::dateEmprunt)
+     * @param <S> Le type des lignes
+     * @param <T> Le type des valeurs de la colonne
+     * @return La fabrique, à passer à TableColumn.setCellValueFactory
+     */
+    public static <S, T> Callback<TableColumn.CellDataFeatures<S, T>, ObservableValue<T>> valeur(Function<S, T> lecture) {
+        return cellule -> {
+            S ligne = cellule.getValue();
+            return new ReadOnlyObjectWrapper<>(ligne == null ? null : lecture.apply(ligne)).getReadOnlyProperty();
+        };
+    }
+}
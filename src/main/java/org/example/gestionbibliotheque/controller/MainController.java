@@ -4,19 +4,21 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.VBox;
 import org.example.gestionbibliotheque.dao.LivreDAO;
 import org.example.gestionbibliotheque.dao.AdherentDAO;
 import org.example.gestionbibliotheque.dao.EmpruntDAO;
+import org.example.gestionbibliotheque.dao.DaoAsync;
 import org.example.gestionbibliotheque.model.Livre;
 import org.example.gestionbibliotheque.model.Adherent;
 import org.example.gestionbibliotheque.model.Emprunt;
-import java.sql.SQLException;
-import javafx.beans.property.SimpleStringProperty;
+import org.example.gestionbibliotheque.model.EmpruntLigne;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntUnaryOperator;
 
 /**
  * Contrôleur principal de l'application
@@ -52,13 +54,25 @@ public class MainController {
     @FXML private ComboBox<Livre> livreComboBox;
     @FXML private ComboBox<Adherent> adherentComboBox;
     @FXML private ComboBox<String> filtreEmpruntComboBox;
-    @FXML private TableView<Emprunt> empruntsTable;
-    @FXML private TableColumn<Emprunt, Integer> empruntIdColumn;
-    @FXML private TableColumn<Emprunt, LocalDate> dateEmpruntColumn;
-    @FXML private TableColumn<Emprunt, LocalDate> dateRetourPrevueColumn;
-    @FXML private TableColumn<Emprunt, LocalDate> dateRetourEffectiveColumn;
-    @FXML private TableColumn<Emprunt, String> livreColumn;
-    @FXML private TableColumn<Emprunt, String> adherentColumn;
+    @FXML private TableView<EmpruntLigne> empruntsTable;
+    @FXML private TableColumn<EmpruntLigne, Integer> empruntIdColumn;
+    @FXML private TableColumn<EmpruntLigne, LocalDate> dateEmpruntColumn;
+    @FXML private TableColumn<EmpruntLigne, LocalDate> dateRetourPrevueColumn;
+    @FXML private TableColumn<EmpruntLigne, LocalDate> dateRetourEffectiveColumn;
+    @FXML private TableColumn<EmpruntLigne, String> livreColumn;
+    @FXML private TableColumn<EmpruntLigne, String> adherentColumn;
+
+    // Indicateur de chargement
+    @FXML private ProgressIndicator chargementIndicator;
+
+    // Nombre maximal de lignes affichées pour une recherche
+    private static final int LIMITE_RECHERCHE = 500;
+
+    // Nombre de lignes lues à chaque page
+    private static final int TAILLE_PAGE = 200;
+
+    // Nombre maximal de livres ou d'adhérents proposés par les listes de choix des emprunts
+    private static final int LIMITE_CHOIX = 50;
 
     // Objets pour gérer les données
     private LivreDAO livreDAO;
@@ -66,11 +80,22 @@ public class MainController {
     private EmpruntDAO empruntDAO;
     private ObservableList<Livre> livres;
     private ObservableList<Adherent> adherents;
-    private ObservableList<Emprunt> emprunts;
+    private ObservableList<EmpruntLigne> emprunts;
+
+    // Chargement des tables par pages, au fil du défilement
+    private ChargeurPages<Livre> chargeurLivres;
+    private ChargeurPages<Adherent> chargeurAdherents;
+    private ChargeurPages<EmpruntLigne> chargeurEmprunts;
+    private EmpruntDAO.Filtre filtreEmprunts = EmpruntDAO.Filtre.TOUS;
 
-    private FilteredList<Livre> filteredLivres;
-    private FilteredList<Adherent> filteredAdherents;
-    private FilteredList<Emprunt> filteredEmprunts;
+    // Choix du livre et de l'adhérent d'un emprunt, par recherche dans toute la base
+    private ChoixParRecherche<Livre> choixLivres;
+    private ChoixParRecherche<Adherent> choixAdherents;
+
+    // Exécution des requêtes hors du thread JavaFX
+    private TachesArrierePlan taches;
+    private CompletableFuture<List<Livre>> rechercheLivreEnCours;
+    private CompletableFuture<List<Adherent>> rechercheAdherentEnCours;
 
     /**
      * Méthode appelée automatiquement au démarrage de l'interface
@@ -82,6 +107,10 @@ public class MainController {
         livreDAO = new LivreDAO();
         adherentDAO = new AdherentDAO();
         empruntDAO = new EmpruntDAO();
+        taches = new TachesArrierePlan(new DaoAsync());
+
+        // Indicateur de chargement visible tant qu'une requête est en cours
+        chargementIndicator.visibleProperty().bind(taches.enCoursProperty().greaterThan(0));
         
         // Initialiser les listes observables
         livres = FXCollections.observableArrayList();
@@ -102,57 +131,67 @@ public class MainController {
         telephoneColumn.setCellValueFactory(cellData -> cellData.getValue().telephoneProperty());
         
         // Configurer les colonnes des emprunts
-        empruntIdColumn.setCellValueFactory(cellData -> cellData.getValue().idProperty().asObject());
-        dateEmpruntColumn.setCellValueFactory(cellData -> cellData.getValue().dateEmpruntProperty());
-        dateRetourPrevueColumn.setCellValueFactory(cellData -> cellData.getValue().dateRetourPrevueProperty());
-        dateRetourEffectiveColumn.setCellValueFactory(cellData -> cellData.getValue().dateRetourEffectiveProperty());
-        livreColumn.setCellValueFactory(cellData -> {
-            try {
-                Livre livre = livreDAO.getLivreById(cellData.getValue().getLivreId());
-                return new SimpleStringProperty(livre != null ? livre.getTitre() : "");
-            } catch (SQLException e) {
-                return new SimpleStringProperty("");
-            }
-        });
-        adherentColumn.setCellValueFactory(cellData -> {
-            try {
-                Adherent adherent = adherentDAO.getAdherentById(cellData.getValue().getAdherentId());
-                return new SimpleStringProperty(adherent != null ? adherent.getNom() : "");
-            } catch (SQLException e) {
-                return new SimpleStringProperty("");
-            }
-        });
+        // Les emprunts sont des enregistrements immuables : les propriétés ne sont créées que pour les cellules affichées
+        empruntIdColumn.setCellValueFactory(ColonnesLignes.valeur(EmpruntLigne::id));
+        dateEmpruntColumn.setCellValueFactory(ColonnesLignes.valeur(EmpruntLigne::dateEmprunt));
+        dateRetourPrevueColumn.setCellValueFactory(ColonnesLignes.valeur(EmpruntLigne::dateRetourPrevue));
+        dateRetourEffectiveColumn.setCellValueFactory(ColonnesLignes.valeur(EmpruntLigne::dateRetourEffective));
+        // Le titre et le nom sont chargés par la jointure de la requête des emprunts
+        livreColumn.setCellValueFactory(ColonnesLignes.valeur(EmpruntLigne::titreLivre));
+        adherentColumn.setCellValueFactory(ColonnesLignes.valeur(EmpruntLigne::nomAdherent));
         
         // Associer les listes aux tables
         livresTable.setItems(livres);
         adherentsTable.setItems(adherents);
         empruntsTable.setItems(emprunts);
         
-        // Configurer les ComboBox
-        livreComboBox.setItems(livres);
-        adherentComboBox.setItems(adherents);
-        
-        // Charger les données
+        // Charger les données page par page
+        setupChargeurs();
         chargerLivres();
         chargerAdherents();
         chargerEmprunts();
 
-        setupSearchFilters();
         setupComboBoxes();
     }
 
-    private void setupSearchFilters() {
-        filteredLivres = new FilteredList<>(livres);
-        filteredAdherents = new FilteredList<>(adherents);
-        filteredEmprunts = new FilteredList<>(emprunts);
-        
-        livresTable.setItems(filteredLivres);
-        adherentsTable.setItems(filteredAdherents);
-        empruntsTable.setItems(filteredEmprunts);
+    private void setupChargeurs() {
+        chargeurLivres = new ChargeurPages<>("MainController.chargerLivres", livres,
+                (apres, taille) -> livreDAO.getLivresPage(apres, taille, LivreDAO.Tri.ID),
+                TAILLE_PAGE, taches,
+                e -> afficherMessage("Erreur", "Erreur lors du chargement des livres: " + e.getMessage()));
+        chargeurAdherents = new ChargeurPages<>("MainController.chargerAdherents", adherents,
+                (apres, taille) -> adherentDAO.getAdherentsPage(apres, taille, AdherentDAO.Tri.ID),
+                TAILLE_PAGE, taches,
+                e -> afficherMessage("Erreur", "Erreur lors du chargement des adhérents: " + e.getMessage()));
+        chargeurEmprunts = new ChargeurPages<>("MainController.chargerEmprunts", emprunts,
+                sourceEmprunts(filtreEmprunts), TAILLE_PAGE, taches,
+                e -> afficherMessage("Erreur", "Erreur lors du chargement des emprunts: " + e.getMessage()));
+
+        chargeurLivres.attacher(livresTable);
+        chargeurAdherents.attacher(adherentsTable);
+        chargeurEmprunts.attacher(empruntsTable);
     }
 
     private void setupComboBoxes() {
         filtreEmpruntComboBox.getSelectionModel().selectFirst();
+
+        // Les listes de choix ne reprennent pas les pages chargées des tables : elles interrogent la base
+        choixLivres = new ChoixParRecherche<>("MainController.choisirLivre", livreComboBox,
+                livre -> livre.getTitre() + " — " + livre.getAuteur(),
+                (texte, limite) -> texte.isEmpty()
+                        ? livreDAO.getLivresPage(null, limite, LivreDAO.Tri.TITRE).elements()
+                        : livreDAO.rechercherTexte(texte, limite),
+                LIMITE_CHOIX, taches,
+                e -> afficherMessage("Erreur", "Erreur lors de la recherche des livres: " + e.getMessage()));
+        choixAdherents = new ChoixParRecherche<>("MainController.choisirAdherent", adherentComboBox,
+                adherent -> adherent.getNom() + " " + adherent.getPrenom() + " (" + adherent.getEmail() + ")",
+                (texte, limite) -> texte.isEmpty()
+                        ? adherentDAO.getAdherentsPage(null, limite, AdherentDAO.Tri.NOM).elements()
+                        : adherentDAO.rechercherAdherents(texte, limite),
+                LIMITE_CHOIX, taches,
+                e -> afficherMessage("Erreur", "Erreur lors de la recherche des adhérents: " + e.getMessage()));
+        choixLivres.chercher("");
+        choixAdherents.chercher("");
     }
 
     /**
@@ -171,21 +210,20 @@ public class MainController {
             }
 
             Livre livre = new Livre(titre, auteur, nbExemplaires);
-            livreDAO.ajouterLivre(livre);
-            
-            titreField.clear();
-            auteurField.clear();
-            nbExemplairesField.clear();
-            
-            chargerLivres();
-            afficherMessage("Succès", "Livre ajouté avec succès");
-            
+            taches.lancer("MainController.ajouterLivre", () -> {
+                livreDAO.ajouterLivre(livre);
+                return livre;
+            }, ajoute -> {
+                titreField.clear();
+                auteurField.clear();
+                nbExemplairesField.clear();
+
+                chargerLivres();
+                afficherMessage("Succès", "Livre ajouté avec succès");
+            }, e -> afficherErreur("Erreur lors de l'ajout du livre", e));
+
         } catch (NumberFormatException e) {
             afficherMessage("Erreur", "Le nombre d'exemplaires doit être un nombre entier");
-        } catch (IllegalArgumentException e) {
-            afficherMessage("Erreur de validation", e.getMessage());
-        } catch (SQLException e) {
-            afficherMessage("Erreur", "Erreur lors de l'ajout du livre: " + e.getMessage());
         }
     }
 
@@ -194,33 +232,29 @@ public class MainController {
      */
     @FXML
     private void ajouterAdherent() {
-        try {
-            String nom = nomField.getText();
-            String prenom = prenomField.getText();
-            String email = emailField.getText();
-            String telephone = telephoneField.getText();
+        String nom = nomField.getText();
+        String prenom = prenomField.getText();
+        String email = emailField.getText();
+        String telephone = telephoneField.getText();
 
-            if (nom.isEmpty() || prenom.isEmpty() || email.isEmpty() || telephone.isEmpty()) {
-                afficherMessage("Erreur", "Veuillez remplir tous les champs");
-                return;
-            }
+        if (nom.isEmpty() || prenom.isEmpty() || email.isEmpty() || telephone.isEmpty()) {
+            afficherMessage("Erreur", "Veuillez remplir tous les champs");
+            return;
+        }
 
-            Adherent adherent = new Adherent(nom, prenom, email, telephone);
+        Adherent adherent = new Adherent(nom, prenom, email, telephone);
+        taches.lancer("MainController.ajouterAdherent", () -> {
             adherentDAO.ajouterAdherent(adherent);
-            
+            return adherent;
+        }, ajoute -> {
             nomField.clear();
             prenomField.clear();
             emailField.clear();
             telephoneField.clear();
-            
+
             chargerAdherents();
             afficherMessage("Succès", "Adhérent ajouté avec succès");
-            
-        } catch (IllegalArgumentException e) {
-            afficherMessage("Erreur de validation", e.getMessage());
-        } catch (SQLException e) {
-            afficherMessage("Erreur", "Erreur lors de l'ajout de l'adhérent: " + e.getMessage());
-        }
+        }, e -> afficherErreur("Erreur lors de l'ajout de l'adhérent", e));
     }
 
     /**
@@ -236,65 +270,71 @@ public class MainController {
             return;
         }
 
-        if (selectedLivre.getNbExemplaires() <= 0) {
-            afficherMessage("Erreur", "Il n'y a plus d'exemplaires disponibles");
-            return;
-        }
+        Emprunt emprunt = new Emprunt(selectedLivre.getId(), selectedAdherent.getId(),
+                LocalDate.now(), LocalDate.now().plusDays(14)); // 2 semaines de prêt par défaut
+
+        // Le stock est vérifié et décrémenté par la base, dans la même transaction que l'emprunt
+        taches.lancer("MainController.creerEmprunt", () -> empruntDAO.emprunterLivre(emprunt), resultat -> {
+            switch (resultat) {
+                case EFFECTUE:
+                    selectedLivre.setNbExemplaires(Math.max(0, selectedLivre.getNbExemplaires() - 1));
+                    ajusterStockAffiche(selectedLivre.getId(), stock -> Math.max(0, stock - 1));
+                    emprunts.add(new EmpruntLigne(emprunt.getId(), emprunt.getLivreId(), emprunt.getAdherentId(),
+                            emprunt.getDateEmprunt(), emprunt.getDateRetourPrevue(), null,
+                            selectedLivre.getTitre(), selectedAdherent.getNom()));
+                    afficherMessage("Succès", "Emprunt créé avec succès");
+                    break;
+                case RUPTURE_DE_STOCK:
+                    selectedLivre.setNbExemplaires(0);
+                    ajusterStockAffiche(selectedLivre.getId(), stock -> 0);
+                    afficherMessage("Erreur", "Il n'y a plus d'exemplaires disponibles");
+                    break;
+                default:
+                    afficherMessage("Erreur", "Ce livre n'existe plus");
+                    break;
+            }
+        }, e -> afficherMessage("Erreur", "Erreur lors de la création de l'emprunt: " + e.getMessage()));
+    }
 
-        try {
-            Emprunt emprunt = new Emprunt();
-            emprunt.setLivreId(selectedLivre.getId());
-            emprunt.setAdherentId(selectedAdherent.getId());
-            emprunt.setDateEmprunt(LocalDate.now());
-            emprunt.setDateRetourPrevue(LocalDate.now().plusDays(14)); // 2 semaines de prêt par défaut
-            
-            empruntDAO.ajouterEmprunt(emprunt);
-            
-            selectedLivre.setNbExemplaires(selectedLivre.getNbExemplaires() - 1);
-            livreDAO.modifierLivre(selectedLivre);
-            
-            emprunts.add(emprunt);
-            livresTable.refresh();
-            afficherMessage("Succès", "Emprunt créé avec succès");
-        } catch (Exception e) {
-            afficherMessage("Erreur", "Erreur lors de la création de l'emprunt: " + e.getMessage());
+    /**
+     * Répercute un mouvement de stock sur le livre affiché dans la table, s'il a déjà été chargé
+     * Le livre choisi pour un emprunt provient de la liste de choix : ce n'est pas l'objet de la table
+     * @param livreId L'identifiant du livre
+     * @param nouveauStock Le nombre d'exemplaires en fonction du nombre affiché
+     */
+    private void ajusterStockAffiche(int livreId, IntUnaryOperator nouveauStock) {
+        for (Livre livre : livres) {
+            if (livre.getId() == livreId) {
+                livre.setNbExemplaires(nouveauStock.applyAsInt(livre.getNbExemplaires()));
+            }
         }
+        livresTable.refresh();
     }
 
     /**
-     * Charge la liste des livres depuis la base de données
+     * Charge la première page des livres depuis la base de données
      */
     private void chargerLivres() {
-        try {
-            livres.clear();
-            livres.addAll(livreDAO.getLivres());
-        } catch (SQLException e) {
-            afficherMessage("Erreur", "Erreur lors du chargement des livres: " + e.getMessage());
-        }
+        chargeurLivres.recharger();
     }
 
     /**
-     * Charge la liste des adhérents depuis la base de données
+     * Charge la première page des adhérents depuis la base de données
      */
     private void chargerAdherents() {
-        try {
-            adherents.clear();
-            adherents.addAll(adherentDAO.getAdherents());
-        } catch (SQLException e) {
-            afficherMessage("Erreur", "Erreur lors du chargement des adhérents: " + e.getMessage());
-        }
+        chargeurAdherents.recharger();
     }
 
     /**
-     * Charge la liste des emprunts depuis la base de données
+     * Charge la première page des emprunts depuis la base de données
      */
     private void chargerEmprunts() {
-        try {
-            emprunts.clear();
-            emprunts.addAll(empruntDAO.getEmprunts());
-        } catch (SQLException e) {
-            afficherMessage("Erreur", "Erreur lors du chargement des emprunts: " + e.getMessage());
-        }
+        chargeurEmprunts.recharger(sourceEmprunts(filtreEmprunts));
+    }
+
+    // Lecture paginée des emprunts sur un filtre fixé par le thread JavaFX au lancement du chargement
+    private ChargeurPages.SourcePages<EmpruntLigne> sourceEmprunts(EmpruntDAO.Filtre filtre) {
+        return (apres, taille) -> empruntDAO.getEmpruntsLignesPage(apres, taille, EmpruntDAO.Tri.ID, filtre);
     }
 
     /**
@@ -306,6 +346,20 @@ public class MainController {
         showAlert(titre, message, Alert.AlertType.INFORMATION);
     }
 
+    /**
+     * Affiche l'erreur d'une opération lancée en arrière-plan
+     * Les erreurs de validation sont affichées telles quelles
+     * @param contexte La description de l'opération qui a échoué
+     * @param erreur L'erreur survenue
+     */
+    private void afficherErreur(String contexte, Throwable erreur) {
+        if (erreur instanceof IllegalArgumentException) {
+            afficherMessage("Erreur de validation", erreur.getMessage());
+        } else {
+            afficherMessage("Erreur", contexte + ": " + erreur.getMessage());
+        }
+    }
+
     @FXML
     private void modifierLivre() {
         Livre selectedLivre = livresTable.getSelectionModel().getSelectedItem();
@@ -342,17 +396,13 @@ public class MainController {
         });
 
         Optional<Livre> result = dialog.showAndWait();
-        result.ifPresent(livre -> {
-            try {
-                livreDAO.modifierLivre(livre);
-                livresTable.refresh();
-                afficherMessage("Succès", "Livre modifié avec succès");
-            } catch (IllegalArgumentException e) {
-                afficherMessage("Erreur de validation", e.getMessage());
-            } catch (Exception e) {
-                afficherMessage("Erreur", "Erreur lors de la modification du livre: " + e.getMessage());
-            }
-        });
+        result.ifPresent(livre -> taches.lancer("MainController.modifierLivre", () -> {
+            livreDAO.modifierLivre(livre);
+            return livre;
+        }, modifie -> {
+            livresTable.refresh();
+            afficherMessage("Succès", "Livre modifié avec succès");
+        }, e -> afficherErreur("Erreur lors de la modification du livre", e)));
     }
 
     @FXML
@@ -370,23 +420,44 @@ public class MainController {
 
         Optional<ButtonType> result = alert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            try {
-                livreDAO.supprimerLivre(selectedLivre.getId());
+            int id = selectedLivre.getId();
+            taches.lancer("MainController.supprimerLivre", () -> {
+                livreDAO.supprimerLivre(id);
+                return id;
+            }, supprime -> {
                 livres.remove(selectedLivre);
+                livresTable.getItems().remove(selectedLivre);
                 afficherMessage("Succès", "Livre supprimé avec succès");
-            } catch (Exception e) {
-                afficherMessage("Erreur", "Erreur lors de la suppression du livre: " + e.getMessage());
-            }
+            }, e -> afficherMessage("Erreur", "Erreur lors de la suppression du livre: " + e.getMessage()));
         }
     }
 
+    /**
+     * Recherche des livres par titre ou auteur avec l'index plein texte de la base
+     * Une recherche vide réaffiche tout le catalogue
+     */
     @FXML
     private void rechercherLivre() {
-        String searchText = rechercheLivreField.getText().toLowerCase();
-        filteredLivres.setPredicate(livre ->
-            livre.getTitre().toLowerCase().contains(searchText) ||
-            livre.getAuteur().toLowerCase().contains(searchText)
-        );
+        String searchText = rechercheLivreField.getText();
+        // Une nouvelle recherche remplace la précédente si celle-ci n'est pas terminée
+        if (rechercheLivreEnCours != null) {
+            rechercheLivreEnCours.cancel(true);
+            rechercheLivreEnCours = null;
+        }
+        if (searchText == null || searchText.isBlank()) {
+            livresTable.setItems(livres);
+            return;
+        }
+        rechercheLivreEnCours = taches.lancer("MainController.rechercherLivre",
+                () -> livreDAO.rechercherTexte(searchText, LIMITE_RECHERCHE),
+                resultats -> {
+                    rechercheLivreEnCours = null;
+                    livresTable.setItems(FXCollections.observableArrayList(resultats));
+                },
+                e -> {
+                    rechercheLivreEnCours = null;
+                    afficherMessage("Erreur", "Erreur lors de la recherche des livres: " + e.getMessage());
+                });
     }
 
     @FXML
@@ -428,17 +499,13 @@ public class MainController {
         });
 
         Optional<Adherent> result = dialog.showAndWait();
-        result.ifPresent(adherent -> {
-            try {
-                adherentDAO.modifierAdherent(adherent);
-                adherentsTable.refresh();
-                afficherMessage("Succès", "Adhérent modifié avec succès");
-            } catch (IllegalArgumentException e) {
-                afficherMessage("Erreur de validation", e.getMessage());
-            } catch (Exception e) {
-                afficherMessage("Erreur", "Erreur lors de la modification de l'adhérent: " + e.getMessage());
-            }
-        });
+        result.ifPresent(adherent -> taches.lancer("MainController.modifierAdherent", () -> {
+            adherentDAO.modifierAdherent(adherent);
+            return adherent;
+        }, modifie -> {
+            adherentsTable.refresh();
+            afficherMessage("Succès", "Adhérent modifié avec succès");
+        }, e -> afficherErreur("Erreur lors de la modification de l'adhérent", e)));
     }
 
     @FXML
@@ -456,60 +523,78 @@ public class MainController {
 
         Optional<ButtonType> result = alert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            try {
-                adherentDAO.supprimerAdherent(selectedAdherent.getId());
+            int id = selectedAdherent.getId();
+            taches.lancer("MainController.supprimerAdherent", () -> {
+                adherentDAO.supprimerAdherent(id);
+                return id;
+            }, supprime -> {
                 adherents.remove(selectedAdherent);
+                adherentsTable.getItems().remove(selectedAdherent);
                 afficherMessage("Succès", "Adhérent supprimé avec succès");
-            } catch (Exception e) {
-                afficherMessage("Erreur", "Erreur lors de la suppression de l'adhérent: " + e.getMessage());
-            }
+            }, e -> afficherMessage("Erreur", "Erreur lors de la suppression de l'adhérent: " + e.getMessage()));
         }
     }
 
+    /**
+     * Recherche des adhérents par nom, prénom ou email dans la base
+     * Une recherche vide réaffiche la liste paginée
+     */
     @FXML
     private void rechercherAdherent() {
-        String searchText = rechercheAdherentField.getText().toLowerCase();
-        filteredAdherents.setPredicate(adherent ->
-            adherent.getNom().toLowerCase().contains(searchText) ||
-            adherent.getPrenom().toLowerCase().contains(searchText) ||
-            adherent.getEmail().toLowerCase().contains(searchText)
-        );
+        String searchText = rechercheAdherentField.getText();
+        if (rechercheAdherentEnCours != null) {
+            rechercheAdherentEnCours.cancel(true);
+            rechercheAdherentEnCours = null;
+        }
+        if (searchText == null || searchText.isBlank()) {
+            adherentsTable.setItems(adherents);
+            return;
+        }
+        String texte = searchText.strip();
+        rechercheAdherentEnCours = taches.lancer("MainController.rechercherAdherent",
+                () -> adherentDAO.rechercherAdherents(texte, LIMITE_RECHERCHE),
+                resultats -> {
+                    rechercheAdherentEnCours = null;
+                    adherentsTable.setItems(FXCollections.observableArrayList(resultats));
+                },
+                e -> {
+                    rechercheAdherentEnCours = null;
+                    afficherMessage("Erreur", "Erreur lors de la recherche des adhérents: " + e.getMessage());
+                });
     }
 
     @FXML
     private void retournerLivre() {
-        Emprunt selectedEmprunt = empruntsTable.getSelectionModel().getSelectedItem();
+        EmpruntLigne selectedEmprunt = empruntsTable.getSelectionModel().getSelectedItem();
         if (selectedEmprunt == null) {
             afficherMessage("Erreur", "Veuillez sélectionner un emprunt");
             return;
         }
 
-        if (selectedEmprunt.getDateRetourEffective() != null) {
+        if (!selectedEmprunt.enCours()) {
             afficherMessage("Erreur", "Ce livre a déjà été retourné");
             return;
         }
 
-        try {
-            selectedEmprunt.setDateRetourEffective(LocalDate.now());
-            empruntDAO.modifierEmprunt(selectedEmprunt);
-            
-            Livre livre = livreDAO.getLivreById(selectedEmprunt.getLivreId());
-            livre.setNbExemplaires(livre.getNbExemplaires() + 1);
-            livreDAO.modifierLivre(livre);
-            
-            empruntsTable.refresh();
-            livresTable.refresh();
+        // Clôture de l'emprunt et retour en stock dans une seule transaction
+        int empruntId = selectedEmprunt.id();
+        taches.lancer("MainController.retournerLivre", () -> {
+            empruntDAO.retournerLivre(empruntId);
+            return empruntId;
+        }, retourne -> {
+            // La ligne est immuable : elle est remplacée par sa version retournée
+            int index = emprunts.indexOf(selectedEmprunt);
+            if (index >= 0) {
+                emprunts.set(index, selectedEmprunt.avecRetour(LocalDate.now()));
+            }
+            ajusterStockAffiche(selectedEmprunt.livreId(), stock -> stock + 1);
             afficherMessage("Succès", "Livre retourné avec succès");
-        } catch (IllegalArgumentException e) {
-            afficherMessage("Erreur de validation", e.getMessage());
-        } catch (Exception e) {
-            afficherMessage("Erreur", "Erreur lors du retour du livre: " + e.getMessage());
-        }
+        }, e -> afficherErreur("Erreur lors du retour du livre", e));
     }
 
     @FXML
     private void supprimerEmprunt() {
-        Emprunt selectedEmprunt = empruntsTable.getSelectionModel().getSelectedItem();
+        EmpruntLigne selectedEmprunt = empruntsTable.getSelectionModel().getSelectedItem();
         if (selectedEmprunt == null) {
             afficherMessage("Erreur", "Veuillez sélectionner un emprunt à supprimer");
             return;
@@ -522,31 +607,37 @@ public class MainController {
 
         Optional<ButtonType> result = alert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            try {
-                empruntDAO.supprimerEmprunt(selectedEmprunt.getId());
+            int id = selectedEmprunt.id();
+            taches.lancer("MainController.supprimerEmprunt", () -> {
+                empruntDAO.supprimerEmprunt(id);
+                return id;
+            }, supprime -> {
                 emprunts.remove(selectedEmprunt);
                 afficherMessage("Succès", "Emprunt supprimé avec succès");
-            } catch (Exception e) {
-                afficherMessage("Erreur", "Erreur lors de la suppression de l'emprunt: " + e.getMessage());
-            }
+            }, e -> afficherMessage("Erreur", "Erreur lors de la suppression de l'emprunt: " + e.getMessage()));
         }
     }
 
+    /**
+     * Filtre les emprunts par état ; le filtre est appliqué par la requête paginée
+     */
     @FXML
     private void filtrerEmprunts() {
         String filter = filtreEmpruntComboBox.getValue();
         if (filter == null) return;
 
-        filteredEmprunts.setPredicate(emprunt -> {
-            switch (filter) {
-                case "En cours":
-                    return emprunt.getDateRetourEffective() == null;
-                case "Retournés":
-                    return emprunt.getDateRetourEffective() != null;
-                default:
-                    return true;
-            }
-        });
+        switch (filter) {
+            case "En cours":
+                filtreEmprunts = EmpruntDAO.Filtre.EN_COURS;
+                break;
+            case "Retournés":
+                filtreEmprunts = EmpruntDAO.Filtre.RETOURNES;
+                break;
+            default:
+                filtreEmprunts = EmpruntDAO.Filtre.TOUS;
+                break;
+        }
+        chargerEmprunts();
     }
 
     /**
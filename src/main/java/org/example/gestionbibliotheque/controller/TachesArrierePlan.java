@@ -0,0 +1,72 @@
+package org.example.gestionbibliotheque.controller;
+
+import javafx.application.Platform;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import org.example.gestionbibliotheque.dao.DaoAsync;
+import org.example.gestionbibliotheque.dao.Metriques;
+import org.example.gestionbibliotheque.dao.MetriquesOperation;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Lancement des opérations de base de données depuis l'interface
+ * L'opération s'exécute en arrière-plan (DaoAsync) ; son résultat ou son erreur est
+ * traité sur le thread JavaFX. Le nombre d'opérations en cours alimente l'indicateur de chargement.
+ */
+public class TachesArrierePlan {
+
+    private final DaoAsync daoAsync;
+    private final IntegerProperty enCours = new SimpleIntegerProperty();
+
+    /**
+     * @param daoAsync La façade asynchrone des DAOs
+     */
+    public TachesArrierePlan(DaoAsync daoAsync) {
+        this.daoAsync = daoAsync;
+    }
+
+    /**
+     * @return Le nombre d'opérations lancées et non terminées
+     */
+    public ReadOnlyIntegerProperty enCoursProperty() {
+        return enCours;
+    }
+
+    /**
+     * Lance une opération en arrière-plan (à appeler depuis le thread JavaFX)
+     * Si l'opération est annulée, ni succes ni echec ne sont appelés.
+     * La durée mesurée pour l'action va du lancement à la fin du traitement du résultat sur le thread JavaFX :
+     * elle comprend l'attente d'un thread de fond, la requête et la mise à jour de l'interface.
+     * @param action Le nom de l'action, sous lequel sa durée est publiée (catégorie Interface)
+     * @param operation L'opération de base de données
+     * @param succes Le traitement du résultat, sur le thread JavaFX
+     * @param echec Le traitement de l'erreur, sur le thread JavaFX
+     * @return L'opération en cours, qui peut être annulée
+     */
+    public <T> CompletableFuture<T> lancer(String action, DaoAsync.OperationSql<T> operation, Consumer<T> succes,
+                                           Consumer<Throwable> echec) {
+        MetriquesOperation metriques = Metriques.operation(Metriques.CATEGORIE_INTERFACE, action);
+        long debut = System.nanoTime();
+        enCours.set(enCours.get() + 1);
+        CompletableFuture<T> future = daoAsync.executer(operation);
+        future.whenComplete((resultat, erreur) -> Platform.runLater(() -> {
+            enCours.set(enCours.get() - 1);
+            if (future.isCancelled()) {
+                return;
+            }
+            if (erreur == null) {
+                succes.accept(resultat);
+                metriques.enregistrer(System.nanoTime() - debut, 0);
+            } else {
+                echec.accept(erreur instanceof CompletionException && erreur.getCause() != null
+                        ? erreur.getCause() : erreur);
+                metriques.enregistrerErreur(System.nanoTime() - debut);
+            }
+        }));
+        return future;
+    }
+}
@@ -1,9 +1,10 @@
 package org.example.gestionbibliotheque.dao;
 
 import org.example.gestionbibliotheque.model.Adherent;
+import org.example.gestionbibliotheque.model.AdherentLigne;
 import java.sql.*;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Classe d'accès aux données pour les adhérents
@@ -11,6 +12,81 @@ import java.util.List;
  */
 public class AdherentDAO {
 
+    /**
+     * Clés de tri disponibles pour la lecture paginée des adhérents
+     */
+    public enum Tri {
+        ID("id"), NOM("nom"), EMAIL("email");
+
+        private final String colonne;
+
+        Tri(String colonne) {
+            this.colonne = colonne;
+        }
+    }
+
+    // Cache partagé des adhérents lus par identifiant (taille modifiable avec -Dbibliotheque.cache.adherents.tailleMax=...)
+    private static final EntityCache<Adherent> CACHE = new EntityCache<>(
+            Integer.getInteger("bibliotheque.cache.adherents.tailleMax", 10_000), AdherentDAO::copier);
+
+    // Mesures des méthodes (catégorie DAO), résolues au chargement de la classe
+    private static final MetriquesOperation METRIQUES_AJOUTER_ADHERENT =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "AdherentDAO.ajouterAdherent");
+    private static final MetriquesOperation METRIQUES_GET_ADHERENTS =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "AdherentDAO.getAdherents");
+    private static final MetriquesOperation METRIQUES_GET_ADHERENTS_LIGNES =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "AdherentDAO.getAdherentsLignes");
+    private static final MetriquesOperation METRIQUES_GET_ADHERENTS_PAGE =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "AdherentDAO.getAdherentsPage");
+    private static final MetriquesOperation METRIQUES_RECHERCHER_ADHERENTS =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "AdherentDAO.rechercherAdherents");
+    private static final MetriquesOperation METRIQUES_GET_ADHERENT_BY_ID =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "AdherentDAO.getAdherentById");
+    private static final MetriquesOperation METRIQUES_RECHERCHER_PAR_NOM =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "AdherentDAO.rechercherParNom");
+    private static final MetriquesOperation METRIQUES_RECHERCHER_PAR_EMAIL =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "AdherentDAO.rechercherParEmail");
+    private static final MetriquesOperation METRIQUES_MODIFIER_ADHERENT =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "AdherentDAO.modifierAdherent");
+    private static final MetriquesOperation METRIQUES_SUPPRIMER_ADHERENT =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "AdherentDAO.supprimerAdherent");
+
+    /**
+     * Retourne les compteurs du cache des adhérents (succès, échecs, évictions)
+     * @return Un instantané des statistiques du cache
+     */
+    public static EntityCache.Statistiques getStatistiquesCache() {
+        return CACHE.getStatistiques();
+    }
+
+    // Vide le cache (changement de base de données)
+    static void viderCache() {
+        CACHE.vider();
+    }
+
+    // Lecture d'un adhérent sur une liste de colonnes explicite
+    private static final MappeurLignes<Adherent> MAPPEUR = new MappeurLignes<>((rs, p) -> {
+        Adherent adherent = new Adherent();
+        adherent.setId(rs.getInt(p[0]));
+        adherent.setNom(rs.getString(p[1]));
+        adherent.setPrenom(rs.getString(p[2]));
+        adherent.setEmail(rs.getString(p[3]));
+        adherent.setTelephone(rs.getString(p[4]));
+        return adherent;
+    }, "id", "nom", "prenom", "email", "telephone");
+
+    // Lecture d'un adhérent en enregistrement immuable, sans propriétés JavaFX
+    private static final MappeurLignes<AdherentLigne> MAPPEUR_LIGNE = new MappeurLignes<>(
+            (rs, p) -> new AdherentLigne(rs.getInt(p[0]), rs.getString(p[1]), rs.getString(p[2]),
+                    rs.getString(p[3]), rs.getString(p[4])),
+            "id", "nom", "prenom", "email", "telephone");
+
+    private static Adherent copier(Adherent adherent) {
+        Adherent copie = new Adherent(adherent.getNom(), adherent.getPrenom(), adherent.getEmail(), adherent.getTelephone());
+        copie.setId(adherent.getId());
+        return copie;
+    }
+
     /**
      * Ajoute un nouvel adhérent dans la base de données
      * @param adherent L'adhérent à ajouter
@@ -40,28 +116,25 @@ public class AdherentDAO {
         }
         
         String sql = "INSERT INTO Adherents (nom, prenom, email, telephone) VALUES (?, ?, ?, ?)";
-        try (Connection connection = Database.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            connection.setAutoCommit(false);
-            try {
-                stmt.setString(1, adherent.getNom());
-                stmt.setString(2, adherent.getPrenom());
-                stmt.setString(3, adherent.getEmail());
-                stmt.setString(4, adherent.getTelephone());
+        String nom = adherent.getNom();
+        String prenom = adherent.getPrenom();
+        String email = adherent.getEmail();
+        String telephone = adherent.getTelephone();
+        Integer id = Database.getEcrivain().executer(METRIQUES_AJOUTER_ADHERENT, connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setString(1, nom);
+                stmt.setString(2, prenom);
+                stmt.setString(3, email);
+                stmt.setString(4, telephone);
                 stmt.executeUpdate();
-                
+
                 try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        adherent.setId(generatedKeys.getInt(1));
-                    }
+                    return generatedKeys.next() ? generatedKeys.getInt(1) : null;
                 }
-                connection.commit();
-            } catch (SQLException e) {
-                connection.rollback();
-                throw e;
-            } finally {
-                connection.setAutoCommit(true);
             }
+        });
+        if (id != null) {
+            adherent.setId(id);
         }
     }
 
@@ -71,126 +144,167 @@ public class AdherentDAO {
      * @throws SQLException Si une erreur survient lors de l'accès à la base de données
      */
     public List<Adherent> getAdherents() throws SQLException {
-        List<Adherent> adherents = new ArrayList<>();
-        String sql = "SELECT * FROM Adherents";
-        try (Connection connection = Database.getConnection();
-             Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                Adherent adherent = new Adherent();
-                adherent.setId(rs.getInt("id"));
-                
-                String nom = rs.getString("nom");
-                if (nom != null) {
-                    adherent.setNom(nom);
-                }
-                
-                String prenom = rs.getString("prenom");
-                if (prenom != null) {
-                    adherent.setPrenom(prenom);
-                }
-                
-                String email = rs.getString("email");
-                if (email != null) {
-                    adherent.setEmail(email);
-                }
-                
-                String telephone = rs.getString("telephone");
-                if (telephone != null) {
-                    adherent.setTelephone(telephone);
-                }
-                
-                adherents.add(adherent);
+        String sql = "SELECT " + MAPPEUR.colonnes() + " FROM Adherents";
+        try (Connection connection = Database.getConnection(METRIQUES_GET_ADHERENTS);
+             PreparedStatement stmt = connection.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return MAPPEUR.lireTout(rs);
+        }
+    }
+
+    /**
+     * Parcourt tous les adhérents sans les charger tous en mémoire
+     * Les lignes sont lues à la demande sur un curseur qui garde une connexion du pool jusqu'à la fermeture
+     * du flux ou la lecture de la dernière ligne : à utiliser dans un try-with-resources.
+     * Une erreur SQL pendant le parcours est levée en ErreurFluxSql.
+     * @return Le flux des adhérents
+     * @throws SQLException Si la requête ne peut pas être exécutée
+     */
+    public Stream<Adherent> fluxAdherents() throws SQLException {
+        return FluxLignes.ouvrir("AdherentDAO.fluxAdherents", MAPPEUR,
+                "SELECT " + MAPPEUR.colonnes() + " FROM Adherents", stmt -> { });
+    }
+
+    /**
+     * Récupère tous les adhérents en enregistrements immuables
+     * Une ligne n'occupe qu'un objet, contre six pour un Adherent : à préférer pour les traitements qui n'affichent rien
+     * @return Une liste de tous les adhérents
+     * @throws SQLException Si une erreur survient lors de l'accès à la base de données
+     */
+    public List<AdherentLigne> getAdherentsLignes() throws SQLException {
+        String sql = "SELECT " + MAPPEUR_LIGNE.colonnes() + " FROM Adherents";
+        try (Connection connection = Database.getConnection(METRIQUES_GET_ADHERENTS_LIGNES);
+             PreparedStatement stmt = connection.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return MAPPEUR_LIGNE.lireTout(rs);
+        }
+    }
+
+    /**
+     * Récupère une page d'adhérents triés, à partir d'un curseur
+     * @param apres Le curseur rendu par la page précédente, ou null pour la première page
+     * @param taille Le nombre maximal d'adhérents de la page
+     * @param tri La clé de tri
+     * @return La page d'adhérents et le curseur de la page suivante
+     * @throws SQLException Si une erreur survient lors de l'accès à la base de données
+     */
+    public Page<Adherent> getAdherentsPage(Page.Curseur apres, int taille, Tri tri) throws SQLException {
+        Page.verifierTaille(taille);
+        StringBuilder sql = new StringBuilder("SELECT " + MAPPEUR.colonnes() + " FROM Adherents");
+        if (apres != null) {
+            sql.append(" WHERE ").append(Page.conditionApres(tri.colonne, "id"));
+        }
+        sql.append(" ORDER BY ").append(Page.ordre(tri.colonne, "id")).append(" LIMIT ?");
+
+        try (Connection connection = Database.getConnection(METRIQUES_GET_ADHERENTS_PAGE);
+             PreparedStatement stmt = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            if (apres != null) {
+                index = Page.lierCurseur(stmt, index, apres, tri == Tri.ID);
+            }
+            stmt.setInt(index, taille + 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return MAPPEUR.lirePage(rs, taille, tri.colonne, Adherent::getId);
             }
         }
-        return adherents;
     }
 
     /**
-     * Récupère un adhérent par son identifiant
+     * Recherche les adhérents dont le nom, le prénom ou l'email contient le texte donné
+     * @param texte Le texte recherché
+     * @param limite Le nombre maximal de résultats
+     * @return Les adhérents correspondants
+     * @throws SQLException Si une erreur survient lors de l'accès à la base de données
+     */
+    public List<Adherent> rechercherAdherents(String texte, int limite) throws SQLException {
+        String sql = "SELECT " + MAPPEUR.colonnes() + " FROM Adherents "
+                + "WHERE nom LIKE ? OR prenom LIKE ? OR email LIKE ? ORDER BY nom, id LIMIT ?";
+        try (Connection connection = Database.getConnection(METRIQUES_RECHERCHER_ADHERENTS);
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            String motif = "%" + texte + "%";
+            stmt.setString(1, motif);
+            stmt.setString(2, motif);
+            stmt.setString(3, motif);
+            stmt.setInt(4, limite);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return MAPPEUR.lireTout(rs);
+            }
+        }
+    }
+
+    /**
+     * Récupère un adhérent par son identifiant (lecture à travers le cache)
      * @param id L'identifiant de l'adhérent à récupérer
      * @return L'adhérent correspondant ou null si non trouvé
      * @throws SQLException Si une erreur survient lors de l'accès à la base de données
      */
     public Adherent getAdherentById(int id) throws SQLException {
-        String sql = "SELECT * FROM Adherents WHERE id = ?";
-        try (Connection connection = Database.getConnection();
+        Adherent enCache = CACHE.get(id);
+        if (enCache != null) {
+            return enCache;
+        }
+        String sql = "SELECT " + MAPPEUR.colonnes() + " FROM Adherents WHERE id = ?";
+        // Relevée avant la requête : une écriture validée pendant la lecture empêche la mise en cache
+        long generation = CACHE.generation(id);
+        try (Connection connection = Database.getConnection(METRIQUES_GET_ADHERENT_BY_ID);
              PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    Adherent adherent = new Adherent();
-                    adherent.setId(rs.getInt("id"));
-                    
-                    String nom = rs.getString("nom");
-                    if (nom != null) {
-                        adherent.setNom(nom);
-                    }
-                    
-                    String prenom = rs.getString("prenom");
-                    if (prenom != null) {
-                        adherent.setPrenom(prenom);
-                    }
-                    
-                    String email = rs.getString("email");
-                    if (email != null) {
-                        adherent.setEmail(email);
-                    }
-                    
-                    String telephone = rs.getString("telephone");
-                    if (telephone != null) {
-                        adherent.setTelephone(telephone);
-                    }
-                    
-                    return adherent;
+                Adherent adherent = MAPPEUR.lirePremier(rs);
+                if (adherent != null) {
+                    CACHE.putSiInchange(id, adherent, generation);
                 }
+                return adherent;
             }
         }
-        return null;
     }
 
     // Read - Search by name
     public List<Adherent> rechercherParNom(String nom) throws SQLException {
-        List<Adherent> adherents = new ArrayList<>();
-        String sql = "SELECT * FROM Adherents WHERE nom LIKE ?";
-        try (Connection connection = Database.getConnection();
+        String sql = "SELECT " + MAPPEUR.colonnes() + " FROM Adherents WHERE nom LIKE ?";
+        try (Connection connection = Database.getConnection(METRIQUES_RECHERCHER_PAR_NOM);
              PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, "%" + nom + "%");
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Adherent adherent = new Adherent();
-                    adherent.setId(rs.getInt("id"));
-                    adherent.setNom(rs.getString("nom"));
-                    adherent.setPrenom(rs.getString("prenom"));
-                    adherent.setEmail(rs.getString("email"));
-                    adherent.setTelephone(rs.getString("telephone"));
-                    adherents.add(adherent);
-                }
+                return MAPPEUR.lireTout(rs);
             }
         }
-        return adherents;
+    }
+
+    /**
+     * Parcourt les adhérents dont le nom contient un texte sans les charger en mémoire (voir fluxAdherents)
+     * @param nom Le texte recherché dans le nom
+     * @return Le flux des adhérents trouvés
+     * @throws SQLException Si la requête ne peut pas être exécutée
+     */
+    public Stream<Adherent> fluxAdherentsParNom(String nom) throws SQLException {
+        return FluxLignes.ouvrir("AdherentDAO.fluxAdherentsParNom", MAPPEUR,
+                "SELECT " + MAPPEUR.colonnes() + " FROM Adherents WHERE nom LIKE ?",
+                stmt -> stmt.setString(1, "%" + nom + "%"));
     }
 
     // Read - Search by email
     public List<Adherent> rechercherParEmail(String email) throws SQLException {
-        List<Adherent> adherents = new ArrayList<>();
-        String sql = "SELECT * FROM Adherents WHERE email LIKE ?";
-        try (Connection connection = Database.getConnection();
+        String sql = "SELECT " + MAPPEUR.colonnes() + " FROM Adherents WHERE email LIKE ?";
+        try (Connection connection = Database.getConnection(METRIQUES_RECHERCHER_PAR_EMAIL);
              PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, "%" + email + "%");
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Adherent adherent = new Adherent();
-                    adherent.setId(rs.getInt("id"));
-                    adherent.setNom(rs.getString("nom"));
-                    adherent.setPrenom(rs.getString("prenom"));
-                    adherent.setEmail(rs.getString("email"));
-                    adherent.setTelephone(rs.getString("telephone"));
-                    adherents.add(adherent);
-                }
+                return MAPPEUR.lireTout(rs);
             }
         }
-        return adherents;
+    }
+
+    /**
+     * Parcourt les adhérents dont l'email contient un texte sans les charger en mémoire (voir fluxAdherents)
+     * @param email Le texte recherché dans l'email
+     * @return Le flux des adhérents trouvés
+     * @throws SQLException Si la requête ne peut pas être exécutée
+     */
+    public Stream<Adherent> fluxAdherentsParEmail(String email) throws SQLException {
+        return FluxLignes.ouvrir("AdherentDAO.fluxAdherentsParEmail", MAPPEUR,
+                "SELECT " + MAPPEUR.colonnes() + " FROM Adherents WHERE email LIKE ?",
+                stmt -> stmt.setString(1, "%" + email + "%"));
     }
 
     // Update
@@ -217,48 +331,39 @@ public class AdherentDAO {
         }
         
         String sql = "UPDATE Adherents SET nom = ?, prenom = ?, email = ?, telephone = ? WHERE id = ?";
-        try (Connection connection = Database.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(sql)) {
-            connection.setAutoCommit(false);
-            try {
-                stmt.setString(1, adherent.getNom());
-                stmt.setString(2, adherent.getPrenom());
-                stmt.setString(3, adherent.getEmail());
-                stmt.setString(4, adherent.getTelephone());
-                stmt.setInt(5, adherent.getId());
+        String nom = adherent.getNom();
+        String prenom = adherent.getPrenom();
+        String email = adherent.getEmail();
+        String telephone = adherent.getTelephone();
+        int id = adherent.getId();
+        Database.getEcrivain().executer(METRIQUES_MODIFIER_ADHERENT, connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, nom);
+                stmt.setString(2, prenom);
+                stmt.setString(3, email);
+                stmt.setString(4, telephone);
+                stmt.setInt(5, id);
                 int rowsAffected = stmt.executeUpdate();
                 if (rowsAffected == 0) {
-                    throw new SQLException("Adhérent non trouvé avec l'ID: " + adherent.getId());
+                    throw new SQLException("Adhérent non trouvé avec l'ID: " + id);
                 }
-                connection.commit();
-            } catch (SQLException e) {
-                connection.rollback();
-                throw e;
-            } finally {
-                connection.setAutoCommit(true);
+                return null;
             }
-        }
+        }, valide -> CACHE.put(id, adherent));
     }
 
     // Delete
     public void supprimerAdherent(int id) throws SQLException {
         String sql = "DELETE FROM Adherents WHERE id = ?";
-        try (Connection connection = Database.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(sql)) {
-            connection.setAutoCommit(false);
-            try {
+        Database.getEcrivain().executer(METRIQUES_SUPPRIMER_ADHERENT, connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
                 stmt.setInt(1, id);
                 int rowsAffected = stmt.executeUpdate();
                 if (rowsAffected == 0) {
                     throw new SQLException("Adhérent non trouvé avec l'ID: " + id);
                 }
-                connection.commit();
-            } catch (SQLException e) {
-                connection.rollback();
-                throw e;
-            } finally {
-                connection.setAutoCommit(true);
+                return null;
             }
-        }
+        }, valide -> CACHE.invalider(id));
     }
 }
\ No newline at end of file
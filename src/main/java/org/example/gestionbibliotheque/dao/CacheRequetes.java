@@ -0,0 +1,185 @@
+package org.example.gestionbibliotheque.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache LRU des requêtes préparées d'une connexion physique, indexées par leur texte SQL
+ * SQLite compile une requête à chaque prepareStatement : en gardant les requêtes compilées d'un emprunt
+ * de connexion à l'autre, un DAO qui prépare toujours le même SQL ne le recompile qu'une fois.
+ * La requête remise à l'appelant est une enveloppe dont close() remet la requête dans le cache.
+ * Une connexion n'étant utilisée que par un thread à la fois, le cache n'est pas synchronisé.
+ */
+final class CacheRequetes {
+
+    // Requête compilée et indicateur d'utilisation (une même requête ne peut pas servir deux fois à la fois)
+    private static final class Requete {
+        final PreparedStatement physique;
+        boolean empruntee;
+
+        Requete(PreparedStatement physique) {
+            this.physique = physique;
+        }
+    }
+
+    private final int tailleMax;
+    private final LinkedHashMap<String, Requete> requetes = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder succes;
+    private final LongAdder echecs;
+    private final LongAdder evictions;
+
+    /**
+     * @param tailleMax Le nombre maximal de requêtes conservées
+     * @param succes Le compteur des préparations servies par le cache
+     * @param echecs Le compteur des préparations qui ont compilé la requête
+     * @param evictions Le compteur des requêtes fermées pour respecter la taille maximale
+     */
+    CacheRequetes(int tailleMax, LongAdder succes, LongAdder echecs, LongAdder evictions) {
+        this.tailleMax = tailleMax;
+        this.succes = succes;
+        this.echecs = echecs;
+        this.evictions = evictions;
+    }
+
+    /**
+     * Retourne une requête préparée, compilée au premier appel pour ce texte SQL
+     * @param physique La connexion physique
+     * @param connexion La connexion remise à l'appelant (rendue par getConnection() de la requête)
+     * @param sql Le texte SQL
+     * @param clesGenerees La constante Statement.RETURN_GENERATED_KEYS / NO_GENERATED_KEYS, ou -1 si non précisée
+     * @return La requête, à fermer par l'appelant pour la remettre dans le cache
+     */
+    PreparedStatement preparer(Connection physique, Connection connexion, String sql, int clesGenerees) throws SQLException {
+        String cle = clesGenerees < 0 ? sql : clesGenerees + "|" + sql;
+        Requete requete = requetes.get(cle);
+        if (requete != null && !requete.empruntee) {
+            succes.increment();
+        } else {
+            echecs.increment();
+            PreparedStatement compilee = clesGenerees < 0 ? physique.prepareStatement(sql)
+                    : physique.prepareStatement(sql, clesGenerees);
+            if (requete != null) {
+                // Déjà utilisée par l'appelant (requêtes imbriquées) : copie hors cache, fermée après usage
+                return compilee;
+            }
+            requete = new Requete(compilee);
+            requetes.put(cle, requete);
+            evincer();
+        }
+        requete.empruntee = true;
+        return envelopper(requete, cle, connexion);
+    }
+
+    /**
+     * Ferme toutes les requêtes du cache (avant la fermeture de la connexion physique)
+     */
+    void fermer() {
+        for (Requete requete : requetes.values()) {
+            fermer(requete.physique);
+        }
+        requetes.clear();
+    }
+
+    // Ferme les requêtes les moins récemment utilisées, hors requêtes en cours d'utilisation
+    private void evincer() {
+        Iterator<Requete> it = requetes.values().iterator();
+        while (requetes.size() > tailleMax && it.hasNext()) {
+            Requete requete = it.next();
+            if (!requete.empruntee) {
+                it.remove();
+                evictions.increment();
+                fermer(requete.physique);
+            }
+        }
+    }
+
+    // Remet une requête dans le cache après usage, paramètres et lots effacés
+    private void rendre(Requete requete, String cle) {
+        requete.empruntee = false;
+        try {
+            requete.physique.clearParameters();
+            requete.physique.clearBatch();
+        } catch (SQLException e) {
+            requetes.remove(cle, requete);
+            fermer(requete.physique);
+        }
+    }
+
+    private PreparedStatement envelopper(Requete requete, String cle, Connection connexion) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean rendue;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!rendue) {
+                            rendue = true;
+                            rendre(requete, cle);
+                        }
+                        return null;
+                    case "isClosed":
+                        return rendue || requete.physique.isClosed();
+                    case "getConnection":
+                        return connexion;
+                    case "unwrap":
+                        if (((Class<?>) args[0]).isInstance(proxy)) {
+                            return proxy;
+                        }
+                        break;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "Requête du cache [" + requete.physique + "]";
+                    default:
+                        break;
+                }
+                if (rendue) {
+                    throw new SQLException("La requête a déjà été fermée");
+                }
+                try {
+                    return method.invoke(requete.physique, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        };
+        return (PreparedStatement) Proxy.newProxyInstance(CacheRequetes.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, handler);
+    }
+
+    private static void fermer(PreparedStatement requete) {
+        try {
+            requete.close();
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la fermeture d'une requête préparée : " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return Le nombre de requêtes conservées
+     */
+    int taille() {
+        return requetes.size();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder texte = new StringBuilder("CacheRequetes[");
+        for (Map.Entry<String, Requete> entree : requetes.entrySet()) {
+            texte.append(entree.getKey()).append(entree.getValue().empruntee ? " (empruntée)" : "").append("; ");
+        }
+        return texte.append(']').toString();
+    }
+}
@@ -0,0 +1,527 @@
+package org.example.gestionbibliotheque.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool borné de connexions JDBC
+ * Les connexions physiques sont réutilisées entre les appels des DAOs : la méthode close()
+ * de la connexion remise à l'appelant rend la connexion au pool au lieu de la fermer.
+ * Le pool valide les connexions à l'emprunt, ferme les connexions inactives en trop
+ * et signale les connexions empruntées depuis trop longtemps (fuites probables), sauf celles empruntées
+ * par getConnectionCurseur pour un long parcours. La pile d'appel de
+ * l'emprunt n'est capturée, pour être affichée avec la fuite, que si traceFuites est activé : la créer
+ * à chaque emprunt coûte plus cher que l'emprunt lui-même.
+ * Chaque connexion physique garde en cache ses requêtes préparées : un DAO qui appelle
+ * prepareStatement avec un SQL déjà préparé sur la connexion réutilise la requête compilée.
+ * Le profil de stockage (ProfilStockage) est appliqué à chaque connexion physique ouverte ; le journal WAL,
+ * persistant dans le fichier, n'est activé qu'à l'ouverture de la première.
+ * L'écrivain unique a sa propre connexion (ouvrirDediee), ouverte hors du pool : les lectures et les flux
+ * qui occupent toutes les connexions du pool ne peuvent pas retarder les écritures.
+ */
+public class ConnectionPool {
+
+    /**
+     * Paramètres du pool
+     * @param url L'URL JDBC de la base de données
+     * @param tailleMax Le nombre maximal de connexions physiques ouvertes
+     * @param tailleMinInactive Le nombre de connexions inactives conservées malgré l'éviction
+     * @param delaiEmpruntMs Le temps d'attente maximal pour obtenir une connexion
+     * @param inactiviteMaxMs La durée d'inactivité au-delà de laquelle une connexion est fermée
+     * @param seuilFuiteMs La durée d'emprunt au-delà de laquelle une fuite est signalée (0 pour désactiver)
+     * @param traceFuites true pour capturer à chaque emprunt la pile d'appel affichée avec une fuite
+     * @param tailleCacheRequetes Le nombre de requêtes préparées gardées par connexion (0 pour désactiver)
+     * @param profil Le profil de stockage appliqué à chaque connexion ouverte
+     */
+    public record Configuration(String url, int tailleMax, int tailleMinInactive,
+                                long delaiEmpruntMs, long inactiviteMaxMs, long seuilFuiteMs, boolean traceFuites,
+                                int tailleCacheRequetes, ProfilStockage profil) {
+        public Configuration {
+            if (profil == null) {
+                throw new IllegalArgumentException("Le profil de stockage est obligatoire");
+            }
+            if (tailleMax < 1) {
+                throw new IllegalArgumentException("La taille du pool doit être au moins 1");
+            }
+            if (tailleMinInactive < 0 || tailleMinInactive > tailleMax) {
+                throw new IllegalArgumentException("Le nombre minimal de connexions inactives doit être compris entre 0 et " + tailleMax);
+            }
+            if (tailleCacheRequetes < 0) {
+                throw new IllegalArgumentException("La taille du cache de requêtes ne peut pas être négative");
+            }
+        }
+
+        /**
+         * Construit la configuration à partir des propriétés système (bibliotheque.pool.*, bibliotheque.stockage.profil)
+         * @param url L'URL JDBC de la base de données
+         * @return La configuration lue
+         */
+        public static Configuration depuisProprietesSysteme(String url) {
+            return new Configuration(url,
+                    Integer.getInteger("bibliotheque.pool.tailleMax", 4),
+                    Integer.getInteger("bibliotheque.pool.tailleMinInactive", 1),
+                    Long.getLong("bibliotheque.pool.delaiEmpruntMs", 5_000L),
+                    Long.getLong("bibliotheque.pool.inactiviteMaxMs", 60_000L),
+                    Long.getLong("bibliotheque.pool.seuilFuiteMs", 30_000L),
+                    Boolean.getBoolean("bibliotheque.pool.traceFuites"),
+                    Integer.getInteger("bibliotheque.pool.tailleCacheRequetes", 64),
+                    ProfilStockage.depuisProprietesSysteme());
+        }
+    }
+
+    /**
+     * Instantané des statistiques du pool
+     * @param actives Le nombre de connexions actuellement empruntées
+     * @param inactives Le nombre de connexions disponibles dans le pool
+     * @param enAttente Le nombre d'appelants qui attendent une connexion
+     * @param emprunts Le nombre total d'emprunts réussis
+     * @param attenteTotaleNs Le temps d'attente cumulé pour obtenir une connexion
+     * @param attenteMaxNs Le temps d'attente le plus long observé
+     * @param creees Le nombre de connexions physiques créées
+     * @param evincees Le nombre de connexions fermées pour inactivité ou échec de validation
+     * @param fuites Le nombre de fuites signalées
+     * @param requetesSucces Le nombre de requêtes préparées servies par le cache
+     * @param requetesEchecs Le nombre de requêtes préparées compilées faute d'être en cache
+     * @param requetesEvictions Le nombre de requêtes préparées fermées pour libérer le cache
+     */
+    public record Statistiques(int actives, int inactives, int enAttente, long emprunts,
+                               long attenteTotaleNs, long attenteMaxNs, long creees,
+                               long evincees, long fuites, long requetesSucces,
+                               long requetesEchecs, long requetesEvictions) {
+        /**
+         * @return Le temps d'attente moyen d'un emprunt en microsecondes
+         */
+        public double attenteMoyenneMicros() {
+            return emprunts == 0 ? 0 : attenteTotaleNs / 1_000.0 / emprunts;
+        }
+
+        /**
+         * @return La proportion de requêtes préparées servies par le cache (entre 0 et 1)
+         */
+        public double tauxSuccesRequetes() {
+            long total = requetesSucces + requetesEchecs;
+            return total == 0 ? 0 : (double) requetesSucces / total;
+        }
+    }
+
+    // Connexion physique accompagnée de ses informations de suivi
+    private static final class Entree {
+        final Connection physique;
+        final CacheRequetes requetes;
+        long derniereUtilisationNs;
+        long empruntNs;
+        Throwable origineEmprunt;
+        boolean fuiteSignalee;
+        boolean curseur;
+
+        Entree(Connection physique, CacheRequetes requetes) {
+            this.physique = physique;
+            this.requetes = requetes;
+            this.derniereUtilisationNs = System.nanoTime();
+        }
+    }
+
+    // Durée d'obtention d'une connexion (attente, création ou validation comprises), publiée en JMX
+    private static final MetriquesOperation METRIQUES_EMPRUNT =
+            Metriques.operation(Metriques.CATEGORIE_POOL, "ConnectionPool.getConnection");
+
+    private final Configuration configuration;
+    private final ReentrantLock verrou = new ReentrantLock();
+    private final Condition disponible = verrou.newCondition();
+    private final Deque<Entree> inactives = new ArrayDeque<>();
+    private final Set<Entree> empruntees = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService maintenance;
+    private int ouvertes;
+    private int enAttente;
+    private boolean ferme;
+
+    private final AtomicLong emprunts = new AtomicLong();
+    private final AtomicLong attenteTotaleNs = new AtomicLong();
+    private final AtomicLong attenteMaxNs = new AtomicLong();
+    private final AtomicLong creees = new AtomicLong();
+    private final AtomicLong evincees = new AtomicLong();
+    private final AtomicLong fuites = new AtomicLong();
+    private volatile boolean walActive;
+    private final LongAdder requetesSucces = new LongAdder();
+    private final LongAdder requetesEchecs = new LongAdder();
+    private final LongAdder requetesEvictions = new LongAdder();
+
+    /**
+     * Crée un pool et démarre sa tâche de maintenance (éviction et détection de fuites)
+     * @param configuration Les paramètres du pool
+     */
+    public ConnectionPool(Configuration configuration) {
+        this.configuration = configuration;
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "bibliotheque-pool-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periode = Math.max(1_000L, Math.min(configuration.inactiviteMaxMs(), 10_000L));
+        maintenance.scheduleWithFixedDelay(this::maintenir, periode, periode, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Emprunte une connexion au pool
+     * La connexion retournée doit être fermée par l'appelant pour être rendue au pool
+     * @return Une connexion valide
+     * @throws SQLException Si aucune connexion n'est disponible dans le délai imparti
+     */
+    public Connection getConnection() throws SQLException {
+        return emprunterSuivie(false);
+    }
+
+    /**
+     * Emprunte une connexion au pool pour parcourir un long curseur (flux de lignes, export)
+     * La connexion n'est pas surveillée comme fuite : elle reste empruntée le temps du parcours,
+     * qui peut dépasser seuilFuiteMs sans que ce soit une erreur
+     * @return Une connexion valide, à fermer par l'appelant pour être rendue au pool
+     * @throws SQLException Si aucune connexion n'est disponible dans le délai imparti
+     */
+    public Connection getConnectionCurseur() throws SQLException {
+        return emprunterSuivie(true);
+    }
+
+    private Connection emprunterSuivie(boolean curseur) throws SQLException {
+        long debut = System.nanoTime();
+        Entree entree;
+        try {
+            entree = emprunter(debut);
+        } catch (SQLException e) {
+            METRIQUES_EMPRUNT.enregistrerErreur(System.nanoTime() - debut);
+            throw e;
+        }
+        long attente = System.nanoTime() - debut;
+        METRIQUES_EMPRUNT.enregistrer(attente, 0);
+        emprunts.incrementAndGet();
+        attenteTotaleNs.addAndGet(attente);
+        attenteMaxNs.accumulateAndGet(attente, Math::max);
+
+        entree.empruntNs = System.nanoTime();
+        entree.fuiteSignalee = false;
+        entree.curseur = curseur;
+        entree.origineEmprunt = !curseur && configuration.traceFuites() && configuration.seuilFuiteMs() > 0
+                ? new Throwable("Connexion empruntée ici") : null;
+        empruntees.add(entree);
+        return envelopper(entree, false);
+    }
+
+    private Entree emprunter(long debut) throws SQLException {
+        long limite = debut + TimeUnit.MILLISECONDS.toNanos(configuration.delaiEmpruntMs());
+        while (true) {
+            Entree entree = null;
+            boolean creer = false;
+            verrou.lock();
+            try {
+                while (true) {
+                    if (ferme) {
+                        throw new SQLException("Le pool de connexions est fermé");
+                    }
+                    entree = inactives.pollFirst();
+                    if (entree != null) {
+                        break;
+                    }
+                    if (ouvertes < configuration.tailleMax()) {
+                        ouvertes++;
+                        creer = true;
+                        break;
+                    }
+                    long restant = limite - System.nanoTime();
+                    if (restant <= 0) {
+                        throw new SQLException("Aucune connexion disponible après "
+                                + configuration.delaiEmpruntMs() + " ms (pool de " + configuration.tailleMax() + " connexions)");
+                    }
+                    enAttente++;
+                    try {
+                        disponible.awaitNanos(restant);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Attente d'une connexion interrompue", e);
+                    } finally {
+                        enAttente--;
+                    }
+                }
+            } finally {
+                verrou.unlock();
+            }
+
+            if (creer) {
+                try {
+                    CacheRequetes requetes = configuration.tailleCacheRequetes() > 0
+                            ? new CacheRequetes(configuration.tailleCacheRequetes(),
+                                    requetesSucces, requetesEchecs, requetesEvictions)
+                            : null;
+                    Entree nouvelle = new Entree(ouvrir(), requetes);
+                    creees.incrementAndGet();
+                    return nouvelle;
+                } catch (SQLException e) {
+                    libererPlace();
+                    throw e;
+                }
+            }
+
+            // Validation à l'emprunt : une connexion invalide est détruite et on recommence
+            if (estValide(entree)) {
+                return entree;
+            }
+            evincees.incrementAndGet();
+            detruire(entree);
+        }
+    }
+
+    /**
+     * Ouvre une connexion physique hors du pool, avec le profil de stockage et son propre cache de requêtes
+     * Elle ne compte pas dans tailleMax et n'est pas surveillée comme fuite : son détenteur la garde
+     * aussi longtemps qu'il le veut, et close() la ferme au lieu de la rendre au pool.
+     * @return La connexion dédiée
+     * @throws SQLException Si la connexion ne peut pas être ouverte
+     */
+    Connection ouvrirDediee() throws SQLException {
+        CacheRequetes requetes = configuration.tailleCacheRequetes() > 0
+                ? new CacheRequetes(configuration.tailleCacheRequetes(), requetesSucces, requetesEchecs, requetesEvictions)
+                : null;
+        Entree entree = new Entree(ouvrir(), requetes);
+        creees.incrementAndGet();
+        return envelopper(entree, true);
+    }
+
+    // Ouvre une connexion physique et lui applique le profil de stockage
+    private Connection ouvrir() throws SQLException {
+        Connection physique = DriverManager.getConnection(configuration.url());
+        try {
+            if (!walActive) {
+                // journal_mode est persistant : une fois par pool suffit (deux ouvertures simultanées le règlent deux fois)
+                ProfilStockage.activerWal(physique);
+                walActive = true;
+            }
+            configuration.profil().appliquer(physique);
+        } catch (SQLException e) {
+            Database.closeConnection(physique);
+            throw e;
+        }
+        return physique;
+    }
+
+    private boolean estValide(Entree entree) {
+        try {
+            return !entree.physique.isClosed() && entree.physique.isValid(1);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Rend une connexion au pool après avoir remis son état transactionnel à zéro
+    private void rendre(Entree entree) {
+        empruntees.remove(entree);
+        entree.origineEmprunt = null;
+        boolean reutilisable;
+        try {
+            if (!entree.physique.getAutoCommit()) {
+                entree.physique.rollback();
+                entree.physique.setAutoCommit(true);
+            }
+            reutilisable = !entree.physique.isClosed();
+        } catch (SQLException e) {
+            reutilisable = false;
+        }
+        if (!reutilisable) {
+            detruire(entree);
+            return;
+        }
+        entree.derniereUtilisationNs = System.nanoTime();
+        verrou.lock();
+        try {
+            if (ferme) {
+                ouvertes--;
+                fermerPhysique(entree);
+                return;
+            }
+            inactives.offerFirst(entree);
+            disponible.signal();
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    private void detruire(Entree entree) {
+        fermerPhysique(entree);
+        libererPlace();
+    }
+
+    // Ferme les requêtes préparées en cache, puis la connexion physique
+    private static void fermerPhysique(Entree entree) {
+        if (entree.requetes != null) {
+            entree.requetes.fermer();
+        }
+        Database.closeConnection(entree.physique);
+    }
+
+    private void libererPlace() {
+        verrou.lock();
+        try {
+            ouvertes--;
+            disponible.signal();
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    // Tâche périodique : éviction des connexions inactives et détection des fuites
+    private void maintenir() {
+        long maintenant = System.nanoTime();
+        long inactiviteMaxNs = TimeUnit.MILLISECONDS.toNanos(configuration.inactiviteMaxMs());
+        verrou.lock();
+        try {
+            // Les connexions les plus anciennes sont en fin de file
+            Iterator<Entree> it = inactives.descendingIterator();
+            while (it.hasNext() && inactives.size() > configuration.tailleMinInactive()) {
+                Entree entree = it.next();
+                if (maintenant - entree.derniereUtilisationNs > inactiviteMaxNs) {
+                    it.remove();
+                    ouvertes--;
+                    evincees.incrementAndGet();
+                    fermerPhysique(entree);
+                }
+            }
+        } finally {
+            verrou.unlock();
+        }
+
+        long seuilFuiteNs = TimeUnit.MILLISECONDS.toNanos(configuration.seuilFuiteMs());
+        if (seuilFuiteNs <= 0) {
+            return;
+        }
+        for (Entree entree : empruntees) {
+            if (!entree.curseur && !entree.fuiteSignalee && maintenant - entree.empruntNs > seuilFuiteNs) {
+                entree.fuiteSignalee = true;
+                fuites.incrementAndGet();
+                System.err.println("Fuite de connexion probable : connexion empruntée depuis plus de "
+                        + configuration.seuilFuiteMs() + " ms");
+                Throwable origine = entree.origineEmprunt;
+                if (origine != null) {
+                    origine.printStackTrace();
+                } else {
+                    System.err.println("  (lancer avec -Dbibliotheque.pool.traceFuites=true pour afficher l'origine de l'emprunt)");
+                }
+            }
+        }
+    }
+
+    // Crée la connexion remise à l'appelant : close() rend la connexion physique au pool (ou la ferme si
+    // elle est dédiée), prepareStatement(sql) et prepareStatement(sql, clésGénérées) passent par le cache de requêtes
+    private Connection envelopper(Entree entree, boolean dediee) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean rendue;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (!rendue && entree.requetes != null && method.getName().equals("prepareStatement")) {
+                    Class<?>[] types = method.getParameterTypes();
+                    if (types.length == 1) {
+                        return entree.requetes.preparer(entree.physique, (Connection) proxy, (String) args[0], -1);
+                    }
+                    if (types.length == 2 && types[1] == int.class) {
+                        return entree.requetes.preparer(entree.physique, (Connection) proxy,
+                                (String) args[0], (Integer) args[1]);
+                    }
+                }
+                switch (method.getName()) {
+                    case "close":
+                        if (!rendue) {
+                            rendue = true;
+                            if (dediee) {
+                                fermerPhysique(entree);
+                            } else {
+                                rendre(entree);
+                            }
+                        }
+                        return null;
+                    case "isClosed":
+                        return rendue || entree.physique.isClosed();
+                    case "unwrap":
+                        if (((Class<?>) args[0]).isInstance(proxy)) {
+                            return proxy;
+                        }
+                        break;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "Connexion du pool [" + entree.physique + "]";
+                    default:
+                        break;
+                }
+                if (rendue) {
+                    throw new SQLException("La connexion a déjà été rendue au pool");
+                }
+                try {
+                    return method.invoke(entree.physique, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+    }
+
+    /**
+     * @return Un instantané des statistiques du pool
+     */
+    public Statistiques getStatistiques() {
+        verrou.lock();
+        try {
+            return new Statistiques(empruntees.size(), inactives.size(), enAttente,
+                    emprunts.get(), attenteTotaleNs.get(), attenteMaxNs.get(),
+                    creees.get(), evincees.get(), fuites.get(), requetesSucces.sum(),
+                    requetesEchecs.sum(), requetesEvictions.sum());
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    /**
+     * @return La configuration du pool
+     */
+    public Configuration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Ferme toutes les connexions inactives et arrête la maintenance
+     * Les connexions encore empruntées seront fermées à leur restitution
+     */
+    public void fermer() {
+        maintenance.shutdownNow();
+        verrou.lock();
+        try {
+            ferme = true;
+            for (Entree entree : inactives) {
+                ouvertes--;
+                fermerPhysique(entree);
+            }
+            inactives.clear();
+            disponible.signalAll();
+        } finally {
+            verrou.unlock();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.gestionbibliotheque.dao;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Façade asynchrone des DAOs
+ * Les opérations sont exécutées par un nombre borné de threads de fond, de sorte
+ * qu'aucune requête SQL ne s'exécute sur le thread de l'interface graphique.
+ * Annuler le CompletableFuture retourné interrompt l'opération si elle n'est pas terminée.
+ */
+public class DaoAsync {
+
+    /**
+     * Opération d'accès aux données pouvant lever une SQLException
+     * @param <T> Le type du résultat
+     */
+    @FunctionalInterface
+    public interface OperationSql<T> {
+        T executer() throws SQLException;
+    }
+
+    private final ExecutorService executor;
+
+    /**
+     * Crée une façade dont le nombre de threads est lu dans la propriété bibliotheque.async.threads
+     * Par défaut, il est égal à la taille maximale du pool de connexions
+     */
+    public DaoAsync() {
+        this(Integer.getInteger("bibliotheque.async.threads",
+                Database.getPool().getConfiguration().tailleMax()));
+    }
+
+    /**
+     * Crée une façade avec un nombre de threads donné
+     * @param nbThreads Le nombre maximal d'opérations exécutées en parallèle
+     */
+    public DaoAsync(int nbThreads) {
+        AtomicInteger compteur = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(nbThreads, r -> {
+            Thread thread = new Thread(r, "bibliotheque-dao-" + compteur.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Exécute une opération en arrière-plan
+     * @param operation L'opération à exécuter (typiquement un appel de DAO)
+     * @return Le résultat à venir ; l'annuler interrompt l'opération
+     */
+    public <T> CompletableFuture<T> executer(OperationSql<T> operation) {
+        CompletableFuture<T> resultat = new CompletableFuture<>();
+        Future<?> tache = executor.submit(() -> {
+            // Une opération annulée avant son démarrage n'est pas exécutée
+            if (resultat.isDone()) {
+                return;
+            }
+            try {
+                resultat.complete(operation.executer());
+            } catch (Throwable e) {
+                resultat.completeExceptionally(e);
+            }
+        });
+        resultat.whenComplete((valeur, erreur) -> {
+            if (resultat.isCancelled()) {
+                tache.cancel(true);
+            }
+        });
+        return resultat;
+    }
+
+    /**
+     * Arrête les threads de fond
+     */
+    public void fermer() {
+        executor.shutdownNow();
+    }
+}
@@ -1,84 +1,190 @@
 package org.example.gestionbibliotheque.dao;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.Statement;
 import java.sql.SQLException;
 
 /**
  * Classe utilitaire pour gérer les connexions à la base de données
- * Cette classe fournit des méthodes pour établir et fermer des connexions
+ * Cette classe fournit des méthodes pour emprunter et fermer des connexions
+ * Les connexions proviennent d'un pool borné partagé par tous les DAOs
+ * Les écritures des DAOs passent par l'écrivain unique (EcrivainUnique), qui les valide par lots
  */
 public class Database {
 
-    private static final String URL = "jdbc:sqlite:bibliotheque.db"; // Chemin vers la base de données SQLite
-    
+    // Chemin vers la base de données SQLite (modifiable avec -Dbibliotheque.db.url=... ou configurerUrl)
+    private static volatile String url = System.getProperty("bibliotheque.db.url", "jdbc:sqlite:bibliotheque.db");
+
+    private static volatile ConnectionPool pool;
+
+    // Checkpoints WAL planifiés du pool courant (null si le profil n'en prévoit pas)
+    private static volatile PlanificateurCheckpoints checkpoints;
+
+    private static volatile EcrivainUnique ecrivain;
+
     /**
-     * Obtient une nouvelle connexion à la base de données
+     * Emprunte une connexion au pool de connexions
+     * Fermer la connexion la rend au pool sans fermer la connexion physique
+     * Les requêtes exécutées sont mesurées par le journal des requêtes lentes (JournalRequetesLentes)
      * @return Une connexion à la base de données
      * @throws SQLException Si une erreur survient lors de la connexion
      */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL);
+        return JournalRequetesLentes.instrumenter(getPool().getConnection());
+    }
+
+    /**
+     * Emprunte une connexion au pool pour une méthode de DAO
+     * Ses requêtes sont aussi enregistrées dans les mesures de la méthode
+     * @param operation Les mesures de la méthode, résolues une fois par la classe du DAO
+     * @return Une connexion à la base de données
+     * @throws SQLException Si une erreur survient lors de la connexion
+     */
+    static Connection getConnection(MetriquesOperation operation) throws SQLException {
+        return JournalRequetesLentes.instrumenter(getPool().getConnection(), operation);
+    }
+
+    /**
+     * Emprunte une connexion au pool pour parcourir un long curseur (flux de lignes, export)
+     * Le pool ne la signale pas comme fuite si le parcours dure plus que bibliotheque.pool.seuilFuiteMs
+     * @return Une connexion à la base de données
+     * @throws SQLException Si une erreur survient lors de la connexion
+     */
+    static Connection getConnectionCurseur() throws SQLException {
+        return JournalRequetesLentes.instrumenter(getPool().getConnectionCurseur());
+    }
+
+    /**
+     * Retourne le pool de connexions, en le créant au premier appel
+     * @return Le pool de connexions partagé
+     */
+    public static ConnectionPool getPool() {
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (Database.class) {
+                p = pool;
+                if (p == null) {
+                    p = new ConnectionPool(ConnectionPool.Configuration.depuisProprietesSysteme(url));
+                    pool = p;
+                    checkpoints = demarrerCheckpoints(p);
+                    Metriques.publier(new EtatPool(), "type=Pool");
+                    Metriques.publier(new EtatStockage(), "type=Stockage");
+                }
+            }
+        }
+        return p;
+    }
+
+    // Le seuil de taille du WAL (-Dbibliotheque.stockage.walMaxMo, 64 par défaut) déclenche un checkpoint TRUNCATE
+    private static PlanificateurCheckpoints demarrerCheckpoints(ConnectionPool p) {
+        ProfilStockage profil = p.getConfiguration().profil();
+        long periodeMs = profil.getPeriodeCheckpointMs();
+        if (periodeMs <= 0 || profil.estLectureSeule()) {
+            return null;
+        }
+        return new PlanificateurCheckpoints(p, periodeMs, Long.getLong("bibliotheque.stockage.walMaxMo", 64) << 20);
+    }
+
+    /**
+     * Retourne l'écrivain unique, en le créant au premier appel (réglages bibliotheque.ecrivain.*)
+     * @return L'écrivain par lequel passent les écritures des DAOs
+     */
+    public static EcrivainUnique getEcrivain() {
+        EcrivainUnique e = ecrivain;
+        if (e == null) {
+            synchronized (Database.class) {
+                e = ecrivain;
+                if (e == null) {
+                    e = new EcrivainUnique(getPool(), EcrivainUnique.Configuration.depuisProprietesSysteme());
+                    ecrivain = e;
+                    Metriques.publier(new EtatEcrivain(), "type=Ecrivain");
+                }
+            }
+        }
+        return e;
+    }
+
+    /**
+     * @return Le profil de stockage appliqué aux connexions du pool
+     */
+    public static ProfilStockage getProfilStockage() {
+        return getPool().getConfiguration().profil();
     }
 
-    // Méthode pour initialiser la base de données
+    /**
+     * Retourne les statistiques des checkpoints WAL planifiés
+     * @return Un instantané des statistiques, null si le profil de stockage ne planifie pas de checkpoints
+     */
+    public static PlanificateurCheckpoints.Statistiques getStatistiquesCheckpoints() {
+        getPool();
+        PlanificateurCheckpoints c = checkpoints;
+        return c != null ? c.getStatistiques() : null;
+    }
+
+    /**
+     * Retourne les statistiques du pool (attente d'emprunt, connexions actives et inactives)
+     * @return Un instantané des statistiques
+     */
+    public static ConnectionPool.Statistiques getStatistiquesPool() {
+        return getPool().getStatistiques();
+    }
+
+    /**
+     * Change la base de données utilisée (outils de test de charge, bancs d'essai)
+     * Le pool courant est fermé et les caches vidés ; le pool suivant sera créé sur la nouvelle URL
+     * @param nouvelleUrl L'URL JDBC de la base de données
+     */
+    public static synchronized void configurerUrl(String nouvelleUrl) {
+        fermer();
+        url = nouvelleUrl;
+        // Les entités en cache et l'index des emprunts proviennent de l'ancienne base
+        LivreDAO.viderCache();
+        AdherentDAO.viderCache();
+        EmpruntDAO.viderIndex();
+    }
+
+    /**
+     * @return L'URL JDBC de la base de données utilisée
+     */
+    public static String getUrl() {
+        return url;
+    }
+
+    /**
+     * Ferme le pool de connexions (à appeler à l'arrêt de l'application)
+     */
+    public static synchronized void fermer() {
+        // Les écritures en file sont exécutées avant la fermeture du pool
+        if (ecrivain != null) {
+            ecrivain.fermer();
+            ecrivain = null;
+        }
+        if (checkpoints != null) {
+            checkpoints.arreter();
+            checkpoints = null;
+        }
+        if (pool != null) {
+            pool.fermer();
+            pool = null;
+        }
+    }
+
+    /**
+     * Initialise la base de données en appliquant les migrations de schéma en attente
+     * Les données existantes sont conservées ; si le schéma est à jour, aucune instruction DDL n'est exécutée
+     * Avec -Dbibliotheque.indexEmprunts=true, l'index en mémoire des emprunts en cours est ensuite chargé
+     * (un seul processus à la fois peut l'activer sur une même base)
+     */
     public static void initDatabase() {
-        String dropLivresSQL = "DROP TABLE IF EXISTS Livres;";
-        String createLivresSQL = """
-            CREATE TABLE IF NOT EXISTS Livres (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                titre TEXT NOT NULL,
-                auteur TEXT NOT NULL,
-                nb_exemplaires INTEGER NOT NULL
-            );
-        """;
-
-        // Suppression de la table Adherents si elle existe pour la recréer avec la structure correcte
-        String dropAdherentsSQL = "DROP TABLE IF EXISTS Adherents;";
-        
-        String createAdherentsSQL = """
-            CREATE TABLE IF NOT EXISTS Adherents (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                nom TEXT NOT NULL,
-                prenom TEXT NOT NULL,
-                email TEXT NOT NULL UNIQUE,
-                telephone TEXT NOT NULL
-            );
-        """;
-
-        String dropEmpruntsSQL = "DROP TABLE IF EXISTS Emprunts;";
-        String createEmpruntsSQL = """
-            CREATE TABLE IF NOT EXISTS Emprunts (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                date_emprunt DATE NOT NULL,
-                date_retour_prevue DATE NOT NULL,
-                date_retour_effective DATE,
-                livre_id INTEGER NOT NULL,
-                adherent_id INTEGER NOT NULL,
-                FOREIGN KEY(livre_id) REFERENCES Livres(id),
-                FOREIGN KEY(adherent_id) REFERENCES Adherents(id)
-            );
-        """;
-           
-        
-
-        try (Connection connection = getConnection();
-             Statement stmt = connection.createStatement()) {
-
-            // Exécuter chaque instruction SQL séparément
-            stmt.execute(dropLivresSQL);
-            stmt.execute(createLivresSQL);
-
-            stmt.execute(dropAdherentsSQL);
-            stmt.execute(createAdherentsSQL);
-
-            stmt.execute(dropEmpruntsSQL);
-            stmt.execute(createEmpruntsSQL);
-
-            System.out.println("Tables créées avec succès !");
+        long debut = System.nanoTime();
+        try (Connection connection = getConnection()) {
+            int nbMigrations = SchemaMigrator.migrer(connection);
+            System.out.println("Base de données initialisée en " + (System.nanoTime() - debut) / 1_000_000
+                    + " ms (" + nbMigrations + " migration(s) appliquée(s))");
+            if (Boolean.getBoolean("bibliotheque.indexEmprunts")) {
+                EmpruntDAO.chargerIndex(connection);
+            }
         } catch (SQLException e) {
-            System.err.println("Erreur lors de la création des tables : " + e.getMessage());
+            System.err.println("Erreur lors de la migration du schéma : " + e.getMessage());
             e.printStackTrace();
         }
     }
@@ -96,5 +202,196 @@ public class Database {
             }
         }
     }
-}
 
+    // Publication JMX de l'état du pool courant (le pool est recréé après configurerUrl)
+    private static final class EtatPool implements PoolConnexionsMXBean {
+        @Override
+        public String getUrl() {
+            return url;
+        }
+
+        @Override
+        public int getTailleMax() {
+            return getPool().getConfiguration().tailleMax();
+        }
+
+        @Override
+        public int getActives() {
+            return getStatistiquesPool().actives();
+        }
+
+        @Override
+        public int getInactives() {
+            return getStatistiquesPool().inactives();
+        }
+
+        @Override
+        public int getEnAttente() {
+            return getStatistiquesPool().enAttente();
+        }
+
+        @Override
+        public long getEmprunts() {
+            return getStatistiquesPool().emprunts();
+        }
+
+        @Override
+        public double getAttenteMoyenneMicros() {
+            return getStatistiquesPool().attenteMoyenneMicros();
+        }
+
+        @Override
+        public double getAttenteMaxMs() {
+            return getStatistiquesPool().attenteMaxNs() / 1e6;
+        }
+
+        @Override
+        public long getCreees() {
+            return getStatistiquesPool().creees();
+        }
+
+        @Override
+        public long getEvincees() {
+            return getStatistiquesPool().evincees();
+        }
+
+        @Override
+        public long getFuites() {
+            return getStatistiquesPool().fuites();
+        }
+
+        @Override
+        public int getTailleCacheRequetes() {
+            return getPool().getConfiguration().tailleCacheRequetes();
+        }
+
+        @Override
+        public long getRequetesSucces() {
+            return getStatistiquesPool().requetesSucces();
+        }
+
+        @Override
+        public long getRequetesEchecs() {
+            return getStatistiquesPool().requetesEchecs();
+        }
+
+        @Override
+        public long getRequetesEvictions() {
+            return getStatistiquesPool().requetesEvictions();
+        }
+
+        @Override
+        public double getTauxSuccesRequetes() {
+            return getStatistiquesPool().tauxSuccesRequetes();
+        }
+    }
+
+    // Publication JMX du stockage courant (profil et checkpoints du pool courant)
+    private static final class EtatStockage implements StockageMXBean {
+        private static final PlanificateurCheckpoints.Statistiques AUCUN =
+                new PlanificateurCheckpoints.Statistiques(0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+        private PlanificateurCheckpoints.Statistiques statistiques() {
+            PlanificateurCheckpoints.Statistiques statistiques = getStatistiquesCheckpoints();
+            return statistiques != null ? statistiques : AUCUN;
+        }
+
+        @Override
+        public String getProfil() {
+            return getProfilStockage().getNom();
+        }
+
+        @Override
+        public long getPeriodeCheckpointMs() {
+            return checkpoints != null ? getProfilStockage().getPeriodeCheckpointMs() : 0;
+        }
+
+        @Override
+        public long getTailleWalOctets() {
+            return statistiques().tailleWalOctets();
+        }
+
+        @Override
+        public long getTailleWalMaxOctets() {
+            return statistiques().tailleWalMaxOctets();
+        }
+
+        @Override
+        public long getCheckpoints() {
+            return statistiques().checkpoints();
+        }
+
+        @Override
+        public long getCheckpointsIncomplets() {
+            return statistiques().incomplets();
+        }
+
+        @Override
+        public long getCheckpointsTronques() {
+            return statistiques().tronques();
+        }
+
+        @Override
+        public long getCheckpointsEnErreur() {
+            return statistiques().erreurs();
+        }
+
+        @Override
+        public long getPagesWal() {
+            return statistiques().pagesWal();
+        }
+
+        @Override
+        public long getPagesReportees() {
+            return statistiques().pagesReportees();
+        }
+
+        @Override
+        public double getDerniereDureeCheckpointMs() {
+            return statistiques().derniereDureeNs() / 1e6;
+        }
+    }
+
+    // Publication JMX de l'écrivain courant (recréé après configurerUrl)
+    private static final class EtatEcrivain implements EcrivainMXBean {
+        @Override
+        public int getTailleLotMaxConfiguree() {
+            return getEcrivain().getConfiguration().tailleLotMax();
+        }
+
+        @Override
+        public int getEnAttente() {
+            return getEcrivain().getStatistiques().enAttente();
+        }
+
+        @Override
+        public long getLots() {
+            return getEcrivain().getStatistiques().lots();
+        }
+
+        @Override
+        public long getEcritures() {
+            return getEcrivain().getStatistiques().ecritures();
+        }
+
+        @Override
+        public long getEchecs() {
+            return getEcrivain().getStatistiques().echecs();
+        }
+
+        @Override
+        public long getReprises() {
+            return getEcrivain().getStatistiques().reprises();
+        }
+
+        @Override
+        public double getTailleMoyenneLot() {
+            return getEcrivain().getStatistiques().tailleMoyenneLot();
+        }
+
+        @Override
+        public int getTailleLotMax() {
+            return getEcrivain().getStatistiques().tailleLotMax();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.gestionbibliotheque.dao;
+
+/**
+ * Vue JMX de l'écrivain unique : file d'attente, transactions groupées et reprises sur verrou
+ * L'attente en file et la durée des transactions (percentiles) sont publiées par les opérations
+ * Ecrivain Attente et Ecrivain Transaction.
+ */
+public interface EcrivainMXBean {
+
+    int getTailleLotMaxConfiguree();
+
+    int getEnAttente();
+
+    long getLots();
+
+    long getEcritures();
+
+    long getEchecs();
+
+    long getReprises();
+
+    double getTailleMoyenneLot();
+
+    int getTailleLotMax();
+}
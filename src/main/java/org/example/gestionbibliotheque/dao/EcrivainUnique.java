@@ -0,0 +1,499 @@
+package org.example.gestionbibliotheque.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Écrivain unique : toutes les écritures des DAOs passent par un seul thread
+ * SQLite n'accepte qu'un écrivain à la fois. Plutôt que de laisser chaque appelant ouvrir sa transaction et
+ * se disputer le verrou (SQLITE_BUSY), les écritures sont mises en file ; le thread de l'écrivain prend
+ * toutes celles qui attendent (jusqu'à tailleLotMax) et les exécute dans une seule transaction BEGIN IMMEDIATE,
+ * validée une seule fois (validation groupée). Chaque écriture s'exécute dans son propre point de sauvegarde :
+ * une écriture en échec est annulée seule et son appelant reçoit l'erreur, les autres sont validées.
+ * Si la base est verrouillée par un autre processus, le lot entier est rejoué après une attente croissante.
+ * L'écrivain garde sa propre connexion, ouverte hors du pool (ConnectionPool.ouvrirDediee) et réglée une fois
+ * (busy_timeout) : un pool occupé par des lectures ou des flux ne le fait jamais attendre.
+ * Le résultat d'une écriture n'est rendu qu'après la validation du lot ; l'action après validation fournie
+ * avec l'écriture est exécutée juste avant par le thread de l'écrivain, dans l'ordre du lot, donc dans l'ordre
+ * où les écritures ont été validées.
+ */
+public final class EcrivainUnique {
+
+    /**
+     * Écriture exécutée par le thread de l'écrivain, dans la transaction du lot
+     * Elle ne doit ni valider, ni annuler, ni soumettre d'autre écriture ; elle peut être rejouée si le lot
+     * l'est, et ne doit donc modifier l'état de l'application que dans son action après validation
+     * ou une fois son résultat rendu.
+     * @param <T> Le type du résultat
+     */
+    @FunctionalInterface
+    public interface Ecriture<T> {
+        T executer(Connection connection) throws SQLException;
+    }
+
+    /**
+     * Réglages de l'écrivain
+     * @param tailleLotMax Le nombre maximal d'écritures validées ensemble
+     * @param attenteLotMicros Le temps pendant lequel la première écriture d'un lot attend d'autres écritures
+     *                         (0 : le lot ne contient que les écritures déjà en file)
+     * @param tentativesMax Le nombre de tentatives d'un lot quand la base est verrouillée par un autre processus
+     * @param repriseInitialeMs L'attente avant la deuxième tentative, doublée à chaque tentative suivante
+     * @param repriseMaxMs L'attente maximale entre deux tentatives
+     * @param attenteVerrouMs Le busy_timeout de la connexion de l'écrivain, avant de rendre la main à la reprise
+     */
+    public record Configuration(int tailleLotMax, long attenteLotMicros, int tentativesMax,
+                                long repriseInitialeMs, long repriseMaxMs, int attenteVerrouMs) {
+        public Configuration {
+            if (tailleLotMax < 1) {
+                throw new IllegalArgumentException("La taille maximale d'un lot doit être positive");
+            }
+            if (attenteLotMicros < 0 || repriseInitialeMs < 0 || attenteVerrouMs < 0) {
+                throw new IllegalArgumentException("Les délais de l'écrivain ne peuvent pas être négatifs");
+            }
+            if (tentativesMax < 1) {
+                throw new IllegalArgumentException("Le nombre de tentatives doit être positif");
+            }
+            if (repriseMaxMs < repriseInitialeMs) {
+                throw new IllegalArgumentException("L'attente maximale entre deux tentatives est inférieure à l'attente initiale");
+            }
+        }
+
+        /**
+         * Construit la configuration à partir des propriétés système (bibliotheque.ecrivain.*)
+         * @return La configuration lue, avec les valeurs par défaut pour les propriétés absentes
+         */
+        public static Configuration depuisProprietesSysteme() {
+            return new Configuration(
+                    Integer.getInteger("bibliotheque.ecrivain.tailleLotMax", 64),
+                    Long.getLong("bibliotheque.ecrivain.attenteLotMicros", 0),
+                    Integer.getInteger("bibliotheque.ecrivain.tentativesMax", 8),
+                    Long.getLong("bibliotheque.ecrivain.repriseInitialeMs", 5),
+                    Long.getLong("bibliotheque.ecrivain.repriseMaxMs", 500),
+                    Integer.getInteger("bibliotheque.ecrivain.attenteVerrouMs", 100));
+        }
+    }
+
+    /**
+     * Instantané de l'activité de l'écrivain
+     * @param enAttente Le nombre d'écritures en file
+     * @param lots Le nombre de transactions validées
+     * @param ecritures Le nombre d'écritures validées
+     * @param echecs Le nombre d'écritures en échec (erreur de l'écriture ou du lot)
+     * @param reprises Le nombre de lots rejoués parce que la base était verrouillée
+     * @param tailleLotMax La plus grande taille de lot validée
+     */
+    public record Statistiques(int enAttente, long lots, long ecritures, long echecs, long reprises, int tailleLotMax) {
+        /**
+         * @return Le nombre moyen d'écritures par transaction
+         */
+        public double tailleMoyenneLot() {
+            return lots == 0 ? 0 : (double) ecritures / lots;
+        }
+    }
+
+    // Écriture en file, avec son résultat à venir et, pendant le lot, son issue provisoire
+    private static final class Demande<T> {
+        final MetriquesOperation operation;
+        final Ecriture<T> ecriture;
+        final Consumer<? super T> apresValidation;
+        final CompletableFuture<T> resultat = new CompletableFuture<>();
+        final long soumiseNs = System.nanoTime();
+        T valeur;
+        Throwable erreur;
+
+        Demande(MetriquesOperation operation, Ecriture<T> ecriture, Consumer<? super T> apresValidation) {
+            this.operation = operation;
+            this.ecriture = ecriture;
+            this.apresValidation = apresValidation;
+        }
+
+        void executer(Connection connection) throws SQLException {
+            valeur = ecriture.executer(connection);
+        }
+
+        void terminer() {
+            if (erreur == null) {
+                // L'écriture est validée : une erreur de l'action après validation ne la remet pas en cause
+                if (apresValidation != null) {
+                    try {
+                        apresValidation.accept(valeur);
+                    } catch (RuntimeException e) {
+                        System.err.println("Erreur de l'action après validation d'une écriture : " + e);
+                    }
+                }
+                resultat.complete(valeur);
+            } else {
+                resultat.completeExceptionally(erreur);
+            }
+        }
+    }
+
+    // Marque de fin de file déposée par fermer()
+    private static final Demande<Void> FIN = new Demande<>(null, connection -> null, null);
+
+    // Codes d'erreur SQLite signalant un verrou tenu par une autre connexion
+    private static final int SQLITE_BUSY = 5;
+    private static final int SQLITE_LOCKED = 6;
+
+    private static final MetriquesOperation METRIQUES_ATTENTE =
+            Metriques.operation(Metriques.CATEGORIE_ECRIVAIN, "Attente");
+    private static final MetriquesOperation METRIQUES_TRANSACTION =
+            Metriques.operation(Metriques.CATEGORIE_ECRIVAIN, "Transaction");
+
+    private final ConnectionPool pool;
+    private final Configuration configuration;
+    private final BlockingQueue<Demande<?>> file = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    // Connexion dédiée, utilisée par le seul thread de l'écrivain ; rouverte après une erreur de lot
+    private Connection connexionDediee;
+    // La même, instrumentée sans opération : BEGIN, points de sauvegarde et écritures sans opération
+    private Connection connexion;
+    private boolean ouvert = true;
+    private final AtomicLong lots = new AtomicLong();
+    private final AtomicLong ecritures = new AtomicLong();
+    private final AtomicLong echecs = new AtomicLong();
+    private final AtomicLong reprises = new AtomicLong();
+    private volatile int tailleLotMax;
+
+    /**
+     * Démarre le thread de l'écrivain
+     * @param pool Le pool qui ouvre la connexion dédiée de l'écrivain
+     * @param configuration Les réglages des lots et des reprises
+     */
+    EcrivainUnique(ConnectionPool pool, Configuration configuration) {
+        this.pool = pool;
+        this.configuration = configuration;
+        this.thread = new Thread(this::boucler, "bibliotheque-ecrivain");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return La configuration de l'écrivain
+     */
+    public Configuration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Met une écriture en file
+     * @param ecriture L'écriture à exécuter
+     * @return Le résultat de l'écriture, rendu après la validation de son lot ; l'annuler avant
+     *         que le lot ne commence retire l'écriture du lot
+     */
+    public <T> CompletableFuture<T> soumettre(Ecriture<T> ecriture) {
+        return soumettre(ecriture, null);
+    }
+
+    /**
+     * Met une écriture en file, avec une action exécutée après la validation de son lot
+     * L'action est exécutée par le thread de l'écrivain, dans l'ordre du lot, avant que le résultat ne soit
+     * rendu ; elle n'est pas exécutée si l'écriture échoue. Elle doit être brève et ne pas accéder à la base.
+     * @param ecriture L'écriture à exécuter
+     * @param apresValidation L'action qui reçoit le résultat validé (null pour aucune)
+     * @return Le résultat de l'écriture, rendu après la validation de son lot et l'exécution de l'action
+     */
+    public <T> CompletableFuture<T> soumettre(Ecriture<T> ecriture, Consumer<? super T> apresValidation) {
+        return soumettre(null, ecriture, apresValidation);
+    }
+
+    /**
+     * Met une écriture en file pour une méthode de DAO, avec une action exécutée après la validation de son lot
+     * Les requêtes de l'écriture sont enregistrées dans les mesures de la méthode
+     * @param operation Les mesures de la méthode (null pour aucune)
+     * @param ecriture L'écriture à exécuter
+     * @param apresValidation L'action qui reçoit le résultat validé (null pour aucune)
+     * @return Le résultat de l'écriture, rendu après la validation de son lot et l'exécution de l'action
+     */
+    public <T> CompletableFuture<T> soumettre(MetriquesOperation operation, Ecriture<T> ecriture,
+                                              Consumer<? super T> apresValidation) {
+        if (Thread.currentThread() == thread) {
+            throw new IllegalStateException("Une écriture ne peut pas en soumettre une autre : utiliser la connexion reçue");
+        }
+        Demande<T> demande = new Demande<>(operation, ecriture, apresValidation);
+        synchronized (this) {
+            if (!ouvert) {
+                demande.resultat.completeExceptionally(new SQLException("L'écrivain est arrêté"));
+                return demande.resultat;
+            }
+            file.add(demande);
+        }
+        return demande.resultat;
+    }
+
+    /**
+     * Exécute une écriture et attend la validation de son lot
+     * @param ecriture L'écriture à exécuter
+     * @return Le résultat de l'écriture
+     * @throws SQLException Si l'écriture ou la validation de son lot échoue, ou si l'attente est interrompue
+     */
+    public <T> T executer(Ecriture<T> ecriture) throws SQLException {
+        return executer(ecriture, null);
+    }
+
+    /**
+     * Exécute une écriture et attend la validation de son lot, puis l'exécution de son action après validation
+     * @param ecriture L'écriture à exécuter
+     * @param apresValidation L'action qui reçoit le résultat validé, exécutée par le thread de l'écrivain
+     * @return Le résultat de l'écriture
+     * @throws SQLException Si l'écriture ou la validation de son lot échoue, ou si l'attente est interrompue
+     */
+    public <T> T executer(Ecriture<T> ecriture, Consumer<? super T> apresValidation) throws SQLException {
+        return executer(null, ecriture, apresValidation);
+    }
+
+    /**
+     * Exécute l'écriture d'une méthode de DAO et attend la validation de son lot
+     * @param operation Les mesures de la méthode, qui enregistrent les requêtes de l'écriture
+     * @param ecriture L'écriture à exécuter
+     * @return Le résultat de l'écriture
+     * @throws SQLException Si l'écriture ou la validation de son lot échoue, ou si l'attente est interrompue
+     */
+    public <T> T executer(MetriquesOperation operation, Ecriture<T> ecriture) throws SQLException {
+        return executer(operation, ecriture, null);
+    }
+
+    /**
+     * Exécute l'écriture d'une méthode de DAO et attend la validation de son lot, puis son action après validation
+     * @param operation Les mesures de la méthode, qui enregistrent les requêtes de l'écriture (null pour aucune)
+     * @param ecriture L'écriture à exécuter
+     * @param apresValidation L'action qui reçoit le résultat validé, exécutée par le thread de l'écrivain
+     * @return Le résultat de l'écriture
+     * @throws SQLException Si l'écriture ou la validation de son lot échoue, ou si l'attente est interrompue
+     */
+    public <T> T executer(MetriquesOperation operation, Ecriture<T> ecriture, Consumer<? super T> apresValidation)
+            throws SQLException {
+        CompletableFuture<T> resultat = soumettre(operation, ecriture, apresValidation);
+        try {
+            return resultat.get();
+        } catch (InterruptedException e) {
+            // L'écriture n'est retirée que si son lot n'a pas commencé
+            resultat.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new SQLException("Attente de l'écriture interrompue", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new SQLException(cause);
+        }
+    }
+
+    // Boucle du thread de l'écrivain : un lot par tour, jusqu'à la marque de fin
+    private void boucler() {
+        List<Demande<?>> lot = new ArrayList<>(configuration.tailleLotMax());
+        boolean fin = false;
+        while (!fin) {
+            try {
+                Demande<?> premiere = file.take();
+                if (premiere == FIN) {
+                    break;
+                }
+                lot.add(premiere);
+                fin = remplir(lot);
+                traiter(lot);
+            } catch (InterruptedException e) {
+                fin = true;
+                echouer(lot, new SQLException("L'écrivain est arrêté", e));
+            } catch (RuntimeException | Error e) {
+                // Le thread survit à une erreur inattendue : les appelants du lot la reçoivent
+                echouer(lot, e);
+                System.err.println("Erreur inattendue de l'écrivain : " + e);
+            }
+            lot.clear();
+        }
+        file.drainTo(lot);
+        echouer(lot, new SQLException("L'écrivain est arrêté"));
+        fermerConnexion();
+    }
+
+    private static void echouer(List<Demande<?>> lot, Throwable erreur) {
+        for (Demande<?> demande : lot) {
+            demande.resultat.completeExceptionally(erreur);
+        }
+    }
+
+    // Complète le lot avec les écritures en file ; retourne true si la marque de fin a été rencontrée
+    private boolean remplir(List<Demande<?>> lot) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(configuration.attenteLotMicros());
+        while (lot.size() < configuration.tailleLotMax()) {
+            long reste = limite - System.nanoTime();
+            Demande<?> suivante = reste > 0 ? file.poll(reste, TimeUnit.NANOSECONDS) : file.poll();
+            if (suivante == null) {
+                return false;
+            }
+            if (suivante == FIN) {
+                return true;
+            }
+            lot.add(suivante);
+        }
+        return false;
+    }
+
+    // Exécute un lot, en le rejouant tant que la base est verrouillée par un autre processus
+    private void traiter(List<Demande<?>> lot) throws InterruptedException {
+        // Les écritures annulées pendant leur attente ne sont pas exécutées
+        lot.removeIf(demande -> demande.resultat.isDone());
+        if (lot.isEmpty()) {
+            return;
+        }
+        long debut = System.nanoTime();
+        for (Demande<?> demande : lot) {
+            METRIQUES_ATTENTE.enregistrer(debut - demande.soumiseNs, 0);
+        }
+        for (int tentative = 1; ; tentative++) {
+            try {
+                executerLot(lot);
+                METRIQUES_TRANSACTION.enregistrer(System.nanoTime() - debut, lot.size());
+                lots.incrementAndGet();
+                tailleLotMax = Math.max(tailleLotMax, lot.size());
+                for (Demande<?> demande : lot) {
+                    if (demande.erreur == null) {
+                        ecritures.incrementAndGet();
+                    } else {
+                        echecs.incrementAndGet();
+                    }
+                    demande.terminer();
+                }
+                return;
+            } catch (SQLException e) {
+                if (estVerrouillee(e) && tentative < configuration.tentativesMax()) {
+                    reprises.incrementAndGet();
+                    Thread.sleep(attenteAvantReprise(tentative));
+                    continue;
+                }
+                METRIQUES_TRANSACTION.enregistrerErreur(System.nanoTime() - debut);
+                // L'état de la connexion est inconnu après l'échec d'un lot : le lot suivant en ouvre une autre
+                fermerConnexion();
+                echecs.addAndGet(lot.size());
+                echouer(lot, e);
+                return;
+            }
+        }
+    }
+
+    // Une transaction pour tout le lot, un point de sauvegarde par écriture
+    private void executerLot(List<Demande<?>> lot) throws SQLException {
+        Connection connection = connexion();
+        try (Statement stmt = connection.createStatement()) {
+            boolean valide = false;
+            try {
+                // IMMEDIATE prend le verrou d'écriture dès le début : une attente ne peut survenir qu'ici
+                stmt.execute("BEGIN IMMEDIATE");
+                for (Demande<?> demande : lot) {
+                    stmt.execute("SAVEPOINT ecriture");
+                    try {
+                        demande.executer(demande.operation == null ? connection
+                                : JournalRequetesLentes.instrumenter(connexionDediee, demande.operation));
+                        demande.erreur = null;
+                    } catch (SQLException e) {
+                        if (estVerrouillee(e)) {
+                            throw e;
+                        }
+                        demande.erreur = e;
+                        stmt.execute("ROLLBACK TO ecriture");
+                    } catch (RuntimeException e) {
+                        demande.erreur = e;
+                        stmt.execute("ROLLBACK TO ecriture");
+                    }
+                    stmt.execute("RELEASE ecriture");
+                }
+                stmt.execute("COMMIT");
+                valide = true;
+            } finally {
+                if (!valide) {
+                    annuler(stmt);
+                }
+            }
+        }
+    }
+
+    // Connexion dédiée de l'écrivain, ouverte au premier lot avec son busy_timeout
+    private Connection connexion() throws SQLException {
+        if (connexion == null) {
+            Connection nouvelle = pool.ouvrirDediee();
+            try (Statement stmt = nouvelle.createStatement()) {
+                stmt.execute("PRAGMA busy_timeout = " + configuration.attenteVerrouMs());
+            } catch (SQLException e) {
+                Database.closeConnection(nouvelle);
+                throw e;
+            }
+            connexionDediee = nouvelle;
+            connexion = JournalRequetesLentes.instrumenter(nouvelle);
+        }
+        return connexion;
+    }
+
+    private void fermerConnexion() {
+        if (connexion != null) {
+            Database.closeConnection(connexion);
+            connexion = null;
+            connexionDediee = null;
+        }
+    }
+
+    // Annule la transaction du lot si elle est ouverte (BEGIN a pu échouer)
+    private static void annuler(Statement stmt) {
+        try {
+            stmt.execute("ROLLBACK");
+        } catch (SQLException e) {
+            // Aucune transaction ouverte
+        }
+    }
+
+    private static boolean estVerrouillee(SQLException e) {
+        int code = e.getErrorCode() & 0xff;
+        return code == SQLITE_BUSY || code == SQLITE_LOCKED;
+    }
+
+    // Attente exponentielle bornée, tirée au hasard dans sa moitié haute pour désynchroniser les processus
+    private long attenteAvantReprise(int tentative) {
+        long attente = Math.min(configuration.repriseMaxMs(),
+                configuration.repriseInitialeMs() << Math.min(tentative - 1, 20));
+        return attente / 2 + ThreadLocalRandom.current().nextLong(attente / 2 + 1);
+    }
+
+    /**
+     * @return Un instantané de l'activité de l'écrivain
+     */
+    public Statistiques getStatistiques() {
+        return new Statistiques(file.size(), lots.get(), ecritures.get(), echecs.get(), reprises.get(), tailleLotMax);
+    }
+
+    /**
+     * Arrête l'écrivain après avoir exécuté les écritures déjà en file
+     * Les écritures soumises ensuite échouent
+     */
+    void fermer() {
+        synchronized (this) {
+            if (!ouvert) {
+                return;
+            }
+            ouvert = false;
+            file.add(FIN);
+        }
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
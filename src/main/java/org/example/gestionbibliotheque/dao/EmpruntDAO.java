@@ -1,20 +1,242 @@
 package org.example.gestionbibliotheque.dao;
 
 import org.example.gestionbibliotheque.model.Emprunt;
+import org.example.gestionbibliotheque.model.EmpruntDetail;
+import org.example.gestionbibliotheque.model.EmpruntLigne;
 import java.sql.*;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
 
 /**
  * Classe d'accès aux données pour les emprunts
  * Cette classe gère toutes les opérations de base de données liées aux emprunts
  */
 public class EmpruntDAO {
+
+    /**
+     * Clés de tri disponibles pour la lecture paginée des emprunts
+     */
+    public enum Tri {
+        ID("id"), DATE_EMPRUNT("date_emprunt"), DATE_RETOUR_PREVUE("date_retour_prevue");
+
+        private final String colonne;
+
+        Tri(String colonne) {
+            this.colonne = colonne;
+        }
+    }
+
+    /**
+     * Filtre sur l'état des emprunts
+     */
+    public enum Filtre {
+        TOUS(null),
+        EN_COURS("e.date_retour_effective IS NULL"),
+        RETOURNES("e.date_retour_effective IS NOT NULL");
+
+        private final String condition;
+
+        Filtre(String condition) {
+            this.condition = condition;
+        }
+    }
+    /**
+     * Résultat d'une tentative d'emprunt
+     */
+    public enum ResultatEmprunt {
+        EFFECTUE,            // L'emprunt est enregistré et le stock décrémenté
+        RUPTURE_DE_STOCK,    // Aucun exemplaire disponible : rien n'a été modifié
+        LIVRE_INTROUVABLE    // Le livre n'existe pas : rien n'a été modifié
+    }
+
+    // Lecture d'un emprunt sur une liste de colonnes explicite
+    private static final MappeurLignes<Emprunt> MAPPEUR = new MappeurLignes<>(
+            (rs, p) -> remplir(new Emprunt(), rs, p),
+            "id", "livre_id", "adherent_id", "date_emprunt", "date_retour_prevue", "date_retour_effective");
+
+    // Lecture d'un emprunt avec le titre du livre et le nom de l'adhérent (jointure sur Livres l et Adherents a)
+    private static final MappeurLignes<EmpruntDetail> MAPPEUR_DETAIL = new MappeurLignes<>((rs, p) -> {
+        EmpruntDetail emprunt = remplir(new EmpruntDetail(), rs, p);
+        emprunt.setTitreLivre(rs.getString(p[6]));
+        emprunt.setNomAdherent(rs.getString(p[7]));
+        return emprunt;
+    }, "e.id", "e.livre_id", "e.adherent_id", "e.date_emprunt", "e.date_retour_prevue", "e.date_retour_effective",
+            "l.titre", "a.nom");
+
+    // Lecture d'un emprunt en enregistrement immuable, sans propriétés JavaFX
+    private static final MappeurLignes<EmpruntLigne> MAPPEUR_LIGNE = new MappeurLignes<>(
+            (rs, p) -> new EmpruntLigne(rs.getInt(p[0]), rs.getInt(p[1]), rs.getInt(p[2]), MappeurLignes.lireDate(rs, p[3]),
+                    MappeurLignes.lireDate(rs, p[4]), MappeurLignes.lireDate(rs, p[5]), null, null),
+            "id", "livre_id", "adherent_id", "date_emprunt", "date_retour_prevue", "date_retour_effective");
+
+    // Lecture d'un emprunt immuable avec le titre du livre et le nom de l'adhérent
+    private static final MappeurLignes<EmpruntLigne> MAPPEUR_LIGNE_DETAIL = new MappeurLignes<>(
+            (rs, p) -> new EmpruntLigne(rs.getInt(p[0]), rs.getInt(p[1]), rs.getInt(p[2]), MappeurLignes.lireDate(rs, p[3]),
+                    MappeurLignes.lireDate(rs, p[4]), MappeurLignes.lireDate(rs, p[5]), rs.getString(p[6]), rs.getString(p[7])),
+            "e.id", "e.livre_id", "e.adherent_id", "e.date_emprunt", "e.date_retour_prevue", "e.date_retour_effective",
+            "l.titre", "a.nom");
+
+    private static final String JOINTURE_DETAIL = " FROM Emprunts e"
+            + " LEFT JOIN Livres l ON l.id = e.livre_id"
+            + " LEFT JOIN Adherents a ON a.id = e.adherent_id";
+
+    // Renseigne les colonnes de la table Emprunts, dans l'ordre déclaré par les deux mappeurs
+    private static <E extends Emprunt> E remplir(E emprunt, ResultSet rs, int[] p) throws SQLException {
+        emprunt.setId(rs.getInt(p[0]));
+        emprunt.setLivreId(rs.getInt(p[1]));
+        emprunt.setAdherentId(rs.getInt(p[2]));
+        emprunt.setDateEmprunt(MappeurLignes.lireDate(rs, p[3]));
+        emprunt.setDateRetourPrevue(MappeurLignes.lireDate(rs, p[4]));
+        emprunt.setDateRetourEffective(MappeurLignes.lireDate(rs, p[5]));
+        return emprunt;
+    }
+
+    // Index en mémoire des emprunts en cours, chargé au démarrage avec -Dbibliotheque.indexEmprunts=true
+    // (un seul processus par base)
+    private static final IndexEmprunts INDEX = new IndexEmprunts();
+
+    // Mesures par méthode ; lirePageDetaillee reçoit celle de la page demandée
+    private static final MetriquesOperation METRIQUES_CHARGER_INDEX =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "EmpruntDAO.chargerIndex");
+    private static final MetriquesOperation METRIQUES_COMPTER_EMPRUNTS_EN_COURS_LIVRE =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "EmpruntDAO.compterEmpruntsEnCoursLivre");
+    private static final MetriquesOperation METRIQUES_GET_IDS_EMPRUNTS_EN_COURS_ADHERENT =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "EmpruntDAO.getIdsEmpruntsEnCoursAdherent");
+    private static final MetriquesOperation METRIQUES_AJOUTER_EMPRUNT =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "EmpruntDAO.ajouterEmprunt");
+    private static final MetriquesOperation METRIQUES_EMPRUNTER_LIVRE =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "EmpruntDAO.emprunterLivre");
+    private static final MetriquesOperation METRIQUES_GET_EMPRUNTS =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "EmpruntDAO.getEmprunts");
+    private static final MetriquesOperation METRIQUES_GET_EMPRUNTS_LIGNES =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "EmpruntDAO.getEmpruntsLignes");
+    private static final MetriquesOperation METRIQUES_GET_EMPRUNTS_DETAILLES =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "EmpruntDAO.getEmpruntsDetailles");
+    private static final MetriquesOperation METRIQUES_RETOURNER_LIVRE =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "EmpruntDAO.retournerLivre");
+    private static final MetriquesOperation METRIQUES_RETOURNER_LIVRES =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "EmpruntDAO.retournerLivres");
+    private static final MetriquesOperation METRIQUES_GET_EMPRUNTS_EN_COURS =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "EmpruntDAO.getEmpruntsEnCours");
+    private static final MetriquesOperation METRIQUES_GET_EMPRUNTS_EN_COURS_LIGNES =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "EmpruntDAO.getEmpruntsEnCoursLignes");
+    private static final MetriquesOperation METRIQUES_GET_EMPRUNT_BY_ID =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "EmpruntDAO.getEmpruntById");
+    private static final MetriquesOperation METRIQUES_RECHERCHER_PAR_LIVRE_ID =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "EmpruntDAO.rechercherParLivreId");
+    private static final MetriquesOperation METRIQUES_RECHERCHER_PAR_ADHERENT_ID =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "EmpruntDAO.rechercherParAdherentId");
+    private static final MetriquesOperation METRIQUES_GET_EMPRUNTS_ENTRE =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "EmpruntDAO.getEmpruntsEntre");
+    private static final MetriquesOperation METRIQUES_GET_EMPRUNTS_A_ECHEANCE =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "EmpruntDAO.getEmpruntsAEcheance");
+    private static final MetriquesOperation METRIQUES_GET_EMPRUNTS_EN_RETARD =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "EmpruntDAO.getEmpruntsEnRetard");
+    private static final MetriquesOperation METRIQUES_MODIFIER_EMPRUNT =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "EmpruntDAO.modifierEmprunt");
+    private static final MetriquesOperation METRIQUES_SUPPRIMER_EMPRUNT =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "EmpruntDAO.supprimerEmprunt");
+    private static final MetriquesOperation METRIQUES_GET_EMPRUNTS_DETAILLES_PAGE =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "EmpruntDAO.getEmpruntsDetaillesPage");
+    private static final MetriquesOperation METRIQUES_GET_EMPRUNTS_LIGNES_PAGE =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "EmpruntDAO.getEmpruntsLignesPage");
+
     public EmpruntDAO() {
         // No need to instantiate Database
     }
 
+    /**
+     * Charge (ou recharge) l'index en mémoire des emprunts en cours et l'active
+     * À appeler après une écriture faite hors des DAOs, pour que l'index reflète la base
+     * @throws SQLException Si une erreur survient lors de l'accès à la base de données
+     */
+    public static void chargerIndex() throws SQLException {
+        try (Connection conn = Database.getConnection(METRIQUES_CHARGER_INDEX)) {
+            chargerIndex(conn);
+        }
+    }
+
+    // Chargement de l'index au démarrage, sur la connexion des migrations
+    static void chargerIndex(Connection conn) throws SQLException {
+        INDEX.charger(conn);
+        if (!INDEX.estActif()) {
+            return;
+        }
+        IndexEmprunts.Statistiques stats = INDEX.getStatistiques();
+        System.out.println("Index des emprunts chargé en " + stats.chargementMs() + " ms : " + stats.empruntsEnCours()
+                + " emprunts en cours, " + stats.octets() / 1024 + " Ko");
+    }
+
+    // Désactive l'index (changement de base de données)
+    static void viderIndex() {
+        INDEX.vider();
+    }
+
+    /**
+     * Retourne l'état de l'index en mémoire des emprunts en cours
+     * @return Un instantané de l'index (taille, mémoire occupée, durée du chargement)
+     */
+    public static IndexEmprunts.Statistiques getStatistiquesIndex() {
+        return INDEX.getStatistiques();
+    }
+
+    /**
+     * Compte les exemplaires d'un livre actuellement prêtés
+     * Répond depuis l'index en mémoire s'il est actif, sinon par une requête sur idx_emprunts_livre
+     * @param livreId L'identifiant du livre
+     * @return Le nombre d'emprunts en cours du livre
+     * @throws SQLException Si une erreur survient lors de l'accès à la base de données
+     */
+    public int compterEmpruntsEnCoursLivre(int livreId) throws SQLException {
+        if (INDEX.estActif()) {
+            return INDEX.compterEnCoursLivre(livreId);
+        }
+        String sql = "SELECT COUNT(*) FROM Emprunts WHERE livre_id = ? AND date_retour_effective IS NULL";
+        try (Connection conn = Database.getConnection(METRIQUES_COMPTER_EMPRUNTS_EN_COURS_LIVRE);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, livreId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Récupère les identifiants des emprunts en cours d'un adhérent
+     * Répond depuis l'index en mémoire s'il est actif, sinon par une requête sur idx_emprunts_adherent
+     * @param adherentId L'identifiant de l'adhérent
+     * @return Les identifiants des emprunts en cours, par ordre croissant
+     * @throws SQLException Si une erreur survient lors de l'accès à la base de données
+     */
+    public int[] getIdsEmpruntsEnCoursAdherent(int adherentId) throws SQLException {
+        if (INDEX.estActif()) {
+            return INDEX.empruntsEnCoursAdherent(adherentId);
+        }
+        String sql = "SELECT id FROM Emprunts WHERE adherent_id = ? AND date_retour_effective IS NULL ORDER BY id";
+        try (Connection conn = Database.getConnection(METRIQUES_GET_IDS_EMPRUNTS_EN_COURS_ADHERENT);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, adherentId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                int[] ids = new int[8];
+                int n = 0;
+                while (rs.next()) {
+                    if (n == ids.length) {
+                        ids = Arrays.copyOf(ids, n * 2);
+                    }
+                    ids[n++] = rs.getInt(1);
+                }
+                return Arrays.copyOf(ids, n);
+            }
+        }
+    }
+
     /**
      * Crée un nouvel emprunt dans la base de données
      * @param emprunt L'emprunt à créer
@@ -22,99 +244,300 @@ public class EmpruntDAO {
      */
     public void ajouterEmprunt(Emprunt emprunt) throws SQLException {
         String sql = "INSERT INTO Emprunts (date_emprunt, livre_id, adherent_id, date_retour_prevue) VALUES (?, ?, ?, ?)";
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setDate(1, java.sql.Date.valueOf(emprunt.getDateEmprunt()));
-            pstmt.setInt(2, emprunt.getLivreId());
-            pstmt.setInt(3, emprunt.getAdherentId());
-            pstmt.setDate(4, java.sql.Date.valueOf(emprunt.getDateRetourPrevue()));
-            pstmt.executeUpdate();
-            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    emprunt.setId(generatedKeys.getInt(1));
+        int livreId = emprunt.getLivreId();
+        int adherentId = emprunt.getAdherentId();
+        LocalDate dateEmprunt = emprunt.getDateEmprunt();
+        LocalDate dateRetourPrevue = emprunt.getDateRetourPrevue();
+        Integer id = Database.getEcrivain().executer(METRIQUES_AJOUTER_EMPRUNT, conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                MappeurLignes.lierDate(pstmt, 1, dateEmprunt);
+                pstmt.setInt(2, livreId);
+                pstmt.setInt(3, adherentId);
+                MappeurLignes.lierDate(pstmt, 4, dateRetourPrevue);
+                pstmt.executeUpdate();
+                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                    return generatedKeys.next() ? generatedKeys.getInt(1) : null;
                 }
             }
+        }, nouveau -> {
+            if (nouveau != null) {
+                INDEX.enregistrer(nouveau, livreId, adherentId);
+            }
+        });
+        if (id != null) {
+            emprunt.setId(id);
         }
     }
 
     /**
-     * Récupère tous les emprunts de la base de données
-     * @return Une liste de tous les emprunts
+     * Enregistre un emprunt et décrémente le stock du livre dans une seule transaction
+     * La décrémentation est conditionnelle (nb_exemplaires > 0) : deux postes qui empruntent
+     * le dernier exemplaire en même temps ne peuvent pas le prêter deux fois.
+     * @param emprunt L'emprunt à créer ; son identifiant est renseigné en cas de succès
+     * @return EFFECTUE, ou la raison pour laquelle l'emprunt a été refusé
      * @throws SQLException Si une erreur survient lors de l'accès à la base de données
      */
+    public ResultatEmprunt emprunterLivre(Emprunt emprunt) throws SQLException {
+        String decrementerSQL = "UPDATE Livres SET nb_exemplaires = nb_exemplaires - 1 WHERE id = ? AND nb_exemplaires > 0";
+        String insererSQL = "INSERT INTO Emprunts (date_emprunt, livre_id, adherent_id, date_retour_prevue) VALUES (?, ?, ?, ?)";
+        int livreId = emprunt.getLivreId();
+        int adherentId = emprunt.getAdherentId();
+        LocalDate dateEmprunt = emprunt.getDateEmprunt();
+        LocalDate dateRetourPrevue = emprunt.getDateRetourPrevue();
+        Pret pret = Database.getEcrivain().executer(METRIQUES_EMPRUNTER_LIVRE, conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(decrementerSQL)) {
+                stmt.setInt(1, livreId);
+                if (stmt.executeUpdate() == 0) {
+                    return new Pret(livreExiste(conn, livreId)
+                            ? ResultatEmprunt.RUPTURE_DE_STOCK : ResultatEmprunt.LIVRE_INTROUVABLE, 0);
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(insererSQL, Statement.RETURN_GENERATED_KEYS)) {
+                MappeurLignes.lierDate(stmt, 1, dateEmprunt);
+                stmt.setInt(2, livreId);
+                stmt.setInt(3, adherentId);
+                MappeurLignes.lierDate(stmt, 4, dateRetourPrevue);
+                stmt.executeUpdate();
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    return new Pret(ResultatEmprunt.EFFECTUE, generatedKeys.next() ? generatedKeys.getInt(1) : 0);
+                }
+            }
+        }, valide -> {
+            if (valide.resultat() == ResultatEmprunt.EFFECTUE) {
+                LivreDAO.invaliderCache(livreId);
+                INDEX.enregistrer(valide.empruntId(), livreId, adherentId);
+            }
+        });
+        if (pret.resultat() != ResultatEmprunt.EFFECTUE) {
+            return pret.resultat();
+        }
+        emprunt.setId(pret.empruntId());
+        return ResultatEmprunt.EFFECTUE;
+    }
+
+    // Issue d'un emprunt dans la transaction de l'écrivain, appliquée à l'Emprunt une fois validée
+    private record Pret(ResultatEmprunt resultat, int empruntId) {
+    }
+
+    private static boolean livreExiste(Connection conn, int livreId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT 1 FROM Livres WHERE id = ?")) {
+            stmt.setInt(1, livreId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
     /**
      * Récupère tous les emprunts de la base de données
      * @return Une liste de tous les emprunts
      * @throws SQLException Si une erreur survient lors de l'accès à la base de données
      */
     public List<Emprunt> getEmprunts() throws SQLException {
-        List<Emprunt> emprunts = new ArrayList<>();
-        String sql = "SELECT * FROM Emprunts";
-        
-        try (Connection conn = Database.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                Emprunt emprunt = new Emprunt();
-                emprunt.setId(rs.getInt("id"));
-                emprunt.setLivreId(rs.getInt("livre_id"));
-                emprunt.setAdherentId(rs.getInt("adherent_id"));
-                
-                Date dateEmprunt = rs.getDate("date_emprunt");
-                if (dateEmprunt != null) {
-                    emprunt.setDateEmprunt(dateEmprunt.toLocalDate());
-                }
-                
-                Date dateRetourPrevue = rs.getDate("date_retour_prevue");
-                if (dateRetourPrevue != null) {
-                    emprunt.setDateRetourPrevue(dateRetourPrevue.toLocalDate());
-                }
-                
-                Date dateRetourEffective = rs.getDate("date_retour_effective");
-                if (dateRetourEffective != null) {
-                    emprunt.setDateRetourEffective(dateRetourEffective.toLocalDate());
-                }
-                
-                emprunts.add(emprunt);
-            }
+        String sql = "SELECT " + MAPPEUR.colonnes() + " FROM Emprunts";
+        try (Connection conn = Database.getConnection(METRIQUES_GET_EMPRUNTS);
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return MAPPEUR.lireTout(rs);
         }
-        
-        return emprunts;
     }
 
     /**
-     * Marque un livre comme retourné en mettant à jour sa date de retour
-     * @param empruntId L'identifiant de l'emprunt à retourner
+     * Parcourt tous les emprunts sans les charger tous en mémoire
+     * Les lignes sont lues à la demande sur un curseur qui garde une connexion du pool jusqu'à la fermeture
+     * du flux ou la lecture de la dernière ligne : à utiliser dans un try-with-resources.
+     * Une erreur SQL pendant le parcours est levée en ErreurFluxSql.
+     * @return Le flux des emprunts
+     * @throws SQLException Si la requête ne peut pas être exécutée
+     */
+    public Stream<Emprunt> fluxEmprunts() throws SQLException {
+        return FluxLignes.ouvrir("EmpruntDAO.fluxEmprunts", MAPPEUR,
+                "SELECT " + MAPPEUR.colonnes() + " FROM Emprunts", stmt -> { });
+    }
+
+    /**
+     * Récupère tous les emprunts en enregistrements immuables
+     * Une ligne n'occupe qu'un objet (plus ses dates), contre sept pour un Emprunt
+     * @return Une liste de tous les emprunts
      * @throws SQLException Si une erreur survient lors de l'accès à la base de données
      */
+    public List<EmpruntLigne> getEmpruntsLignes() throws SQLException {
+        String sql = "SELECT " + MAPPEUR_LIGNE.colonnes() + " FROM Emprunts";
+        try (Connection conn = Database.getConnection(METRIQUES_GET_EMPRUNTS_LIGNES);
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return MAPPEUR_LIGNE.lireTout(rs);
+        }
+    }
+
     /**
-     * Marque un livre comme retourné en mettant à jour sa date de retour effective
-     * @param empruntId L'identifiant de l'emprunt à retourner
+     * Parcourt tous les emprunts en enregistrements immuables sans les charger en mémoire (voir fluxEmprunts)
+     * @return Le flux des emprunts
+     * @throws SQLException Si la requête ne peut pas être exécutée
+     */
+    public Stream<EmpruntLigne> fluxEmpruntsLignes() throws SQLException {
+        return FluxLignes.ouvrir("EmpruntDAO.fluxEmpruntsLignes", MAPPEUR_LIGNE,
+                "SELECT " + MAPPEUR_LIGNE.colonnes() + " FROM Emprunts", stmt -> { });
+    }
+
+    /**
+     * Récupère tous les emprunts avec le titre du livre et le nom de l'adhérent
+     * La jointure est faite par SQLite en une seule requête, ce qui évite une lecture
+     * du livre et de l'adhérent pour chaque ligne affichée
+     * @return Une liste de tous les emprunts détaillés
      * @throws SQLException Si une erreur survient lors de l'accès à la base de données
      */
+    public List<EmpruntDetail> getEmpruntsDetailles() throws SQLException {
+        String sql = "SELECT " + MAPPEUR_DETAIL.colonnes() + JOINTURE_DETAIL;
+        try (Connection conn = Database.getConnection(METRIQUES_GET_EMPRUNTS_DETAILLES);
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return MAPPEUR_DETAIL.lireTout(rs);
+        }
+    }
+
+    /**
+     * Récupère une page d'emprunts détaillés (titre du livre et nom de l'adhérent), à partir d'un curseur
+     * @param apres Le curseur rendu par la page précédente, ou null pour la première page
+     * @param taille Le nombre maximal d'emprunts de la page
+     * @param tri La clé de tri
+     * @param filtre Le filtre sur l'état des emprunts
+     * @return La page d'emprunts et le curseur de la page suivante
+     * @throws SQLException Si une erreur survient lors de l'accès à la base de données
+     */
+    public Page<EmpruntDetail> getEmpruntsDetaillesPage(Page.Curseur apres, int taille, Tri tri, Filtre filtre) throws SQLException {
+        return lirePageDetaillee(METRIQUES_GET_EMPRUNTS_DETAILLES_PAGE, MAPPEUR_DETAIL,
+                EmpruntDetail::getId, apres, taille, tri, filtre);
+    }
+
+    /**
+     * Récupère une page d'emprunts détaillés en enregistrements immuables, à partir d'un curseur
+     * C'est la lecture de la table des emprunts : les propriétés JavaFX ne sont créées que pour les cellules affichées
+     * @param apres Le curseur rendu par la page précédente, ou null pour la première page
+     * @param taille Le nombre maximal d'emprunts de la page
+     * @param tri La clé de tri
+     * @param filtre Le filtre sur l'état des emprunts
+     * @return La page d'emprunts et le curseur de la page suivante
+     * @throws SQLException Si une erreur survient lors de l'accès à la base de données
+     */
+    public Page<EmpruntLigne> getEmpruntsLignesPage(Page.Curseur apres, int taille, Tri tri, Filtre filtre) throws SQLException {
+        return lirePageDetaillee(METRIQUES_GET_EMPRUNTS_LIGNES_PAGE, MAPPEUR_LIGNE_DETAIL,
+                EmpruntLigne::id, apres, taille, tri, filtre);
+    }
+
+    // Lecture paginée de la jointure des emprunts, commune aux deux représentations
+    private static <T> Page<T> lirePageDetaillee(MetriquesOperation operation, MappeurLignes<T> mappeur,
+                                                 ToIntFunction<T> identifiant, Page.Curseur apres,
+                                                 int taille, Tri tri, Filtre filtre) throws SQLException {
+        Page.verifierTaille(taille);
+        StringBuilder sql = new StringBuilder("SELECT " + mappeur.colonnes() + JOINTURE_DETAIL);
+        List<String> conditions = new ArrayList<>();
+        if (filtre.condition != null) {
+            conditions.add(filtre.condition);
+        }
+        if (apres != null) {
+            conditions.add(Page.conditionApres("e." + tri.colonne, "e.id"));
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(" ORDER BY ").append(Page.ordre("e." + tri.colonne, "e.id")).append(" LIMIT ?");
+
+        try (Connection conn = Database.getConnection(operation);
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int index = 1;
+            if (apres != null) {
+                index = Page.lierCurseur(stmt, index, apres, tri == Tri.ID);
+            }
+            stmt.setInt(index, taille + 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return mappeur.lirePage(rs, taille, tri.colonne, identifiant);
+            }
+        }
+    }
+
+    /**
+     * Enregistre le retour d'un livre : clôt l'emprunt et réincrémente le stock du livre
+     * dans une seule transaction
+     * @param empruntId L'identifiant de l'emprunt à retourner
+     * @throws SQLException Si l'emprunt n'existe pas, s'il est déjà retourné, ou en cas d'erreur d'accès à la base
+     */
     public void retournerLivre(int empruntId) throws SQLException {
-        String sql = "UPDATE Emprunts SET date_retour_effective = ? WHERE id = ?";
-        
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            conn.setAutoCommit(false);
-            try {
-                pstmt.setDate(1, java.sql.Date.valueOf(LocalDate.now()));
-                pstmt.setInt(2, empruntId);
-                
-                int rowsAffected = pstmt.executeUpdate();
-                if (rowsAffected == 0) {
-                    throw new SQLException("Emprunt non trouvé avec l'ID: " + empruntId);
+        LocalDate aujourdhui = LocalDate.now();
+        Database.getEcrivain().executer(METRIQUES_RETOURNER_LIVRE, conn -> {
+            Retour clos = retourner(conn, empruntId, aujourdhui);
+            if (clos == null) {
+                throw new SQLException("Emprunt non trouvé ou déjà retourné avec l'ID: " + empruntId);
+            }
+            return clos;
+        }, EmpruntDAO::appliquerRetour);
+    }
+
+    /**
+     * Enregistre le retour de plusieurs emprunts dans une seule transaction (vidage de la boîte de retour)
+     * Les emprunts inconnus ou déjà retournés sont ignorés ; les autres sont clos et leur stock réincrémenté
+     * @param empruntIds Les identifiants des emprunts à retourner
+     * @return Les identifiants des emprunts effectivement retournés
+     * @throws SQLException Si une erreur survient lors de l'accès à la base de données (aucun retour n'est alors enregistré)
+     */
+    public List<Integer> retournerLivres(Collection<Integer> empruntIds) throws SQLException {
+        List<Integer> ids = List.copyOf(empruntIds);
+        LocalDate aujourdhui = LocalDate.now();
+        List<Retour> retours = Database.getEcrivain().executer(METRIQUES_RETOURNER_LIVRES, conn -> {
+            List<Retour> clos = new ArrayList<>();
+            for (int empruntId : ids) {
+                Retour retour = retourner(conn, empruntId, aujourdhui);
+                if (retour != null) {
+                    clos.add(retour);
                 }
-                conn.commit();
-            } catch (SQLException e) {
-                conn.rollback();
-                throw e;
-            } finally {
-                conn.setAutoCommit(true);
             }
+            return clos;
+        }, clos -> clos.forEach(EmpruntDAO::appliquerRetour));
+        List<Integer> retournes = new ArrayList<>(retours.size());
+        for (Retour retour : retours) {
+            retournes.add(retour.empruntId());
         }
+        return retournes;
+    }
+
+    // Emprunt en cours clos par retourner(), ou retiré par une modification ou une suppression
+    private record Retour(int empruntId, int livreId, int adherentId) {
+    }
+
+    // Action après validation : les mises à jour de l'index suivent l'ordre de validation des écritures
+    private static void retirerIndex(Retour retour) {
+        if (retour != null) {
+            INDEX.retirer(retour.empruntId(), retour.livreId(), retour.adherentId());
+        }
+    }
+
+    // Action après validation d'un retour : le stock du livre en cache est périmé
+    private static void appliquerRetour(Retour retour) {
+        LivreDAO.invaliderCache(retour.livreId());
+        retirerIndex(retour);
+    }
+
+    // Clôt un emprunt en cours et rend l'exemplaire au stock ; retourne l'emprunt clos, ou null si rien n'a été fait
+    private static Retour retourner(Connection conn, int empruntId, LocalDate dateRetour) throws SQLException {
+        String cloreSQL = "UPDATE Emprunts SET date_retour_effective = ? WHERE id = ? AND date_retour_effective IS NULL"
+                + " RETURNING livre_id, adherent_id";
+        String incrementerSQL = "UPDATE Livres SET nb_exemplaires = nb_exemplaires + 1 WHERE id = ?";
+        Retour retour;
+        try (PreparedStatement stmt = conn.prepareStatement(cloreSQL)) {
+            MappeurLignes.lierDate(stmt, 1, dateRetour);
+            stmt.setInt(2, empruntId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                retour = new Retour(empruntId, rs.getInt("livre_id"), rs.getInt("adherent_id"));
+            }
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(incrementerSQL)) {
+            stmt.setInt(1, retour.livreId());
+            stmt.executeUpdate();
+        }
+        return retour;
     }
 
     /**
@@ -123,29 +546,27 @@ public class EmpruntDAO {
      * @throws SQLException Si une erreur survient lors de l'accès à la base de données
      */
     public List<Emprunt> getEmpruntsEnCours() throws SQLException {
-        List<Emprunt> emprunts = new ArrayList<>();
-        String sql = "SELECT * FROM Emprunts WHERE date_retour_effective IS NULL";
-        
-        try (Connection conn = Database.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                Emprunt emprunt = new Emprunt();
-                emprunt.setId(rs.getInt("id"));
-                emprunt.setLivreId(rs.getInt("livre_id"));
-                emprunt.setAdherentId(rs.getInt("adherent_id"));
-                emprunt.setDateEmprunt(rs.getDate("date_emprunt").toLocalDate());
-                emprunt.setDateRetourPrevue(rs.getDate("date_retour_prevue").toLocalDate());
-                Date dateRetourEffective = rs.getDate("date_retour_effective");
-                if (dateRetourEffective != null) {
-                    emprunt.setDateRetourEffective(dateRetourEffective.toLocalDate());
-                }
-                emprunts.add(emprunt);
-            }
+        String sql = "SELECT " + MAPPEUR.colonnes() + " FROM Emprunts WHERE date_retour_effective IS NULL";
+        try (Connection conn = Database.getConnection(METRIQUES_GET_EMPRUNTS_EN_COURS);
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return MAPPEUR.lireTout(rs);
+        }
+    }
+
+    /**
+     * Récupère tous les emprunts en cours (non retournés) en enregistrements immuables
+     * À préférer à getEmpruntsEnCours pour les calculs, qui n'ont pas besoin de propriétés JavaFX
+     * @return Une liste des emprunts en cours
+     * @throws SQLException Si une erreur survient lors de l'accès à la base de données
+     */
+    public List<EmpruntLigne> getEmpruntsEnCoursLignes() throws SQLException {
+        String sql = "SELECT " + MAPPEUR_LIGNE.colonnes() + " FROM Emprunts WHERE date_retour_effective IS NULL";
+        try (Connection conn = Database.getConnection(METRIQUES_GET_EMPRUNTS_EN_COURS_LIGNES);
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return MAPPEUR_LIGNE.lireTout(rs);
         }
-        
-        return emprunts;
     }
 
     /**
@@ -155,27 +576,14 @@ public class EmpruntDAO {
      * @throws SQLException Si une erreur survient lors de l'accès à la base de données
      */
     public Emprunt getEmpruntById(int id) throws SQLException {
-        String sql = "SELECT * FROM Emprunts WHERE id = ?";
-        try (Connection connection = Database.getConnection();
+        String sql = "SELECT " + MAPPEUR.colonnes() + " FROM Emprunts WHERE id = ?";
+        try (Connection connection = Database.getConnection(METRIQUES_GET_EMPRUNT_BY_ID);
              PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    Emprunt emprunt = new Emprunt();
-                    emprunt.setId(rs.getInt("id"));
-                    emprunt.setLivreId(rs.getInt("livre_id"));
-                    emprunt.setAdherentId(rs.getInt("adherent_id"));
-                    emprunt.setDateEmprunt(rs.getDate("date_emprunt").toLocalDate());
-                    emprunt.setDateRetourPrevue(rs.getDate("date_retour_prevue").toLocalDate());
-                    Date dateRetourEffective = rs.getDate("date_retour_effective");
-                    if (dateRetourEffective != null) {
-                        emprunt.setDateRetourEffective(dateRetourEffective.toLocalDate());
-                    }
-                    return emprunt;
-                }
+                return MAPPEUR.lirePremier(rs);
             }
         }
-        return null;
     }
 
     /**
@@ -191,38 +599,26 @@ public class EmpruntDAO {
      * @throws SQLException Si une erreur survient lors de l'accès à la base de données
      */
     public List<Emprunt> rechercherParLivreId(int livreId) throws SQLException {
-        List<Emprunt> emprunts = new ArrayList<>();
-        String sql = "SELECT * FROM Emprunts WHERE livre_id = ?";
-        try (Connection connection = Database.getConnection();
+        String sql = "SELECT " + MAPPEUR.colonnes() + " FROM Emprunts WHERE livre_id = ?";
+        try (Connection connection = Database.getConnection(METRIQUES_RECHERCHER_PAR_LIVRE_ID);
              PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, livreId);
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Emprunt emprunt = new Emprunt();
-                    emprunt.setId(rs.getInt("id"));
-                    emprunt.setLivreId(rs.getInt("livre_id"));
-                    emprunt.setAdherentId(rs.getInt("adherent_id"));
-                    
-                    Date dateEmprunt = rs.getDate("date_emprunt");
-                    if (dateEmprunt != null) {
-                        emprunt.setDateEmprunt(dateEmprunt.toLocalDate());
-                    }
-                    
-                    Date dateRetourPrevue = rs.getDate("date_retour_prevue");
-                    if (dateRetourPrevue != null) {
-                        emprunt.setDateRetourPrevue(dateRetourPrevue.toLocalDate());
-                    }
-                    
-                    Date dateRetourEffective = rs.getDate("date_retour_effective");
-                    if (dateRetourEffective != null) {
-                        emprunt.setDateRetourEffective(dateRetourEffective.toLocalDate());
-                    }
-                    
-                    emprunts.add(emprunt);
-                }
+                return MAPPEUR.lireTout(rs);
             }
         }
-        return emprunts;
+    }
+
+    /**
+     * Parcourt les emprunts d'un livre sans les charger en mémoire (voir fluxEmprunts)
+     * @param livreId L'identifiant du livre
+     * @return Le flux des emprunts du livre
+     * @throws SQLException Si la requête ne peut pas être exécutée
+     */
+    public Stream<Emprunt> fluxEmpruntsParLivreId(int livreId) throws SQLException {
+        return FluxLignes.ouvrir("EmpruntDAO.fluxEmpruntsParLivreId", MAPPEUR,
+                "SELECT " + MAPPEUR.colonnes() + " FROM Emprunts WHERE livre_id = ?",
+                stmt -> stmt.setInt(1, livreId));
     }
 
     /**
@@ -232,28 +628,112 @@ public class EmpruntDAO {
      * @throws SQLException Si une erreur survient lors de l'accès à la base de données
      */
     public List<Emprunt> rechercherParAdherentId(int adherentId) throws SQLException {
-        List<Emprunt> emprunts = new ArrayList<>();
-        String sql = "SELECT * FROM Emprunts WHERE adherent_id = ?";
-        try (Connection connection = Database.getConnection();
+        String sql = "SELECT " + MAPPEUR.colonnes() + " FROM Emprunts WHERE adherent_id = ?";
+        try (Connection connection = Database.getConnection(METRIQUES_RECHERCHER_PAR_ADHERENT_ID);
              PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, adherentId);
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Emprunt emprunt = new Emprunt();
-                    emprunt.setId(rs.getInt("id"));
-                    emprunt.setLivreId(rs.getInt("livre_id"));
-                    emprunt.setAdherentId(rs.getInt("adherent_id"));
-                    emprunt.setDateEmprunt(rs.getDate("date_emprunt").toLocalDate());
-                    emprunt.setDateRetourPrevue(rs.getDate("date_retour_prevue").toLocalDate());
-                    Date dateRetourEffective = rs.getDate("date_retour_effective");
-                    if (dateRetourEffective != null) {
-                        emprunt.setDateRetourEffective(dateRetourEffective.toLocalDate());
-                    }
-                    emprunts.add(emprunt);
-                }
+                return MAPPEUR.lireTout(rs);
+            }
+        }
+    }
+
+    /**
+     * Parcourt les emprunts d'un adhérent sans les charger en mémoire (voir fluxEmprunts)
+     * @param adherentId L'identifiant de l'adhérent
+     * @return Le flux des emprunts de l'adhérent
+     * @throws SQLException Si la requête ne peut pas être exécutée
+     */
+    public Stream<Emprunt> fluxEmpruntsParAdherentId(int adherentId) throws SQLException {
+        return FluxLignes.ouvrir("EmpruntDAO.fluxEmpruntsParAdherentId", MAPPEUR,
+                "SELECT " + MAPPEUR.colonnes() + " FROM Emprunts WHERE adherent_id = ?",
+                stmt -> stmt.setInt(1, adherentId));
+    }
+
+    /**
+     * Récupère les emprunts faits entre deux dates (bornes incluses), par date d'emprunt croissante
+     * La recherche parcourt l'index idx_emprunts_date_emprunt sur le seul intervalle demandé
+     * @param debut La première date d'emprunt retenue
+     * @param fin La dernière date d'emprunt retenue
+     * @return Les emprunts de la période
+     * @throws SQLException Si une erreur survient lors de l'accès à la base de données
+     */
+    public List<Emprunt> getEmpruntsEntre(LocalDate debut, LocalDate fin) throws SQLException {
+        verifierPeriode(debut, fin);
+        String sql = "SELECT " + MAPPEUR.colonnes() + " FROM Emprunts"
+                + " WHERE date_emprunt BETWEEN ? AND ? ORDER BY date_emprunt, id";
+        try (Connection connection = Database.getConnection(METRIQUES_GET_EMPRUNTS_ENTRE);
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            MappeurLignes.lierDate(stmt, 1, debut);
+            MappeurLignes.lierDate(stmt, 2, fin);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return MAPPEUR.lireTout(rs);
             }
         }
-        return emprunts;
+    }
+
+    /**
+     * Récupère les emprunts en cours dont le retour est prévu entre deux dates (bornes incluses)
+     * La recherche parcourt l'index partiel des emprunts en cours (idx_emprunts_en_cours)
+     * @param debut La première date de retour prévue retenue
+     * @param fin La dernière date de retour prévue retenue
+     * @return Les emprunts en cours arrivant à échéance sur la période, par date de retour prévue
+     * @throws SQLException Si une erreur survient lors de l'accès à la base de données
+     */
+    public List<Emprunt> getEmpruntsAEcheance(LocalDate debut, LocalDate fin) throws SQLException {
+        verifierPeriode(debut, fin);
+        String sql = "SELECT " + MAPPEUR.colonnes() + " FROM Emprunts"
+                + " WHERE date_retour_effective IS NULL AND date_retour_prevue BETWEEN ? AND ?"
+                + " ORDER BY date_retour_prevue, id";
+        try (Connection connection = Database.getConnection(METRIQUES_GET_EMPRUNTS_A_ECHEANCE);
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            MappeurLignes.lierDate(stmt, 1, debut);
+            MappeurLignes.lierDate(stmt, 2, fin);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return MAPPEUR.lireTout(rs);
+            }
+        }
+    }
+
+    /**
+     * Récupère les emprunts en cours dont le retour est prévu dans la semaine (du lundi au dimanche) d'un jour donné
+     * @param jour Un jour de la semaine voulue (typiquement LocalDate.now())
+     * @return Les emprunts en cours arrivant à échéance dans la semaine
+     * @throws SQLException Si une erreur survient lors de l'accès à la base de données
+     */
+    public List<Emprunt> getEmpruntsAEcheanceSemaine(LocalDate jour) throws SQLException {
+        LocalDate lundi = jour.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        return getEmpruntsAEcheance(lundi, lundi.plusDays(6));
+    }
+
+    /**
+     * Récupère les emprunts en cours dont la date de retour prévue est dépassée
+     * La recherche parcourt l'index partiel des emprunts en cours (idx_emprunts_en_cours)
+     * @param aujourdhui La date du jour
+     * @return Les emprunts en retard, du plus ancien au plus récent
+     * @throws SQLException Si une erreur survient lors de l'accès à la base de données
+     */
+    public List<Emprunt> getEmpruntsEnRetard(LocalDate aujourdhui) throws SQLException {
+        String sql = "SELECT " + MAPPEUR.colonnes() + " FROM Emprunts"
+                + " WHERE date_retour_effective IS NULL AND date_retour_prevue < ?"
+                + " ORDER BY date_retour_prevue, id";
+        try (Connection connection = Database.getConnection(METRIQUES_GET_EMPRUNTS_EN_RETARD);
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            MappeurLignes.lierDate(stmt, 1, aujourdhui);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return MAPPEUR.lireTout(rs);
+            }
+        }
+    }
+
+    // Vérifie les bornes d'une recherche par période
+    private static void verifierPeriode(LocalDate debut, LocalDate fin) {
+        if (debut == null || fin == null) {
+            throw new IllegalArgumentException("Les dates de début et de fin sont obligatoires");
+        }
+        if (fin.isBefore(debut)) {
+            throw new IllegalArgumentException("La date de fin précède la date de début");
+        }
     }
 
     /**
@@ -262,29 +742,43 @@ public class EmpruntDAO {
      * @throws SQLException Si une erreur survient lors de l'accès à la base de données
      */
     public void modifierEmprunt(Emprunt emprunt) throws SQLException {
+        // État de l'emprunt avant modification, lu sous le verrou d'écriture de l'écrivain
+        String lireSQL = "SELECT livre_id, adherent_id, date_retour_effective FROM Emprunts WHERE id = ?";
         String sql = "UPDATE Emprunts SET livre_id = ?, adherent_id = ?, date_emprunt = ?, date_retour_prevue = ?, date_retour_effective = ? WHERE id = ?";
-        try (Connection connection = Database.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(sql)) {
-            connection.setAutoCommit(false);
-            try {
-                stmt.setInt(1, emprunt.getLivreId());
-                stmt.setInt(2, emprunt.getAdherentId());
-                stmt.setDate(3, Date.valueOf(emprunt.getDateEmprunt()));
-                stmt.setDate(4, Date.valueOf(emprunt.getDateRetourPrevue()));
-                stmt.setDate(5, emprunt.getDateRetourEffective() != null ? Date.valueOf(emprunt.getDateRetourEffective()) : null);
-                stmt.setInt(6, emprunt.getId());
-                int rowsAffected = stmt.executeUpdate();
-                if (rowsAffected == 0) {
-                    throw new SQLException("Emprunt non trouvé avec l'ID: " + emprunt.getId());
+        int id = emprunt.getId();
+        int livreId = emprunt.getLivreId();
+        int adherentId = emprunt.getAdherentId();
+        LocalDate dateEmprunt = emprunt.getDateEmprunt();
+        LocalDate dateRetourPrevue = emprunt.getDateRetourPrevue();
+        LocalDate dateRetourEffective = emprunt.getDateRetourEffective();
+        Database.getEcrivain().executer(METRIQUES_MODIFIER_EMPRUNT, connection -> {
+            try (PreparedStatement lecture = connection.prepareStatement(lireSQL);
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                Retour enCours;
+                lecture.setInt(1, id);
+                try (ResultSet rs = lecture.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new SQLException("Emprunt non trouvé avec l'ID: " + id);
+                    }
+                    // Un emprunt déjà retourné n'est pas dans l'index
+                    rs.getObject("date_retour_effective");
+                    enCours = rs.wasNull() ? new Retour(id, rs.getInt("livre_id"), rs.getInt("adherent_id")) : null;
                 }
-                connection.commit();
-            } catch (SQLException e) {
-                connection.rollback();
-                throw e;
-            } finally {
-                connection.setAutoCommit(true);
+                stmt.setInt(1, livreId);
+                stmt.setInt(2, adherentId);
+                MappeurLignes.lierDate(stmt, 3, dateEmprunt);
+                MappeurLignes.lierDate(stmt, 4, dateRetourPrevue);
+                MappeurLignes.lierDate(stmt, 5, dateRetourEffective);
+                stmt.setInt(6, id);
+                stmt.executeUpdate();
+                return enCours;
             }
-        }
+        }, enCours -> {
+            retirerIndex(enCours);
+            if (dateRetourEffective == null) {
+                INDEX.enregistrer(id, livreId, adherentId);
+            }
+        });
     }
 
     /**
@@ -293,23 +787,18 @@ public class EmpruntDAO {
      * @throws SQLException Si une erreur survient lors de l'accès à la base de données
      */
     public void supprimerEmprunt(int id) throws SQLException {
-        String sql = "DELETE FROM Emprunts WHERE id = ?";
-        try (Connection connection = Database.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(sql)) {
-            connection.setAutoCommit(false);
-            try {
+        String sql = "DELETE FROM Emprunts WHERE id = ? RETURNING livre_id, adherent_id, date_retour_effective";
+        Database.getEcrivain().executer(METRIQUES_SUPPRIMER_EMPRUNT, connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
                 stmt.setInt(1, id);
-                int rowsAffected = stmt.executeUpdate();
-                if (rowsAffected == 0) {
-                    throw new SQLException("Emprunt non trouvé avec l'ID: " + id);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new SQLException("Emprunt non trouvé avec l'ID: " + id);
+                    }
+                    rs.getObject("date_retour_effective");
+                    return rs.wasNull() ? new Retour(id, rs.getInt("livre_id"), rs.getInt("adherent_id")) : null;
                 }
-                connection.commit();
-            } catch (SQLException e) {
-                connection.rollback();
-                throw e;
-            } finally {
-                connection.setAutoCommit(true);
             }
-        }
+        }, EmpruntDAO::retirerIndex);
     }
 }
\ No newline at end of file
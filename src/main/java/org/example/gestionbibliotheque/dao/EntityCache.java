@@ -0,0 +1,149 @@
+package org.example.gestionbibliotheque.dao;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cache borné d'entités indexées par identifiant, avec éviction LRU
+ * Les entités du modèle étant modifiables, le cache stocke et rend des copies :
+ * un appelant qui modifie l'objet obtenu ne peut pas altérer le contenu du cache.
+ * Une lecture dans la base ne doit pas remettre en cache une valeur qu'une écriture validée entre-temps a
+ * rendue périmée : le lecteur relève la génération de l'identifiant avant sa requête (generation) et ne
+ * l'ajoute que si aucune écriture ne l'a changée depuis (putSiInchange). Les écritures (put, invalider)
+ * sont faites dans l'action après validation de l'écrivain unique, dans l'ordre des transactions.
+ * @param <V> Le type d'entité mise en cache
+ */
+public class EntityCache<V> {
+
+    /**
+     * Instantané des compteurs du cache
+     * @param taille Le nombre d'entrées présentes
+     * @param tailleMax Le nombre maximal d'entrées
+     * @param succes Le nombre de lectures servies par le cache
+     * @param echecs Le nombre de lectures qui ont dû interroger la base
+     * @param evictions Le nombre d'entrées retirées pour respecter la taille maximale
+     */
+    public record Statistiques(int taille, int tailleMax, long succes, long echecs, long evictions) {
+        /**
+         * @return La proportion de lectures servies par le cache (entre 0 et 1)
+         */
+        public double tauxSucces() {
+            long total = succes + echecs;
+            return total == 0 ? 0 : (double) succes / total;
+        }
+    }
+
+    private final int tailleMax;
+    private final UnaryOperator<V> copie;
+    // Générations par tranche d'identifiants : une écriture sur un identifiant voisin ne fait que sauter un ajout
+    private static final int NB_TRANCHES = 256;
+
+    private final LinkedHashMap<Integer, V> entrees;
+    private final long[] generations = new long[NB_TRANCHES];
+    private long succes;
+    private long echecs;
+    private long evictions;
+
+    /**
+     * Crée un cache vide
+     * @param tailleMax Le nombre maximal d'entités conservées
+     * @param copie La fonction qui copie une entité
+     */
+    public EntityCache(int tailleMax, UnaryOperator<V> copie) {
+        if (tailleMax < 1) {
+            throw new IllegalArgumentException("La taille du cache doit être au moins 1");
+        }
+        this.tailleMax = tailleMax;
+        this.copie = copie;
+        // Ordre d'accès : l'entrée la moins récemment utilisée est en tête
+        this.entrees = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, V> eldest) {
+                if (size() > EntityCache.this.tailleMax) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Lit une entité dans le cache
+     * @param id L'identifiant de l'entité
+     * @return Une copie de l'entité, ou null si elle n'est pas en cache
+     */
+    public synchronized V get(int id) {
+        V valeur = entrees.get(id);
+        if (valeur == null) {
+            echecs++;
+            return null;
+        }
+        succes++;
+        return copie.apply(valeur);
+    }
+
+    /**
+     * Relève la génération d'un identifiant, avant de lire l'entité dans la base
+     * @param id L'identifiant de l'entité
+     * @return La génération à transmettre à putSiInchange
+     */
+    public synchronized long generation(int id) {
+        return generations[tranche(id)];
+    }
+
+    /**
+     * Ajoute une entité lue dans la base, sauf si une écriture l'a modifiée depuis le relevé de sa génération
+     * @param id L'identifiant de l'entité
+     * @param valeur L'entité lue (une copie est conservée)
+     * @param generation La génération relevée avant la lecture
+     */
+    public synchronized void putSiInchange(int id, V valeur, long generation) {
+        if (valeur != null && generations[tranche(id)] == generation) {
+            entrees.put(id, copie.apply(valeur));
+        }
+    }
+
+    /**
+     * Ajoute ou remplace une entité qui vient d'être écrite dans la base
+     * @param id L'identifiant de l'entité
+     * @param valeur L'entité (une copie est conservée)
+     */
+    public synchronized void put(int id, V valeur) {
+        generations[tranche(id)]++;
+        if (valeur != null) {
+            entrees.put(id, copie.apply(valeur));
+        }
+    }
+
+    /**
+     * Retire une entité du cache
+     * @param id L'identifiant de l'entité
+     */
+    public synchronized void invalider(int id) {
+        generations[tranche(id)]++;
+        entrees.remove(id);
+    }
+
+    /**
+     * Vide le cache
+     */
+    public synchronized void vider() {
+        for (int i = 0; i < NB_TRANCHES; i++) {
+            generations[i]++;
+        }
+        entrees.clear();
+    }
+
+    private static int tranche(int id) {
+        return id & (NB_TRANCHES - 1);
+    }
+
+    /**
+     * @return Un instantané des compteurs du cache
+     */
+    public synchronized Statistiques getStatistiques() {
+        return new Statistiques(entrees.size(), tailleMax, succes, echecs, evictions);
+    }
+}
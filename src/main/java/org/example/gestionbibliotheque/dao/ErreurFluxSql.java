@@ -0,0 +1,22 @@
+package org.example.gestionbibliotheque.dao;
+
+import java.sql.SQLException;
+
+/**
+ * Erreur SQL survenue pendant le parcours d'un flux rendu par un DAO
+ * Les opérations d'un Stream ne peuvent pas lever d'exception contrôlée : la SQLException d'origine
+ * est rendue par getCause(). La connexion du flux est déjà libérée quand cette erreur est levée.
+ */
+public final class ErreurFluxSql extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ErreurFluxSql(SQLException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
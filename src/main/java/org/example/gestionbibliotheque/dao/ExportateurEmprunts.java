@@ -0,0 +1,375 @@
+package org.example.gestionbibliotheque.dao;
+
+import org.example.gestionbibliotheque.util.LecteurCsv;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Export de l'historique des emprunts en CSV ou en JSON à un objet par ligne (NDJSON), éventuellement compressé
+ * Les lignes sont lues par un curseur en avant seulement et écrites une à une dans un tampon de 64 Ko vidé
+ * dans le fichier par un FileChannel (ou par gzip) : aucune liste d'emprunts n'est construite et la mémoire
+ * utilisée ne dépend pas de la taille de la table. Les lignes sont triées par identifiant, ou par date
+ * d'emprunt si seule une période est demandée : c'est l'ordre de l'index parcouru, aucun tri n'est nécessaire.
+ * La lecture se fait sur un instantané de la base (WAL) : les emprunts enregistrés pendant l'export n'y
+ * figurent pas. La connexion est empruntée pour un long curseur : un export plus long que
+ * bibliotheque.pool.seuilFuiteMs n'est pas signalé comme fuite par le pool. Les migrations en attente sont
+ * appliquées avant l'export.
+ *
+ * Utilisation : java -cp ... org.example.gestionbibliotheque.dao.ExportateurEmprunts --fichier historique.csv.gz
+ *               [--debut 2024-01-01] [--fin 2024-12-31] [--adherent 42] [--livre 7] [--base bibliotheque.db]
+ */
+public final class ExportateurEmprunts {
+
+    /**
+     * Format du fichier produit
+     */
+    public enum Format {
+        CSV, NDJSON;
+
+        /**
+         * Déduit le format de l'extension du fichier (.csv ou .ndjson, .jsonl, .json, suivie ou non de .gz)
+         * @param fichier Le fichier à produire
+         * @return Le format correspondant
+         */
+        public static Format depuisFichier(Path fichier) {
+            String nom = fichier.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (nom.endsWith(".gz")) {
+                nom = nom.substring(0, nom.length() - 3);
+            }
+            if (nom.endsWith(".csv")) {
+                return CSV;
+            }
+            if (nom.endsWith(".ndjson") || nom.endsWith(".jsonl") || nom.endsWith(".json")) {
+                return NDJSON;
+            }
+            throw new IllegalArgumentException("Format de fichier non reconnu (.csv, .ndjson, .jsonl ou .json) : " + fichier);
+        }
+    }
+
+    /**
+     * Sélection des emprunts exportés ; un critère null n'est pas appliqué
+     * @param debut La première date d'emprunt incluse
+     * @param fin La dernière date d'emprunt incluse
+     * @param adherentId L'adhérent dont les emprunts sont exportés
+     * @param livreId Le livre dont les emprunts sont exportés
+     */
+    public record Filtre(LocalDate debut, LocalDate fin, Integer adherentId, Integer livreId) {
+        public Filtre {
+            if (debut != null && fin != null && fin.isBefore(debut)) {
+                throw new IllegalArgumentException("La date de fin précède la date de début");
+            }
+        }
+
+        /**
+         * @return Un filtre qui exporte tout l'historique
+         */
+        public static Filtre tous() {
+            return new Filtre(null, null, null, null);
+        }
+
+        // Seule une période sans autre critère passe par idx_emprunts_date_emprunt ; sinon l'index
+        // de l'adhérent ou du livre rend les lignes dans l'ordre des identifiants
+        private boolean triParDate() {
+            return (debut != null || fin != null) && adherentId == null && livreId == null;
+        }
+    }
+
+    /**
+     * Résumé d'un export
+     * @param lignes Le nombre d'emprunts exportés
+     * @param octets La taille du fichier produit
+     * @param dureeMs La durée de l'export
+     */
+    public record Bilan(long lignes, long octets, long dureeMs) {
+    }
+
+    private static final String[] COLONNES = {
+            "id", "livre_id", "titre", "adherent_id", "nom_adherent",
+            "date_emprunt", "date_retour_prevue", "date_retour_effective"
+    };
+
+    private static final int TAILLE_TAMPON = 64 * 1024;
+
+    private final Format format;
+    private final boolean gzip;
+    private final int tailleFetch;
+
+    /**
+     * @param format Le format du fichier
+     * @param gzip true pour compresser le fichier
+     * @param tailleFetch Le nombre de lignes demandées au pilote à chaque aller-retour du curseur
+     */
+    public ExportateurEmprunts(Format format, boolean gzip, int tailleFetch) {
+        if (tailleFetch < 1) {
+            throw new IllegalArgumentException("La taille de fetch doit être positive");
+        }
+        this.format = format;
+        this.gzip = gzip;
+        this.tailleFetch = tailleFetch;
+    }
+
+    /**
+     * Exporte les emprunts sélectionnés
+     * @param filtre Les critères de sélection
+     * @param destination Le fichier à produire (remplacé s'il existe)
+     * @return Le nombre de lignes et d'octets écrits
+     * @throws IOException Si l'écriture du fichier échoue
+     * @throws SQLException Si la lecture des emprunts échoue
+     */
+    public Bilan exporter(Filtre filtre, Path destination) throws IOException, SQLException {
+        long debut = System.nanoTime();
+        List<Object> parametres = new ArrayList<>();
+        String sql = requete(filtre, parametres);
+        long lignes = 0;
+        long octets;
+        try (FileChannel canal = FileChannel.open(destination, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             Sortie sortie = new Sortie(canal, gzip);
+             Connection conn = Database.getConnectionCurseur();
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(tailleFetch);
+            for (int i = 0; i < parametres.size(); i++) {
+                if (parametres.get(i) instanceof LocalDate date) {
+                    MappeurLignes.lierDate(stmt, i + 1, date);
+                } else {
+                    stmt.setInt(i + 1, (Integer) parametres.get(i));
+                }
+            }
+            StringBuilder ligne = new StringBuilder(256);
+            if (format == Format.CSV) {
+                sortie.ecrire(ligne.append(String.join(";", COLONNES)).append('\n'));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ligne.setLength(0);
+                    if (format == Format.CSV) {
+                        ligneCsv(rs, ligne);
+                    } else {
+                        ligneJson(rs, ligne);
+                    }
+                    sortie.ecrire(ligne.append('\n'));
+                    lignes++;
+                }
+            }
+            sortie.terminer();
+            octets = canal.size();
+        }
+        long duree = System.nanoTime() - debut;
+        Metriques.operation(Metriques.CATEGORIE_DAO, "ExportateurEmprunts.exporter").enregistrer(duree, lignes);
+        return new Bilan(lignes, octets, duree / 1_000_000);
+    }
+
+    // Requête de l'export ; les valeurs des critères sont ajoutées à parametres dans l'ordre des ?
+    private static String requete(Filtre filtre, List<Object> parametres) {
+        StringBuilder sql = new StringBuilder("SELECT e.id, e.livre_id, l.titre, e.adherent_id, a.nom,"
+                + " e.date_emprunt, e.date_retour_prevue, e.date_retour_effective"
+                + " FROM Emprunts e"
+                + " LEFT JOIN Livres l ON l.id = e.livre_id"
+                + " LEFT JOIN Adherents a ON a.id = e.adherent_id");
+        List<String> conditions = new ArrayList<>();
+        if (filtre.debut() != null) {
+            conditions.add("e.date_emprunt >= ?");
+            parametres.add(filtre.debut());
+        }
+        if (filtre.fin() != null) {
+            conditions.add("e.date_emprunt <= ?");
+            parametres.add(filtre.fin());
+        }
+        if (filtre.adherentId() != null) {
+            conditions.add("e.adherent_id = ?");
+            parametres.add(filtre.adherentId());
+        }
+        if (filtre.livreId() != null) {
+            conditions.add("e.livre_id = ?");
+            parametres.add(filtre.livreId());
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        // Ordre de l'index parcouru (ou de la table) : les lignes sortent sans tri préalable
+        sql.append(filtre.triParDate() ? " ORDER BY e.date_emprunt, e.id" : " ORDER BY e.id");
+        return sql.toString();
+    }
+
+    private static void ligneCsv(ResultSet rs, StringBuilder ligne) throws SQLException {
+        ligne.append(rs.getInt(1)).append(';')
+                .append(rs.getInt(2)).append(';')
+                .append(LecteurCsv.proteger(rs.getString(3))).append(';')
+                .append(rs.getInt(4)).append(';')
+                .append(LecteurCsv.proteger(rs.getString(5))).append(';');
+        date(rs, 6, ligne);
+        ligne.append(';');
+        date(rs, 7, ligne);
+        ligne.append(';');
+        date(rs, 8, ligne);
+    }
+
+    private static void ligneJson(ResultSet rs, StringBuilder ligne) throws SQLException {
+        ligne.append("{\"id\":").append(rs.getInt(1))
+                .append(",\"livre_id\":").append(rs.getInt(2))
+                .append(",\"titre\":");
+        chaineJson(rs.getString(3), ligne);
+        ligne.append(",\"adherent_id\":").append(rs.getInt(4)).append(",\"nom_adherent\":");
+        chaineJson(rs.getString(5), ligne);
+        for (int colonne = 6; colonne <= 8; colonne++) {
+            ligne.append(",\"").append(COLONNES[colonne - 1]).append("\":");
+            if (MappeurLignes.lireDate(rs, colonne) == null) {
+                ligne.append("null");
+            } else {
+                ligne.append('"');
+                date(rs, colonne, ligne);
+                ligne.append('"');
+            }
+        }
+        ligne.append('}');
+    }
+
+    // Date au format ISO (AAAA-MM-JJ), rien si elle est absente
+    private static void date(ResultSet rs, int colonne, StringBuilder ligne) throws SQLException {
+        LocalDate date = MappeurLignes.lireDate(rs, colonne);
+        if (date != null) {
+            ligne.append(date);
+        }
+    }
+
+    private static void chaineJson(String valeur, StringBuilder ligne) {
+        if (valeur == null) {
+            ligne.append("null");
+            return;
+        }
+        ligne.append('"');
+        for (int i = 0; i < valeur.length(); i++) {
+            char c = valeur.charAt(i);
+            switch (c) {
+                case '"' -> ligne.append("\\\"");
+                case '\\' -> ligne.append("\\\\");
+                case '\n' -> ligne.append("\\n");
+                case '\r' -> ligne.append("\\r");
+                case '\t' -> ligne.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        ligne.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        ligne.append(c);
+                    }
+                }
+            }
+        }
+        ligne.append('"');
+    }
+
+    // Encodage UTF-8 dans un tampon réutilisé, vidé dans le canal (ou dans gzip) quand il est plein
+    private static final class Sortie implements AutoCloseable {
+        private final FileChannel canal;
+        private final OutputStream compression;
+        private final CharsetEncoder encodeur = StandardCharsets.UTF_8.newEncoder();
+        private final ByteBuffer tampon = ByteBuffer.allocate(TAILLE_TAMPON);
+
+        Sortie(FileChannel canal, boolean gzip) throws IOException {
+            this.canal = canal;
+            this.compression = gzip ? new GZIPOutputStream(Channels.newOutputStream(canal), TAILLE_TAMPON) : null;
+        }
+
+        void ecrire(CharSequence texte) throws IOException {
+            CharBuffer caracteres = CharBuffer.wrap(texte);
+            while (true) {
+                CoderResult resultat = encodeur.encode(caracteres, tampon, false);
+                if (resultat.isOverflow()) {
+                    vider();
+                } else if (resultat.isError()) {
+                    resultat.throwException();
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void vider() throws IOException {
+            tampon.flip();
+            if (compression != null) {
+                compression.write(tampon.array(), tampon.arrayOffset() + tampon.position(), tampon.remaining());
+            } else {
+                while (tampon.hasRemaining()) {
+                    canal.write(tampon);
+                }
+            }
+            tampon.clear();
+        }
+
+        // Écrit la fin du tampon et termine le flux gzip, pour que la taille du canal soit la taille finale
+        void terminer() throws IOException {
+            vider();
+            if (compression != null) {
+                ((GZIPOutputStream) compression).finish();
+                compression.flush();
+            }
+        }
+
+        // Libère le compresseur ; la fermeture du canal est sans effet s'il est déjà fermé
+        @Override
+        public void close() throws IOException {
+            if (compression != null) {
+                compression.close();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException, SQLException {
+        Path fichier = null;
+        LocalDate debut = null;
+        LocalDate fin = null;
+        Integer adherentId = null;
+        Integer livreId = null;
+        String base = null;
+        int tailleFetch = 1_000;
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Valeur manquante pour l'option " + args[i]);
+            }
+            String valeur = args[i + 1];
+            switch (args[i]) {
+                case "--fichier" -> fichier = Path.of(valeur);
+                case "--debut" -> debut = LocalDate.parse(valeur);
+                case "--fin" -> fin = LocalDate.parse(valeur);
+                case "--adherent" -> adherentId = Integer.parseInt(valeur);
+                case "--livre" -> livreId = Integer.parseInt(valeur);
+                case "--base" -> base = valeur;
+                case "--fetch" -> tailleFetch = Integer.parseInt(valeur);
+                default -> throw new IllegalArgumentException("Option inconnue : " + args[i]);
+            }
+        }
+        if (fichier == null) {
+            throw new IllegalArgumentException("L'option --fichier est obligatoire");
+        }
+
+        if (base != null) {
+            Database.configurerUrl("jdbc:sqlite:" + base);
+        }
+        Database.initDatabase();
+        boolean gzip = fichier.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz");
+        ExportateurEmprunts exportateur = new ExportateurEmprunts(Format.depuisFichier(fichier), gzip, tailleFetch);
+        Bilan bilan = exportateur.exporter(new Filtre(debut, fin, adherentId, livreId), fichier);
+        Database.fermer();
+        System.out.println("Export " + fichier + " terminé en " + bilan.dureeMs() / 1000.0 + " s : " + bilan.lignes()
+                + " emprunt(s), " + bilan.octets() / 1024 + " Ko");
+    }
+}
@@ -0,0 +1,151 @@
+package org.example.gestionbibliotheque.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Flux d'objets du modèle lus à la demande sur un curseur ouvert
+ * Chaque élément n'est lu dans la base que lorsque le Stream le réclame : un traitement qui s'arrête
+ * tôt (findFirst, limit, anyMatch) ne lit pas le reste de la table, et la mémoire utilisée ne dépend
+ * pas du nombre de lignes. La connexion est rendue au pool à la fermeture du Stream ou dès que la
+ * dernière ligne est lue. Un flux peut rester ouvert plus longtemps que bibliotheque.pool.seuilFuiteMs
+ * sans être signalé comme fuite : un flux abandonné sans être fermé ni épuisé garde donc sa connexion
+ * sans avertissement. La durée mesurée va de l'ouverture à la fermeture du flux,
+ * traitement de l'appelant compris.
+ */
+final class FluxLignes {
+
+    /**
+     * Lignes demandées au pilote à chaque aller-retour du curseur (simple indication pour sqlite-jdbc,
+     * qui lit de toute façon les lignes une à une)
+     */
+    private static final int TAILLE_FETCH = 1_000;
+
+    /**
+     * Liaison des paramètres de la requête
+     */
+    @FunctionalInterface
+    interface Parametres {
+        void lier(PreparedStatement stmt) throws SQLException;
+    }
+
+    private FluxLignes() {
+    }
+
+    /**
+     * Exécute la requête et rend ses lignes en flux
+     * @param nom Le nom de l'opération mesurée (Classe.methode)
+     * @param mappeur La lecture des lignes
+     * @param sql La requête, dont les colonnes sont celles du mappeur
+     * @param parametres La liaison des paramètres de la requête
+     * @return Le flux, à fermer par try-with-resources s'il n'est pas lu jusqu'au bout
+     * @throws SQLException Si la requête ne peut pas être exécutée ; aucune connexion n'est alors retenue
+     */
+    static <T> Stream<T> ouvrir(String nom, MappeurLignes<T> mappeur, String sql, Parametres parametres)
+            throws SQLException {
+        MetriquesOperation metriques = Metriques.operation(Metriques.CATEGORIE_DAO, nom);
+        long debut = System.nanoTime();
+        Connection conn = Database.getConnectionCurseur();
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(TAILLE_FETCH);
+            parametres.lier(stmt);
+            rs = stmt.executeQuery();
+            Curseur<T> curseur = new Curseur<>(metriques, debut, conn, stmt, rs, mappeur.lecture(rs));
+            return StreamSupport.stream(curseur, false).onClose(curseur::fermer);
+        } catch (SQLException | RuntimeException e) {
+            try {
+                fermer(rs, stmt, conn);
+            } catch (SQLException f) {
+                e.addSuppressed(f);
+            }
+            metriques.enregistrerErreur(System.nanoTime() - debut);
+            throw e;
+        }
+    }
+
+    // Ferme le résultat, la requête puis rend la connexion, même si une fermeture échoue
+    private static void fermer(ResultSet rs, PreparedStatement stmt, Connection conn) throws SQLException {
+        try (conn; stmt; rs) {
+            // Fermeture seule, dans l'ordre inverse de la déclaration
+        }
+    }
+
+    private static final class Curseur<T> extends Spliterators.AbstractSpliterator<T> {
+        private final MetriquesOperation metriques;
+        private final long debut;
+        private final Connection conn;
+        private final PreparedStatement stmt;
+        private final ResultSet rs;
+        private final MappeurLignes.Lecture<T> lecture;
+        private long lignes;
+        private boolean erreur;
+        private boolean ferme;
+
+        Curseur(MetriquesOperation metriques, long debut, Connection conn, PreparedStatement stmt, ResultSet rs,
+                MappeurLignes.Lecture<T> lecture) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.metriques = metriques;
+            this.debut = debut;
+            this.conn = conn;
+            this.stmt = stmt;
+            this.rs = rs;
+            this.lecture = lecture;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (ferme) {
+                return false;
+            }
+            T objet;
+            try {
+                if (!rs.next()) {
+                    fermer();
+                    return false;
+                }
+                objet = lecture.ligneCourante();
+            } catch (SQLException e) {
+                erreur = true;
+                try {
+                    fermer();
+                } catch (ErreurFluxSql f) {
+                    e.addSuppressed(f.getCause());
+                }
+                throw new ErreurFluxSql(e);
+            }
+            lignes++;
+            action.accept(objet);
+            return true;
+        }
+
+        // Appelée à la fermeture du Stream et à la fin du résultat ; sans effet la seconde fois
+        void fermer() {
+            if (ferme) {
+                return;
+            }
+            ferme = true;
+            long duree = System.nanoTime() - debut;
+            try {
+                FluxLignes.fermer(rs, stmt, conn);
+            } catch (SQLException e) {
+                metriques.enregistrerErreur(duree);
+                throw new ErreurFluxSql(e);
+            }
+            if (erreur) {
+                metriques.enregistrerErreur(duree);
+            } else {
+                metriques.enregistrer(duree, lignes);
+            }
+        }
+    }
+}
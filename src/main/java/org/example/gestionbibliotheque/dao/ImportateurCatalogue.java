@@ -0,0 +1,408 @@
+package org.example.gestionbibliotheque.dao;
+
+import org.example.gestionbibliotheque.util.LecteurCsv;
+import org.example.gestionbibliotheque.util.LecteurEnregistrements;
+import org.example.gestionbibliotheque.util.LecteurEnregistrements.Enregistrement;
+import org.example.gestionbibliotheque.util.LecteurJsonLignes;
+import org.example.gestionbibliotheque.util.ValidationUtil;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Import en masse de livres ou d'adhérents depuis un fichier CSV ou JSON (un objet par ligne)
+ * Le fichier est lu en flux par lots de tailleLot enregistrements ; chaque lot est validé (ValidationUtil)
+ * par un pool de threads pendant la lecture des suivants, puis inséré par lots JDBC en une seule écriture
+ * de l'écrivain unique, donc en une transaction. Au plus lotsEnVol lots sont en validation et autant en
+ * écriture : la mémoire utilisée ne dépend pas de la taille du fichier.
+ * Les enregistrements refusés (illisibles, invalides ou dont l'email est déjà utilisé) sont écrits dans
+ * un fichier CSV de rejets avec leur numéro de ligne et le motif du refus.
+ *
+ * Utilisation : java -cp ... org.example.gestionbibliotheque.dao.ImportateurCatalogue
+ *               --type livres --fichier catalogue.csv [--rejets catalogue.rejets.csv] [--base bibliotheque.db]
+ */
+public final class ImportateurCatalogue {
+
+    /**
+     * Table alimentée par l'import, avec les colonnes lues dans le fichier
+     */
+    public enum Cible {
+        LIVRES("INSERT INTO Livres (titre, auteur, nb_exemplaires) VALUES (?, ?, ?)",
+                "titre", "auteur", "nb_exemplaires"),
+        // Un email déjà présent (dans la base ou plus haut dans le fichier) est rejeté sans interrompre le lot
+        ADHERENTS("INSERT INTO Adherents (nom, prenom, email, telephone) VALUES (?, ?, ?, ?) ON CONFLICT (email) DO NOTHING",
+                "nom", "prenom", "email", "telephone");
+
+        private final String sql;
+        private final String[] colonnes;
+
+        Cible(String sql, String... colonnes) {
+            this.sql = sql;
+            this.colonnes = colonnes;
+        }
+
+        /**
+         * @return Les colonnes (CSV) ou clés (JSON) lues pour chaque enregistrement
+         */
+        public String[] getColonnes() {
+            return colonnes.clone();
+        }
+
+        // Motif du refus d'un enregistrement, ou null s'il est valide
+        private String motifRejet(String[] v) {
+            for (int i = 0; i < colonnes.length; i++) {
+                if (v[i] == null || v[i].isEmpty()) {
+                    return "La valeur de " + colonnes[i] + " est manquante.";
+                }
+            }
+            if (this == LIVRES) {
+                if (!ValidationUtil.estTitreValide(v[0])) {
+                    return "Le titre du livre n'est pas valide. Il ne doit pas contenir de symboles spéciaux.";
+                }
+                if (!ValidationUtil.estNomValide(v[1])) {
+                    return "Le nom de l'auteur n'est pas valide. Il doit contenir uniquement des lettres et des espaces.";
+                }
+                int nbExemplaires;
+                try {
+                    nbExemplaires = Integer.parseInt(v[2]);
+                } catch (NumberFormatException e) {
+                    return "Le nombre d'exemplaires doit être un nombre entier.";
+                }
+                if (!ValidationUtil.estNombreExemplairesValide(nbExemplaires)) {
+                    return "Le nombre d'exemplaires doit être un nombre positif.";
+                }
+                return null;
+            }
+            if (!ValidationUtil.estNomValide(v[0])) {
+                return "Le nom de l'adhérent n'est pas valide. Il doit contenir uniquement des lettres et des espaces.";
+            }
+            if (!ValidationUtil.estNomValide(v[1])) {
+                return "Le prénom de l'adhérent n'est pas valide. Il doit contenir uniquement des lettres et des espaces.";
+            }
+            if (!ValidationUtil.estEmailValide(v[2])) {
+                return "L'email n'est pas valide. Veuillez saisir un email au format correct.";
+            }
+            if (!ValidationUtil.estTelephoneValide(v[3])) {
+                return "Le numéro de téléphone n'est pas valide. Il doit contenir exactement 8 chiffres.";
+            }
+            return null;
+        }
+
+        private void lier(PreparedStatement stmt, String[] v) throws SQLException {
+            if (this == LIVRES) {
+                stmt.setString(1, v[0]);
+                stmt.setString(2, v[1]);
+                stmt.setInt(3, Integer.parseInt(v[2]));
+            } else {
+                for (int i = 0; i < v.length; i++) {
+                    stmt.setString(i + 1, v[i]);
+                }
+            }
+        }
+
+        // Motif d'une ligne valide que la base n'a pas insérée (seule cause : la clause ON CONFLICT)
+        private String motifIgnore() {
+            return "L'email est déjà utilisé par un autre adhérent.";
+        }
+    }
+
+    /**
+     * Réglages de l'import
+     * @param tailleLot Le nombre d'enregistrements par lot (validation et transaction)
+     * @param threadsValidation Le nombre de threads qui valident les lots
+     * @param lotsEnVol Le nombre maximal de lots en validation, et de lots en écriture
+     * @param intervalleProgressionMs L'intervalle entre deux rapports de progression
+     */
+    public record Parametres(int tailleLot, int threadsValidation, int lotsEnVol, long intervalleProgressionMs) {
+        public Parametres {
+            if (tailleLot < 1 || threadsValidation < 1 || lotsEnVol < 1) {
+                throw new IllegalArgumentException("La taille des lots, le nombre de threads et de lots en vol doivent être positifs");
+            }
+        }
+
+        /**
+         * Lots de 10 000 enregistrements, un thread de validation par processeur
+         */
+        public static Parametres parDefaut() {
+            int processeurs = Runtime.getRuntime().availableProcessors();
+            return new Parametres(10_000, processeurs, processeurs + 1, 1_000);
+        }
+    }
+
+    /**
+     * Avancement de l'import, rapporté pendant son exécution
+     * @param lues Le nombre d'enregistrements lus
+     * @param importees Le nombre d'enregistrements insérés (transactions validées)
+     * @param rejetees Le nombre d'enregistrements refusés
+     * @param ecouleMs La durée écoulée depuis le début de l'import
+     */
+    public record Progression(long lues, long importees, long rejetees, long ecouleMs) {
+        /**
+         * @return Le débit de lecture depuis le début de l'import
+         */
+        public double lignesParSeconde() {
+            return ecouleMs == 0 ? 0 : lues * 1000.0 / ecouleMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d lues, %d importées, %d rejetées (%.0f lignes/s)",
+                    lues, importees, rejetees, lignesParSeconde());
+        }
+    }
+
+    // Lot validé : lignes à insérer et rejets de la validation
+    private record LotValide(List<Enregistrement> valides, List<Enregistrement> rejets, List<String> motifs) {
+    }
+
+    // Lot en cours d'insertion par l'écrivain
+    private record Insertion(List<Enregistrement> valides, CompletableFuture<int[]> resultat) {
+    }
+
+    private final Cible cible;
+    private final Parametres parametres;
+    private long lues;
+    private long importees;
+    private long rejetees;
+
+    /**
+     * @param cible La table à alimenter
+     * @param parametres Les réglages des lots
+     */
+    public ImportateurCatalogue(Cible cible, Parametres parametres) {
+        this.cible = cible;
+        this.parametres = parametres;
+    }
+
+    /**
+     * Importe un fichier ; son format est déduit de son extension (.csv, ou .json, .jsonl, .ndjson)
+     * Les lots déjà insérés restent en base si l'import est interrompu par une erreur.
+     * @param source Le fichier à importer, en UTF-8
+     * @param fichierRejets Le fichier CSV où écrire les enregistrements refusés (remplacé s'il existe)
+     * @param suivi Reçoit l'avancement à intervalle régulier, puis une dernière fois à la fin (peut être null)
+     * @return L'avancement final
+     * @throws IOException Si la lecture du fichier ou l'écriture des rejets échoue
+     * @throws SQLException Si une insertion échoue pour tout un lot (base verrouillée, disque plein...)
+     */
+    public Progression importer(Path source, Path fichierRejets, Consumer<Progression> suivi) throws IOException, SQLException {
+        long debut = System.nanoTime();
+        lues = 0;
+        importees = 0;
+        rejetees = 0;
+        AtomicInteger compteur = new AtomicInteger();
+        ExecutorService validation = Executors.newFixedThreadPool(parametres.threadsValidation(), r -> {
+            Thread thread = new Thread(r, "bibliotheque-import-" + compteur.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (LecteurEnregistrements lecteur = ouvrir(source);
+             BufferedWriter rejets = Files.newBufferedWriter(fichierRejets, StandardCharsets.UTF_8)) {
+            rejets.write("ligne;motif;enregistrement");
+            rejets.newLine();
+            Deque<Future<LotValide>> enValidation = new ArrayDeque<>();
+            Deque<Insertion> enEcriture = new ArrayDeque<>();
+            long prochainRapport = debut + parametres.intervalleProgressionMs() * 1_000_000;
+            List<Enregistrement> lot;
+            while (!(lot = lireLot(lecteur)).isEmpty()) {
+                lues += lot.size();
+                List<Enregistrement> aValider = lot;
+                enValidation.add(validation.submit(() -> valider(aValider)));
+                if (enValidation.size() >= parametres.lotsEnVol()) {
+                    ecrire(attendre(enValidation.poll()), enEcriture, rejets);
+                }
+                while (enEcriture.size() >= parametres.lotsEnVol()
+                        || (!enEcriture.isEmpty() && enEcriture.peek().resultat().isDone())) {
+                    terminer(enEcriture.poll(), rejets);
+                }
+                if (suivi != null && System.nanoTime() >= prochainRapport) {
+                    suivi.accept(progression(debut));
+                    prochainRapport = System.nanoTime() + parametres.intervalleProgressionMs() * 1_000_000;
+                }
+            }
+            while (!enValidation.isEmpty()) {
+                ecrire(attendre(enValidation.poll()), enEcriture, rejets);
+            }
+            while (!enEcriture.isEmpty()) {
+                terminer(enEcriture.poll(), rejets);
+            }
+        } finally {
+            validation.shutdownNow();
+        }
+        Progression fin = progression(debut);
+        if (suivi != null) {
+            suivi.accept(fin);
+        }
+        return fin;
+    }
+
+    private LecteurEnregistrements ouvrir(Path source) throws IOException {
+        String nom = source.getFileName().toString().toLowerCase(Locale.ROOT);
+        BufferedReader lecteur = Files.newBufferedReader(source, StandardCharsets.UTF_8);
+        try {
+            if (nom.endsWith(".csv")) {
+                return new LecteurCsv(lecteur, cible.colonnes);
+            }
+            if (nom.endsWith(".json") || nom.endsWith(".jsonl") || nom.endsWith(".ndjson")) {
+                return new LecteurJsonLignes(lecteur, cible.colonnes);
+            }
+        } catch (IOException e) {
+            lecteur.close();
+            throw e;
+        }
+        lecteur.close();
+        throw new IllegalArgumentException("Format de fichier non reconnu (.csv, .json, .jsonl ou .ndjson) : " + source);
+    }
+
+    private List<Enregistrement> lireLot(LecteurEnregistrements lecteur) throws IOException {
+        List<Enregistrement> lot = new ArrayList<>(parametres.tailleLot());
+        Enregistrement enregistrement;
+        while (lot.size() < parametres.tailleLot() && (enregistrement = lecteur.lire()) != null) {
+            lot.add(enregistrement);
+        }
+        return lot;
+    }
+
+    // Exécuté par les threads de validation
+    private LotValide valider(List<Enregistrement> lot) {
+        List<Enregistrement> valides = new ArrayList<>(lot.size());
+        List<Enregistrement> refuses = new ArrayList<>();
+        List<String> motifs = new ArrayList<>();
+        for (Enregistrement enregistrement : lot) {
+            String motif = enregistrement.erreur() != null ? enregistrement.erreur() : cible.motifRejet(enregistrement.valeurs());
+            if (motif == null) {
+                valides.add(enregistrement);
+            } else {
+                refuses.add(enregistrement);
+                motifs.add(motif);
+            }
+        }
+        return new LotValide(valides, refuses, motifs);
+    }
+
+    private static LotValide attendre(Future<LotValide> validation) throws IOException {
+        try {
+            return validation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrompu", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Erreur inattendue pendant la validation", e.getCause());
+        }
+    }
+
+    // Écrit les rejets de la validation et confie les lignes valides à l'écrivain
+    private void ecrire(LotValide lot, Deque<Insertion> enEcriture, BufferedWriter rejets) throws IOException {
+        for (int i = 0; i < lot.rejets().size(); i++) {
+            rejeter(rejets, lot.rejets().get(i), lot.motifs().get(i));
+        }
+        if (lot.valides().isEmpty()) {
+            return;
+        }
+        List<Enregistrement> valides = lot.valides();
+        enEcriture.add(new Insertion(valides, Database.getEcrivain().soumettre(connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(cible.sql)) {
+                for (Enregistrement enregistrement : valides) {
+                    cible.lier(stmt, enregistrement.valeurs());
+                    stmt.addBatch();
+                }
+                return stmt.executeBatch();
+            }
+        })));
+    }
+
+    // Attend la validation d'un lot par l'écrivain ; les lignes écartées par la base sont rejetées
+    private void terminer(Insertion insertion, BufferedWriter rejets) throws IOException, SQLException {
+        int[] resultats;
+        try {
+            resultats = insertion.resultat().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrompu", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw new SQLException("Import interrompu après " + importees + " enregistrement(s) importé(s) : "
+                        + sqlException.getMessage(), sqlException);
+            }
+            throw new IllegalStateException("Erreur inattendue pendant l'insertion", e.getCause());
+        }
+        for (int i = 0; i < resultats.length; i++) {
+            if (resultats[i] == 0) {
+                rejeter(rejets, insertion.valides().get(i), cible.motifIgnore());
+            } else {
+                importees++;
+            }
+        }
+    }
+
+    private void rejeter(BufferedWriter rejets, Enregistrement enregistrement, String motif) throws IOException {
+        rejetees++;
+        rejets.write(enregistrement.ligne() + ";" + LecteurCsv.proteger(motif) + ";" + LecteurCsv.proteger(enregistrement.brut()));
+        rejets.newLine();
+    }
+
+    private Progression progression(long debut) {
+        return new Progression(lues, importees, rejetees, (System.nanoTime() - debut) / 1_000_000);
+    }
+
+    public static void main(String[] args) throws IOException, SQLException {
+        Cible cible = null;
+        Path fichier = null;
+        Path fichierRejets = null;
+        String base = null;
+        Parametres defaut = Parametres.parDefaut();
+        int tailleLot = defaut.tailleLot();
+        int threads = defaut.threadsValidation();
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Valeur manquante pour l'option " + args[i]);
+            }
+            String valeur = args[i + 1];
+            switch (args[i]) {
+                case "--type" -> cible = Cible.valueOf(valeur.toUpperCase(Locale.ROOT));
+                case "--fichier" -> fichier = Path.of(valeur);
+                case "--rejets" -> fichierRejets = Path.of(valeur);
+                case "--base" -> base = valeur;
+                case "--lot" -> tailleLot = Integer.parseInt(valeur);
+                case "--threads" -> threads = Integer.parseInt(valeur);
+                default -> throw new IllegalArgumentException("Option inconnue : " + args[i]);
+            }
+        }
+        if (cible == null || fichier == null) {
+            throw new IllegalArgumentException("Les options --type (livres ou adherents) et --fichier sont obligatoires");
+        }
+        if (fichierRejets == null) {
+            String nom = fichier.getFileName().toString();
+            int point = nom.lastIndexOf('.');
+            fichierRejets = fichier.resolveSibling((point > 0 ? nom.substring(0, point) : nom) + ".rejets.csv");
+        }
+
+        if (base != null) {
+            Database.configurerUrl("jdbc:sqlite:" + base);
+        }
+        Database.initDatabase();
+        ImportateurCatalogue importateur = new ImportateurCatalogue(cible, new Parametres(tailleLot, threads, threads + 1,
+                defaut.intervalleProgressionMs()));
+        Progression fin = importateur.importer(fichier, fichierRejets, progression -> System.out.println(progression));
+        Database.fermer();
+        System.out.println("Import de " + fichier + " terminé en " + fin.ecouleMs() / 1000.0 + " s : " + fin.importees()
+                + " importé(s), " + fin.rejetees() + " rejeté(s)" + (fin.rejetees() > 0 ? " (voir " + fichierRejets + ")" : ""));
+    }
+}
@@ -0,0 +1,194 @@
+package org.example.gestionbibliotheque.dao;
+
+import org.example.gestionbibliotheque.util.ListesEntieres;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Index en mémoire des emprunts en cours, par livre et par adhérent
+ * Les identifiants des emprunts en cours sont rangés dans deux tables d'entiers à adressage ouvert
+ * (ListesEntieres), l'une par livre, l'autre par adhérent : ni Integer ni objet par emprunt.
+ * L'index est chargé depuis la base puis tenu à jour par les écritures d'EmpruntDAO, dans leur action après
+ * validation (EcrivainUnique) : les mises à jour sont appliquées par le thread de l'écrivain dans l'ordre où
+ * les transactions ont été validées ; les écritures fournissent le livre et l'adhérent de l'emprunt modifié.
+ *
+ * L'index ne vaut que pour un seul processus : il ne voit que les écritures de ce processus. Activé avec
+ * -Dbibliotheque.indexEmprunts=true, il verrouille le fichier base.index-emprunts.lock à côté de la base ;
+ * un second processus qui l'active sur la même base ne le charge pas et interroge la base. Les processus
+ * qui ne l'activent pas (import, outil SQL, autre poste) ne sont pas bloqués : une écriture faite hors de
+ * ce processus impose un rechargement (EmpruntDAO.chargerIndex).
+ * Tant qu'il n'est pas chargé, l'index est inactif et les DAOs interrogent la base.
+ */
+public final class IndexEmprunts {
+
+    /**
+     * Instantané de l'index
+     * @param actif true si l'index est chargé et répond aux lectures
+     * @param empruntsEnCours Le nombre d'emprunts en cours indexés
+     * @param livres Le nombre de livres ayant au moins un emprunt en cours
+     * @param adherents Le nombre d'adhérents ayant au moins un emprunt en cours
+     * @param octets La mémoire occupée estimée
+     * @param chargementMs La durée du dernier chargement
+     */
+    public record Statistiques(boolean actif, int empruntsEnCours, int livres, int adherents, long octets,
+                               long chargementMs) {
+    }
+
+    // Lecture des emprunts en cours au chargement
+    private static final String SQL_CHARGEMENT =
+            "SELECT id, livre_id, adherent_id FROM Emprunts WHERE date_retour_effective IS NULL";
+
+    private final ListesEntieres parLivre = new ListesEntieres(1024);
+    private final ListesEntieres parAdherent = new ListesEntieres(1024);
+    private volatile boolean actif;
+    private long chargementMs;
+    // Verrou du fichier base.index-emprunts.lock, tenu tant que l'index est chargé
+    private FileChannel fichierVerrou;
+
+    /**
+     * @return true si l'index est chargé et répond aux lectures
+     */
+    public boolean estActif() {
+        return actif;
+    }
+
+    /**
+     * Charge les emprunts en cours depuis la base et active l'index
+     * L'index reste inactif si un autre processus le tient déjà sur la même base
+     * @param connection La connexion utilisée pour la lecture
+     */
+    synchronized void charger(Connection connection) throws SQLException {
+        long debut = System.nanoTime();
+        vider();
+        if (!verrouiller(connection)) {
+            System.err.println("Index des emprunts non chargé : il est déjà actif dans un autre processus sur cette base");
+            return;
+        }
+        try (PreparedStatement stmt = connection.prepareStatement(SQL_CHARGEMENT);
+             ResultSet rs = stmt.executeQuery()) {
+            ResultSet valeurs = JournalRequetesLentes.cible(rs);
+            while (rs.next()) {
+                ajouter(valeurs.getInt(1), valeurs.getInt(2), valeurs.getInt(3));
+            }
+        } catch (SQLException e) {
+            vider();
+            throw e;
+        }
+        chargementMs = (System.nanoTime() - debut) / 1_000_000;
+        actif = true;
+    }
+
+    /**
+     * Désactive l'index, libère sa mémoire et son verrou
+     */
+    synchronized void vider() {
+        actif = false;
+        parLivre.vider();
+        parAdherent.vider();
+        if (fichierVerrou != null) {
+            try {
+                fichierVerrou.close();
+            } catch (IOException e) {
+                System.err.println("Impossible de libérer le verrou de l'index des emprunts : " + e.getMessage());
+            }
+            fichierVerrou = null;
+        }
+    }
+
+    // Prend le verrou exclusif de la base ; une base en mémoire n'est visible que de ce processus
+    private boolean verrouiller(Connection connection) throws SQLException {
+        String base;
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "SELECT file FROM pragma_database_list WHERE name = 'main'");
+             ResultSet rs = stmt.executeQuery()) {
+            base = rs.next() ? rs.getString(1) : null;
+        }
+        if (base == null || base.isEmpty()) {
+            return true;
+        }
+        // Fichier distinct de la base : fermer un descripteur de la base libérerait les verrous de SQLite
+        Path chemin = Path.of(base + ".index-emprunts.lock");
+        try {
+            FileChannel canal = FileChannel.open(chemin, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock verrou = canal.tryLock();
+            if (verrou == null) {
+                canal.close();
+                return false;
+            }
+            fichierVerrou = canal;
+            return true;
+        } catch (IOException e) {
+            throw new SQLException("Impossible de verrouiller " + chemin + " : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Enregistre un emprunt en cours (sans effet s'il est déjà indexé)
+     */
+    synchronized void enregistrer(int empruntId, int livreId, int adherentId) {
+        if (actif && !parLivre.contient(livreId, empruntId)) {
+            ajouter(empruntId, livreId, adherentId);
+        }
+    }
+
+    /**
+     * Retire un emprunt retourné ou supprimé (sans effet s'il n'est pas indexé)
+     */
+    synchronized void retirer(int empruntId, int livreId, int adherentId) {
+        if (actif && parLivre.retirer(livreId, empruntId)) {
+            parAdherent.retirer(adherentId, empruntId);
+        }
+    }
+
+    /**
+     * @param livreId L'identifiant du livre
+     * @return Le nombre d'exemplaires du livre actuellement prêtés
+     */
+    synchronized int compterEnCoursLivre(int livreId) {
+        return parLivre.taille(livreId);
+    }
+
+    /**
+     * @param livreId L'identifiant du livre
+     * @return Les identifiants des emprunts en cours du livre, par ordre croissant
+     */
+    synchronized int[] empruntsEnCoursLivre(int livreId) {
+        return trier(parLivre.valeurs(livreId));
+    }
+
+    /**
+     * @param adherentId L'identifiant de l'adhérent
+     * @return Les identifiants des emprunts en cours de l'adhérent, par ordre croissant
+     */
+    synchronized int[] empruntsEnCoursAdherent(int adherentId) {
+        return trier(parAdherent.valeurs(adherentId));
+    }
+
+    /**
+     * @return Un instantané de l'index
+     */
+    public synchronized Statistiques getStatistiques() {
+        return new Statistiques(actif, (int) parLivre.nbValeurs(), parLivre.nbCles(), parAdherent.nbCles(),
+                parLivre.octetsEstimes() + parAdherent.octetsEstimes(), chargementMs);
+    }
+
+    private void ajouter(int empruntId, int livreId, int adherentId) {
+        parLivre.ajouter(livreId, empruntId);
+        parAdherent.ajouter(adherentId, empruntId);
+    }
+
+    // Les retraits ne conservent pas l'ordre des listes
+    private static int[] trier(int[] ids) {
+        Arrays.sort(ids);
+        return ids;
+    }
+}
@@ -0,0 +1,497 @@
+package org.example.gestionbibliotheque.dao;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Mesure des requêtes et journal des requêtes lentes
+ * Les connexions rendues par Database.getConnection() sont enveloppées ainsi que leurs Statement,
+ * PreparedStatement et ResultSet. Le temps passé dans SQLite par une requête (exécution puis lecture
+ * des lignes, sans le traitement Java entre deux lignes) est mesuré ; au-delà du seuil, la requête est
+ * écrite dans un fichier journal tournant avec ses paramètres, son nombre de lignes et son plan
+ * d'exécution (EXPLAIN QUERY PLAN).
+ *
+ * Chaque requête exécutée sur une connexion obtenue pour une opération (Database.getConnection(operation),
+ * ou l'écriture soumise à l'écrivain unique avec son opération) est aussi enregistrée dans les mesures de
+ * cette opération (catégorie DAO), résolues une fois par méthode de DAO. Une méthode qui exécute plusieurs
+ * requêtes enregistre une mesure par requête, et une lecture servie par un cache n'est pas mesurée.
+ *
+ * Propriétés système :
+ * - bibliotheque.requetesLentes.seuilMs : seuil en millisecondes (250 par défaut ; 0 ou moins désactive le journal,
+ *   les mesures restent actives)
+ * - bibliotheque.requetesLentes.fichier : modèle du nom des fichiers (requetes-lentes.%g.log par défaut)
+ * - bibliotheque.requetesLentes.tailleMaxOctets : taille d'un fichier avant rotation (5 Mo par défaut)
+ * - bibliotheque.requetesLentes.nbFichiers : nombre de fichiers conservés (5 par défaut)
+ */
+public final class JournalRequetesLentes {
+
+    private static final long SEUIL_NS = Long.getLong("bibliotheque.requetesLentes.seuilMs", 250L) * 1_000_000L;
+    private static final int LONGUEUR_MAX_PARAMETRE = 200;
+
+    private static final Logger LOGGER = Logger.getLogger("org.example.gestionbibliotheque.requetesLentes");
+    private static final LongAdder NB_REQUETES_LENTES = new LongAdder();
+    private static volatile boolean fichierOuvert;
+
+    private JournalRequetesLentes() {
+    }
+
+    /**
+     * @return true si les requêtes lentes sont journalisées
+     */
+    public static boolean estActif() {
+        return SEUIL_NS > 0;
+    }
+
+    /**
+     * @return Le nombre de requêtes lentes journalisées depuis le démarrage
+     */
+    public static long getNbRequetesLentes() {
+        return NB_REQUETES_LENTES.sum();
+    }
+
+    /**
+     * Enveloppe une connexion pour mesurer ses requêtes
+     * @param connexion La connexion empruntée au pool
+     * @return La connexion instrumentée
+     */
+    static Connection instrumenter(Connection connexion) {
+        return instrumenter(connexion, null);
+    }
+
+    /**
+     * Enveloppe une connexion pour mesurer ses requêtes et les enregistrer dans les mesures d'une opération
+     * @param connexion La connexion empruntée au pool
+     * @param operation Les mesures de la méthode de DAO qui utilise la connexion (null pour aucune)
+     * @return La connexion instrumentée
+     */
+    static Connection instrumenter(Connection connexion, MetriquesOperation operation) {
+        if (operation == null && !estActif()) {
+            // Ni mesures ni journal : rien à mesurer sur cette connexion
+            return connexion;
+        }
+        return (Connection) Proxy.newProxyInstance(JournalRequetesLentes.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnexionInstrumentee(connexion, operation));
+    }
+
+    // Mesure d'une exécution : la durée cumule l'exécution et chaque appel à ResultSet.next()
+    // Les paramètres sont ceux, vivants, de la requête : ils ne sont copiés que s'ils changent avant la fin
+    // de la mesure (figer), la copie d'une exécution rapide serait perdue
+    private static final class Execution {
+        final Connection connexion;
+        final String sql;
+        final MetriquesOperation metriques;
+        Map<Integer, Object> parametres;
+        boolean parametresFiges;
+        long dureeNs;
+        long lignes;
+        boolean terminee;
+
+        Execution(Connection connexion, String sql, Map<Integer, Object> parametres, MetriquesOperation metriques) {
+            this.connexion = connexion;
+            this.sql = sql;
+            this.parametres = parametres;
+            this.metriques = metriques;
+        }
+
+        // Les paramètres de la requête vont être modifiés alors que ses lignes sont encore lues
+        void figer() {
+            if (!terminee && !parametresFiges && parametres != null) {
+                parametres = new TreeMap<>(parametres);
+                parametresFiges = true;
+            }
+        }
+
+        void terminer() {
+            if (terminee) {
+                return;
+            }
+            terminee = true;
+            if (metriques != null) {
+                metriques.enregistrer(dureeNs, lignes);
+            }
+            if (estActif() && dureeNs >= SEUIL_NS) {
+                journaliser(this);
+            }
+        }
+
+        // Erreur SQL à l'exécution ou à la lecture d'une ligne
+        void echouer() {
+            if (terminee) {
+                return;
+            }
+            terminee = true;
+            if (metriques != null) {
+                metriques.enregistrerErreur(dureeNs);
+            }
+        }
+    }
+
+    private static final class ConnexionInstrumentee implements InvocationHandler {
+        private final Connection cible;
+        private final MetriquesOperation operation;
+
+        ConnexionInstrumentee(Connection cible, MetriquesOperation operation) {
+            this.cible = cible;
+            this.operation = operation;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Connexion instrumentée [" + cible + "]";
+                default:
+                    break;
+            }
+            Object resultat = invoquer(cible, method, args);
+            if (resultat instanceof Statement statement) {
+                // prepareStatement(sql, ...) et prepareCall(sql, ...) : le SQL est le premier argument
+                String sql = resultat instanceof PreparedStatement ? (String) args[0] : null;
+                return envelopperStatement(statement, sql, (Connection) proxy, cible, operation);
+            }
+            return resultat;
+        }
+    }
+
+    private static Statement envelopperStatement(Statement cible, String sql, Connection connexionProxy,
+                                                 Connection connexion, MetriquesOperation operation) {
+        Class<?> type = cible instanceof CallableStatement ? CallableStatement.class
+                : cible instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(JournalRequetesLentes.class.getClassLoader(),
+                new Class<?>[]{type}, new StatementInstrumente(cible, sql, connexionProxy, connexion, operation));
+    }
+
+    private static final class StatementInstrumente implements InvocationHandler {
+        private final Statement cible;
+        private final String sql;
+        private final Connection connexionProxy;
+        private final Connection connexion;
+        private final MetriquesOperation operation;
+        // Les paramètres liés ne servent qu'au journal : ils ne sont pas mémorisés quand il est désactivé
+        private final Map<Integer, Object> parametres = estActif() ? new TreeMap<>() : null;
+        private int nbLots;
+        private Execution enCours;
+
+        StatementInstrumente(Statement cible, String sql, Connection connexionProxy, Connection connexion,
+                             MetriquesOperation operation) {
+            this.cible = cible;
+            this.sql = sql;
+            this.connexionProxy = connexionProxy;
+            this.connexion = connexion;
+            this.operation = operation;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nom = method.getName();
+            switch (nom) {
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    return invoquer(cible, method, args);
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Requête instrumentée [" + cible + "]";
+                case "getConnection":
+                    return connexionProxy;
+                case "clearParameters":
+                    if (parametres != null) {
+                        figerEnCours();
+                        parametres.clear();
+                    }
+                    return invoquer(cible, method, args);
+                case "addBatch":
+                    nbLots++;
+                    return invoquer(cible, method, args);
+                case "clearBatch":
+                    nbLots = 0;
+                    return invoquer(cible, method, args);
+                case "close":
+                    terminerEnCours();
+                    return invoquer(cible, method, args);
+                default:
+                    break;
+            }
+            // setInt(1, ...), setString(2, ...) : mémoriser les paramètres liés par position
+            if (nom.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index
+                    && method.getDeclaringClass() != Statement.class) {
+                if (parametres != null) {
+                    figerEnCours();
+                    parametres.put(index, nom.equals("setNull") ? null : args[1]);
+                }
+                return invoquer(cible, method, args);
+            }
+            if (nom.startsWith("execute")) {
+                return executer(proxy, method, args);
+            }
+            return invoquer(cible, method, args);
+        }
+
+        private Object executer(Object proxy, Method method, Object[] args) throws Throwable {
+            terminerEnCours();
+            // Statement.execute(sql) et variantes : le SQL est le premier argument
+            String texte = args != null && args.length > 0 && args[0] instanceof String s ? s : sql;
+            String nom = method.getName();
+            if (nom.equals("executeBatch") || nom.equals("executeLargeBatch")) {
+                texte = texte + " -- lot de " + nbLots + " exécution(s)";
+                nbLots = 0;
+            }
+            Execution execution = new Execution(connexion, texte, parametres, operation);
+            long debut = System.nanoTime();
+            Object resultat;
+            try {
+                resultat = invoquer(cible, method, args);
+            } catch (SQLException e) {
+                execution.dureeNs += System.nanoTime() - debut;
+                execution.echouer();
+                throw e;
+            }
+            execution.dureeNs += System.nanoTime() - debut;
+            if (resultat instanceof ResultSet rs) {
+                // La requête n'est terminée qu'une fois ses lignes lues
+                enCours = execution;
+                return Proxy.newProxyInstance(JournalRequetesLentes.class.getClassLoader(),
+                        new Class<?>[]{ResultSet.class}, new ResultSetInstrumente(rs, execution, (Statement) proxy));
+            }
+            if (resultat instanceof Integer n) {
+                execution.lignes = n;
+            } else if (resultat instanceof Long n) {
+                execution.lignes = n;
+            } else if (resultat instanceof int[] lots) {
+                for (int n : lots) {
+                    execution.lignes += Math.max(0, n);
+                }
+            } else if (resultat instanceof Boolean avecLignes && !avecLignes) {
+                execution.lignes = cible.getUpdateCount();
+            }
+            execution.terminer();
+            return resultat;
+        }
+
+        private void figerEnCours() {
+            if (enCours != null) {
+                enCours.figer();
+            }
+        }
+
+        private void terminerEnCours() {
+            if (enCours != null) {
+                enCours.terminer();
+                enCours = null;
+            }
+        }
+    }
+
+    private static final class ResultSetInstrumente implements InvocationHandler {
+        private final ResultSet cible;
+        private final Execution execution;
+        private final Statement statementProxy;
+
+        ResultSetInstrumente(ResultSet cible, Execution execution, Statement statementProxy) {
+            this.cible = cible;
+            this.execution = execution;
+            this.statementProxy = statementProxy;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next": {
+                    long debut = System.nanoTime();
+                    boolean ligne;
+                    try {
+                        ligne = (Boolean) invoquer(cible, method, args);
+                    } catch (SQLException e) {
+                        execution.dureeNs += System.nanoTime() - debut;
+                        execution.echouer();
+                        throw e;
+                    }
+                    execution.dureeNs += System.nanoTime() - debut;
+                    if (ligne) {
+                        execution.lignes++;
+                    } else {
+                        execution.terminer();
+                    }
+                    return ligne;
+                }
+                case "close":
+                    execution.terminer();
+                    return invoquer(cible, method, args);
+                case "getStatement":
+                    return statementProxy;
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            return invoquer(cible, method, args);
+        }
+    }
+
+    /**
+     * Retourne le ResultSet du pilote derrière un ResultSet instrumenté
+     * Seul next() est mesuré : les valeurs des colonnes peuvent être lues directement,
+     * sans réflexion ni boxing à chaque valeur
+     * @param rs Un ResultSet, instrumenté ou non
+     * @return Le ResultSet du pilote, ou rs s'il n'est pas instrumenté
+     */
+    static ResultSet cible(ResultSet rs) {
+        if (Proxy.isProxyClass(rs.getClass())
+                && Proxy.getInvocationHandler(rs) instanceof ResultSetInstrumente instrumente) {
+            return instrumente.cible;
+        }
+        return rs;
+    }
+
+    private static Object invoquer(Object cible, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(cible, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Écrit une requête lente dans le journal ; une erreur de journalisation n'interrompt jamais la requête
+    private static void journaliser(Execution execution) {
+        NB_REQUETES_LENTES.increment();
+        try {
+            StringBuilder message = new StringBuilder();
+            message.append(String.format(Locale.ROOT, "Requête lente : %.1f ms, %d ligne(s)%s%n",
+                    execution.dureeNs / 1e6, execution.lignes,
+                    execution.metriques == null ? "" : " (" + execution.metriques.getNom() + ")"));
+            message.append("  SQL : ").append(execution.sql.strip().replaceAll("\\s+", " ")).append('\n');
+            if (execution.parametres != null && !execution.parametres.isEmpty()) {
+                message.append("  Paramètres : ").append(formaterParametres(execution.parametres)).append('\n');
+            }
+            message.append("  Plan :\n").append(planExecution(execution));
+            ouvrirFichier();
+            LOGGER.warning(message.toString());
+        } catch (RuntimeException e) {
+            System.err.println("Impossible de journaliser une requête lente : " + e.getMessage());
+        }
+    }
+
+    private static String formaterParametres(Map<Integer, Object> parametres) {
+        StringBuilder texte = new StringBuilder("[");
+        for (Map.Entry<Integer, Object> parametre : parametres.entrySet()) {
+            if (texte.length() > 1) {
+                texte.append(", ");
+            }
+            Object valeur = parametre.getValue();
+            String rendu = valeur == null ? "NULL"
+                    : valeur instanceof CharSequence ? "'" + valeur + "'" : String.valueOf(valeur);
+            if (rendu.length() > LONGUEUR_MAX_PARAMETRE) {
+                rendu = rendu.substring(0, LONGUEUR_MAX_PARAMETRE) + "...";
+            }
+            texte.append(parametre.getKey()).append('=').append(rendu);
+        }
+        return texte.append(']').toString();
+    }
+
+    // Plan d'exécution de la requête, lu sur la connexion qui l'a exécutée (les paramètres restent non liés)
+    // prepareStatement(sql, type, concurrence) ne passe pas par le cache de requêtes du pool : un EXPLAIN
+    // préparé une seule fois n'en chasse pas les requêtes fréquentes
+    private static String planExecution(Execution execution) {
+        String sql = execution.sql.strip();
+        String debut = sql.length() >= 6 ? sql.substring(0, 6).toUpperCase(Locale.ROOT) : "";
+        if (!(debut.startsWith("SELECT") || debut.startsWith("INSERT") || debut.startsWith("UPDATE")
+                || debut.startsWith("DELETE") || debut.startsWith("WITH"))) {
+            return "    (sans objet)\n";
+        }
+        int finLot = sql.indexOf(" -- lot de ");
+        if (finLot > 0) {
+            sql = sql.substring(0, finLot);
+        }
+        StringBuilder plan = new StringBuilder();
+        try (PreparedStatement stmt = execution.connexion.prepareStatement("EXPLAIN QUERY PLAN " + sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                plan.append("    ").append(rs.getString("detail")).append('\n');
+            }
+        } catch (SQLException e) {
+            plan.append("    (plan indisponible : ").append(e.getMessage()).append(")\n");
+        }
+        return plan.isEmpty() ? "    (aucune étape)\n" : plan.toString();
+    }
+
+    // Le fichier n'est créé qu'à la première requête lente
+    private static synchronized void ouvrirFichier() {
+        if (fichierOuvert) {
+            return;
+        }
+        fichierOuvert = true;
+        String modele = System.getProperty("bibliotheque.requetesLentes.fichier", "requetes-lentes.%g.log");
+        int tailleMax = Integer.getInteger("bibliotheque.requetesLentes.tailleMaxOctets", 5 * 1024 * 1024);
+        int nbFichiers = Integer.getInteger("bibliotheque.requetesLentes.nbFichiers", 5);
+        try {
+            Path dossier = Path.of(modele).toAbsolutePath().getParent();
+            if (dossier != null) {
+                Files.createDirectories(dossier);
+            }
+            FileHandler fichier = new FileHandler(modele, tailleMax, nbFichiers, true);
+            fichier.setEncoding("UTF-8");
+            fichier.setFormatter(new FormatJournal());
+            LOGGER.addHandler(fichier);
+            // Le journal est écrit dans le fichier seulement, pas sur la console
+            LOGGER.setUseParentHandlers(false);
+            LOGGER.setLevel(Level.ALL);
+        } catch (IOException e) {
+            System.err.println("Impossible d'ouvrir le journal des requêtes lentes " + modele + " : " + e.getMessage());
+        }
+    }
+
+    private static final class FormatJournal extends Formatter {
+        private static final DateTimeFormatter HORODATAGE =
+                DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+        @Override
+        public String format(LogRecord enregistrement) {
+            return HORODATAGE.format(Instant.ofEpochMilli(enregistrement.getMillis())) + " ["
+                    + Thread.currentThread().getName() + "] " + enregistrement.getMessage() + "\n";
+        }
+    }
+}
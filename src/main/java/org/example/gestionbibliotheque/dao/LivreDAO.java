@@ -1,9 +1,11 @@
 package org.example.gestionbibliotheque.dao;
 
 import org.example.gestionbibliotheque.model.Livre;
+import org.example.gestionbibliotheque.model.LivreLigne;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Classe d'accès aux données pour les livres
@@ -11,6 +13,85 @@ import java.util.List;
  */
 public class LivreDAO {
 
+    /**
+     * Clés de tri disponibles pour la lecture paginée des livres
+     */
+    public enum Tri {
+        ID("id"), TITRE("titre"), AUTEUR("auteur");
+
+        private final String colonne;
+
+        Tri(String colonne) {
+            this.colonne = colonne;
+        }
+    }
+
+    // Cache partagé des livres lus par identifiant (taille modifiable avec -Dbibliotheque.cache.livres.tailleMax=...)
+    private static final EntityCache<Livre> CACHE = new EntityCache<>(
+            Integer.getInteger("bibliotheque.cache.livres.tailleMax", 10_000), LivreDAO::copier);
+
+    // Une mesure par méthode, passée à Database.getConnection ou à l'écrivain avec chaque requête
+    private static final MetriquesOperation METRIQUES_AJOUTER_LIVRE =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "LivreDAO.ajouterLivre");
+    private static final MetriquesOperation METRIQUES_GET_LIVRES =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "LivreDAO.getLivres");
+    private static final MetriquesOperation METRIQUES_GET_LIVRES_LIGNES =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "LivreDAO.getLivresLignes");
+    private static final MetriquesOperation METRIQUES_GET_LIVRES_PAGE =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "LivreDAO.getLivresPage");
+    private static final MetriquesOperation METRIQUES_GET_LIVRE_BY_ID =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "LivreDAO.getLivreById");
+    private static final MetriquesOperation METRIQUES_RECHERCHER_PAR_TITRE =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "LivreDAO.rechercherParTitre");
+    private static final MetriquesOperation METRIQUES_RECHERCHER_PAR_AUTEUR =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "LivreDAO.rechercherParAuteur");
+    private static final MetriquesOperation METRIQUES_RECHERCHER_TEXTE =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "LivreDAO.rechercherTexte");
+    private static final MetriquesOperation METRIQUES_MODIFIER_LIVRE =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "LivreDAO.modifierLivre");
+    private static final MetriquesOperation METRIQUES_SUPPRIMER_LIVRE =
+            Metriques.operation(Metriques.CATEGORIE_DAO, "LivreDAO.supprimerLivre");
+
+    /**
+     * Retourne les compteurs du cache des livres (succès, échecs, évictions)
+     * @return Un instantané des statistiques du cache
+     */
+    public static EntityCache.Statistiques getStatistiquesCache() {
+        return CACHE.getStatistiques();
+    }
+
+    // Retire un livre du cache après une modification faite hors de LivreDAO (mouvement de stock),
+    // depuis l'action après validation de l'écriture
+    static void invaliderCache(int id) {
+        CACHE.invalider(id);
+    }
+
+    // Vide le cache (changement de base de données)
+    static void viderCache() {
+        CACHE.vider();
+    }
+
+    // Lecture d'un livre sur une liste de colonnes explicite
+    private static final MappeurLignes<Livre> MAPPEUR = new MappeurLignes<>((rs, p) -> {
+        Livre livre = new Livre();
+        livre.setId(rs.getInt(p[0]));
+        livre.setTitre(rs.getString(p[1]));
+        livre.setAuteur(rs.getString(p[2]));
+        livre.setNbExemplaires(rs.getInt(p[3]));
+        return livre;
+    }, "id", "titre", "auteur", "nb_exemplaires");
+
+    // Lecture d'un livre en enregistrement immuable, sans propriétés JavaFX
+    private static final MappeurLignes<LivreLigne> MAPPEUR_LIGNE = new MappeurLignes<>(
+            (rs, p) -> new LivreLigne(rs.getInt(p[0]), rs.getString(p[1]), rs.getString(p[2]), rs.getInt(p[3])),
+            "id", "titre", "auteur", "nb_exemplaires");
+
+    private static Livre copier(Livre livre) {
+        Livre copie = new Livre(livre.getTitre(), livre.getAuteur(), livre.getNbExemplaires());
+        copie.setId(livre.getId());
+        return copie;
+    }
+
     /**
      * Ajoute un nouveau livre dans la base de données
      * @param livre Le livre à ajouter
@@ -35,27 +116,23 @@ public class LivreDAO {
         }
         
         String sql = "INSERT INTO Livres (titre, auteur, nb_exemplaires) VALUES (?, ?, ?)";
-        try (Connection connection = Database.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            connection.setAutoCommit(false);
-            try {
-                stmt.setString(1, livre.getTitre());
-                stmt.setString(2, livre.getAuteur());
-                stmt.setInt(3, livre.getNbExemplaires());
+        String titre = livre.getTitre();
+        String auteur = livre.getAuteur();
+        int nbExemplaires = livre.getNbExemplaires();
+        Integer id = Database.getEcrivain().executer(METRIQUES_AJOUTER_LIVRE, connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setString(1, titre);
+                stmt.setString(2, auteur);
+                stmt.setInt(3, nbExemplaires);
                 stmt.executeUpdate();
-                
+
                 try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        livre.setId(generatedKeys.getInt(1));
-                    }
+                    return generatedKeys.next() ? generatedKeys.getInt(1) : null;
                 }
-                connection.commit();
-            } catch (SQLException e) {
-                connection.rollback();
-                throw e;
-            } finally {
-                connection.setAutoCommit(true);
             }
+        });
+        if (id != null) {
+            livre.setId(id);
         }
     }
 
@@ -65,92 +142,187 @@ public class LivreDAO {
      * @throws SQLException Si une erreur survient lors de l'accès à la base de données
      */
     public List<Livre> getLivres() throws SQLException {
-        List<Livre> livres = new ArrayList<>();
-        String sql = "SELECT * FROM Livres";
-        try (Connection connection = Database.getConnection();
-             Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                Livre livre = new Livre();
-                livre.setId(rs.getInt("id"));
-                
-                String titre = rs.getString("titre");
-                if (titre != null) {
-                    livre.setTitre(titre);
-                }
-                
-                String auteur = rs.getString("auteur");
-                if (auteur != null) {
-                    livre.setAuteur(auteur);
-                }
-                
-                livre.setNbExemplaires(rs.getInt("nb_exemplaires"));
-                livres.add(livre);
+        String sql = "SELECT " + MAPPEUR.colonnes() + " FROM Livres";
+        try (Connection connection = Database.getConnection(METRIQUES_GET_LIVRES);
+             PreparedStatement stmt = connection.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return MAPPEUR.lireTout(rs);
+        }
+    }
+
+    /**
+     * Parcourt tous les livres sans les charger tous en mémoire
+     * Les lignes sont lues à la demande sur un curseur qui garde une connexion du pool jusqu'à la fermeture
+     * du flux ou la lecture de la dernière ligne : à utiliser dans un try-with-resources.
+     * Une erreur SQL pendant le parcours est levée en ErreurFluxSql.
+     * @return Le flux des livres
+     * @throws SQLException Si la requête ne peut pas être exécutée
+     */
+    public Stream<Livre> fluxLivres() throws SQLException {
+        return FluxLignes.ouvrir("LivreDAO.fluxLivres", MAPPEUR,
+                "SELECT " + MAPPEUR.colonnes() + " FROM Livres", stmt -> { });
+    }
+
+    /**
+     * Récupère tous les livres en enregistrements immuables
+     * Une ligne n'occupe qu'un objet, contre cinq pour un Livre : à préférer pour les traitements qui n'affichent rien
+     * @return Une liste de tous les livres
+     * @throws SQLException Si une erreur survient lors de l'accès à la base de données
+     */
+    public List<LivreLigne> getLivresLignes() throws SQLException {
+        String sql = "SELECT " + MAPPEUR_LIGNE.colonnes() + " FROM Livres";
+        try (Connection connection = Database.getConnection(METRIQUES_GET_LIVRES_LIGNES);
+             PreparedStatement stmt = connection.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return MAPPEUR_LIGNE.lireTout(rs);
+        }
+    }
+
+    /**
+     * Récupère une page de livres triés, à partir d'un curseur
+     * @param apres Le curseur rendu par la page précédente, ou null pour la première page
+     * @param taille Le nombre maximal de livres de la page
+     * @param tri La clé de tri
+     * @return La page de livres et le curseur de la page suivante
+     * @throws SQLException Si une erreur survient lors de l'accès à la base de données
+     */
+    public Page<Livre> getLivresPage(Page.Curseur apres, int taille, Tri tri) throws SQLException {
+        Page.verifierTaille(taille);
+        StringBuilder sql = new StringBuilder("SELECT " + MAPPEUR.colonnes() + " FROM Livres");
+        if (apres != null) {
+            sql.append(" WHERE ").append(Page.conditionApres(tri.colonne, "id"));
+        }
+        sql.append(" ORDER BY ").append(Page.ordre(tri.colonne, "id")).append(" LIMIT ?");
+
+        try (Connection connection = Database.getConnection(METRIQUES_GET_LIVRES_PAGE);
+             PreparedStatement stmt = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            if (apres != null) {
+                index = Page.lierCurseur(stmt, index, apres, tri == Tri.ID);
+            }
+            stmt.setInt(index, taille + 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return MAPPEUR.lirePage(rs, taille, tri.colonne, Livre::getId);
             }
         }
-        return livres;
     }
 
-    // Read - Get by ID
+    // Read - Get by ID (lecture à travers le cache)
     public Livre getLivreById(int id) throws SQLException {
-        String sql = "SELECT * FROM Livres WHERE id = ?";
-        try (Connection connection = Database.getConnection();
+        Livre enCache = CACHE.get(id);
+        if (enCache != null) {
+            return enCache;
+        }
+        String sql = "SELECT " + MAPPEUR.colonnes() + " FROM Livres WHERE id = ?";
+        // Relevée avant la requête : une écriture validée pendant la lecture empêche la mise en cache
+        long generation = CACHE.generation(id);
+        try (Connection connection = Database.getConnection(METRIQUES_GET_LIVRE_BY_ID);
              PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    Livre livre = new Livre();
-                    livre.setId(rs.getInt("id"));
-                    livre.setTitre(rs.getString("titre"));
-                    livre.setAuteur(rs.getString("auteur"));
-                    livre.setNbExemplaires(rs.getInt("nb_exemplaires"));
-                    return livre;
+                Livre livre = MAPPEUR.lirePremier(rs);
+                if (livre != null) {
+                    CACHE.putSiInchange(id, livre, generation);
                 }
+                return livre;
             }
         }
-        return null;
     }
 
     // Read - Search by title
     public List<Livre> rechercherParTitre(String titre) throws SQLException {
-        List<Livre> livres = new ArrayList<>();
-        String sql = "SELECT * FROM Livres WHERE titre LIKE ?";
-        try (Connection connection = Database.getConnection();
+        String sql = "SELECT " + MAPPEUR.colonnes() + " FROM Livres WHERE titre LIKE ?";
+        try (Connection connection = Database.getConnection(METRIQUES_RECHERCHER_PAR_TITRE);
              PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, "%" + titre + "%");
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Livre livre = new Livre();
-                    livre.setId(rs.getInt("id"));
-                    livre.setTitre(rs.getString("titre"));
-                    livre.setAuteur(rs.getString("auteur"));
-                    livre.setNbExemplaires(rs.getInt("nb_exemplaires"));
-                    livres.add(livre);
-                }
+                return MAPPEUR.lireTout(rs);
             }
         }
-        return livres;
+    }
+
+    /**
+     * Parcourt les livres dont le titre contient un texte sans les charger en mémoire (voir fluxLivres)
+     * @param titre Le texte recherché dans le titre
+     * @return Le flux des livres trouvés
+     * @throws SQLException Si la requête ne peut pas être exécutée
+     */
+    public Stream<Livre> fluxLivresParTitre(String titre) throws SQLException {
+        return FluxLignes.ouvrir("LivreDAO.fluxLivresParTitre", MAPPEUR,
+                "SELECT " + MAPPEUR.colonnes() + " FROM Livres WHERE titre LIKE ?",
+                stmt -> stmt.setString(1, "%" + titre + "%"));
     }
 
     // Read - Search by author
     public List<Livre> rechercherParAuteur(String auteur) throws SQLException {
-        List<Livre> livres = new ArrayList<>();
-        String sql = "SELECT * FROM Livres WHERE auteur LIKE ?";
-        try (Connection connection = Database.getConnection();
+        String sql = "SELECT " + MAPPEUR.colonnes() + " FROM Livres WHERE auteur LIKE ?";
+        try (Connection connection = Database.getConnection(METRIQUES_RECHERCHER_PAR_AUTEUR);
              PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, "%" + auteur + "%");
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Livre livre = new Livre();
-                    livre.setId(rs.getInt("id"));
-                    livre.setTitre(rs.getString("titre"));
-                    livre.setAuteur(rs.getString("auteur"));
-                    livre.setNbExemplaires(rs.getInt("nb_exemplaires"));
-                    livres.add(livre);
-                }
+                return MAPPEUR.lireTout(rs);
+            }
+        }
+    }
+
+    /**
+     * Parcourt les livres dont l'auteur contient un texte sans les charger en mémoire (voir fluxLivres)
+     * @param auteur Le texte recherché dans l'auteur
+     * @return Le flux des livres trouvés
+     * @throws SQLException Si la requête ne peut pas être exécutée
+     */
+    public Stream<Livre> fluxLivresParAuteur(String auteur) throws SQLException {
+        return FluxLignes.ouvrir("LivreDAO.fluxLivresParAuteur", MAPPEUR,
+                "SELECT " + MAPPEUR.colonnes() + " FROM Livres WHERE auteur LIKE ?",
+                stmt -> stmt.setString(1, "%" + auteur + "%"));
+    }
+
+    /**
+     * Recherche plein texte dans les titres et les auteurs (index FTS5)
+     * Chaque mot saisi est recherché comme préfixe ; tous les mots doivent être présents.
+     * Les résultats sont classés par pertinence, un mot trouvé dans le titre comptant double.
+     * @param texte Le texte saisi par l'utilisateur
+     * @param limite Le nombre maximal de résultats
+     * @return Les livres correspondants, du plus pertinent au moins pertinent
+     * @throws SQLException Si une erreur survient lors de l'accès à la base de données
+     */
+    public List<Livre> rechercherTexte(String texte, int limite) throws SQLException {
+        String requeteFts = construireRequeteFts(texte);
+        if (requeteFts.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT " + MAPPEUR.colonnes("l")
+                + " FROM Livres_fts"
+                + " JOIN Livres l ON l.id = Livres_fts.rowid"
+                + " WHERE Livres_fts MATCH ?"
+                + " ORDER BY bm25(Livres_fts, 2.0, 1.0)"
+                + " LIMIT ?";
+        try (Connection connection = Database.getConnection(METRIQUES_RECHERCHER_TEXTE);
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, requeteFts);
+            stmt.setInt(2, limite);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return MAPPEUR.lireTout(rs);
             }
         }
-        return livres;
+    }
+
+    // Transforme la saisie en requête FTS5 : chaque mot devient un préfixe entre guillemets ("mot"*)
+    private static String construireRequeteFts(String texte) {
+        if (texte == null) {
+            return "";
+        }
+        StringBuilder requete = new StringBuilder();
+        for (String mot : texte.split("[^\\p{L}\\p{N}]+")) {
+            if (mot.isEmpty()) {
+                continue;
+            }
+            if (!requete.isEmpty()) {
+                requete.append(' ');
+            }
+            requete.append('"').append(mot).append("\"*");
+        }
+        return requete.toString();
     }
 
     // Update
@@ -179,47 +351,37 @@ public class LivreDAO {
         }
         
         String sql = "UPDATE Livres SET titre = ?, auteur = ?, nb_exemplaires = ? WHERE id = ?";
-        try (Connection connection = Database.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(sql)) {
-            connection.setAutoCommit(false);
-            try {
-                stmt.setString(1, livre.getTitre());
-                stmt.setString(2, livre.getAuteur());
-                stmt.setInt(3, livre.getNbExemplaires());
-                stmt.setInt(4, livre.getId());
+        String titre = livre.getTitre();
+        String auteur = livre.getAuteur();
+        int nbExemplaires = livre.getNbExemplaires();
+        int id = livre.getId();
+        Database.getEcrivain().executer(METRIQUES_MODIFIER_LIVRE, connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, titre);
+                stmt.setString(2, auteur);
+                stmt.setInt(3, nbExemplaires);
+                stmt.setInt(4, id);
                 int rowsAffected = stmt.executeUpdate();
                 if (rowsAffected == 0) {
-                    throw new SQLException("Livre non trouvé avec l'ID: " + livre.getId());
+                    throw new SQLException("Livre non trouvé avec l'ID: " + id);
                 }
-                connection.commit();
-            } catch (SQLException e) {
-                connection.rollback();
-                throw e;
-            } finally {
-                connection.setAutoCommit(true);
+                return null;
             }
-        }
+        }, valide -> CACHE.put(id, livre));
     }
 
     // Delete
     public void supprimerLivre(int id) throws SQLException {
         String sql = "DELETE FROM Livres WHERE id = ?";
-        try (Connection connection = Database.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(sql)) {
-            connection.setAutoCommit(false);
-            try {
+        Database.getEcrivain().executer(METRIQUES_SUPPRIMER_LIVRE, connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
                 stmt.setInt(1, id);
                 int rowsAffected = stmt.executeUpdate();
                 if (rowsAffected == 0) {
                     throw new SQLException("Livre non trouvé avec l'ID: " + id);
                 }
-                connection.commit();
-            } catch (SQLException e) {
-                connection.rollback();
-                throw e;
-            } finally {
-                connection.setAutoCommit(true);
+                return null;
             }
-        }
+        }, valide -> CACHE.invalider(id));
     }
 }
\ No newline at end of file
@@ -0,0 +1,179 @@
+package org.example.gestionbibliotheque.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Conversion des lignes d'un ResultSet en objets du modèle
+ * Le mappeur porte la liste explicite des colonnes qu'il lit, à reprendre dans le SELECT avec colonnes().
+ * Les positions de ces colonnes sont résolues une seule fois par ResultSet ; chaque ligne est ensuite
+ * lue par position, sans recherche par nom ni autre allocation que les objets construits.
+ * @param <T> Le type des objets construits
+ */
+final class MappeurLignes<T> {
+
+    /**
+     * Construction d'un objet à partir de la ligne courante
+     * positions[i] est la position dans le ResultSet de la i-ème colonne déclarée par le mappeur
+     * @param <T> Le type de l'objet construit
+     */
+    @FunctionalInterface
+    interface Construction<T> {
+        T lire(ResultSet rs, int[] positions) throws SQLException;
+    }
+
+    /**
+     * Lecture de la ligne courante d'un résultat parcouru par l'appelant
+     * @param <T> Le type de l'objet construit
+     */
+    @FunctionalInterface
+    interface Lecture<T> {
+        T ligneCourante() throws SQLException;
+    }
+
+    private final Construction<T> construction;
+    private final String[] libelles;
+    private final String colonnes;
+
+    /**
+     * @param construction La lecture d'une ligne
+     * @param colonnes Les expressions des colonnes lues, éventuellement préfixées d'un alias de table ("e.id")
+     */
+    MappeurLignes(Construction<T> construction, String... colonnes) {
+        this.construction = construction;
+        this.libelles = new String[colonnes.length];
+        for (int i = 0; i < colonnes.length; i++) {
+            // Le libellé de la colonne dans le ResultSet ne garde pas l'alias de table
+            libelles[i] = colonnes[i].substring(colonnes[i].lastIndexOf('.') + 1);
+        }
+        this.colonnes = String.join(", ", colonnes);
+    }
+
+    /**
+     * @return La liste des colonnes lues, à placer après SELECT
+     */
+    String colonnes() {
+        return colonnes;
+    }
+
+    /**
+     * @param alias L'alias de la table lue dans la requête
+     * @return La liste des colonnes lues, préfixées de l'alias ("l.id, l.titre, ...")
+     */
+    String colonnes(String alias) {
+        StringBuilder liste = new StringBuilder();
+        for (String libelle : libelles) {
+            if (!liste.isEmpty()) {
+                liste.append(", ");
+            }
+            liste.append(alias).append('.').append(libelle);
+        }
+        return liste.toString();
+    }
+
+    /**
+     * Lit toutes les lignes restantes
+     * @param rs Le résultat de la requête
+     * @return Les objets construits, dans l'ordre des lignes
+     */
+    List<T> lireTout(ResultSet rs) throws SQLException {
+        List<T> objets = new ArrayList<>();
+        int[] positions = positions(rs);
+        ResultSet valeurs = JournalRequetesLentes.cible(rs);
+        while (rs.next()) {
+            objets.add(construction.lire(valeurs, positions));
+        }
+        return objets;
+    }
+
+    /**
+     * Lit la première ligne
+     * @param rs Le résultat de la requête
+     * @return L'objet construit, ou null si le résultat est vide
+     */
+    T lirePremier(ResultSet rs) throws SQLException {
+        if (!rs.next()) {
+            return null;
+        }
+        return construction.lire(JournalRequetesLentes.cible(rs), positions(rs));
+    }
+
+    /**
+     * Lit le résultat d'une lecture paginée qui a demandé une ligne de plus que la taille de page
+     * @param rs Le résultat de la requête
+     * @param taille La taille de page demandée
+     * @param colonneTri Le libellé de la colonne de tri, dont la valeur forme le curseur
+     * @param identifiant L'identifiant d'un objet construit, second élément du curseur
+     * @return La page et le curseur de la page suivante
+     */
+    Page<T> lirePage(ResultSet rs, int taille, String colonneTri, ToIntFunction<T> identifiant) throws SQLException {
+        List<T> objets = new ArrayList<>();
+        Page.Curseur dernier = null;
+        int[] positions = positions(rs);
+        int positionTri = rs.findColumn(colonneTri);
+        ResultSet valeurs = JournalRequetesLentes.cible(rs);
+        while (rs.next()) {
+            T objet = construction.lire(valeurs, positions);
+            objets.add(objet);
+            if (objets.size() == taille) {
+                dernier = new Page.Curseur(valeurs.getObject(positionTri), identifiant.applyAsInt(objet));
+            }
+        }
+        return Page.creer(objets, dernier, taille);
+    }
+
+    /**
+     * Prépare la lecture ligne par ligne d'un résultat dont l'appelant appelle lui-même next()
+     * @param rs Le résultat de la requête
+     * @return La lecture de la ligne courante, positions déjà résolues
+     */
+    Lecture<T> lecture(ResultSet rs) throws SQLException {
+        int[] positions = positions(rs);
+        ResultSet valeurs = JournalRequetesLentes.cible(rs);
+        return () -> construction.lire(valeurs, positions);
+    }
+
+    // Résout la position de chaque colonne déclarée dans ce ResultSet
+    private int[] positions(ResultSet rs) throws SQLException {
+        int[] positions = new int[libelles.length];
+        for (int i = 0; i < libelles.length; i++) {
+            positions[i] = rs.findColumn(libelles[i]);
+        }
+        return positions;
+    }
+
+    /**
+     * Lit une date stockée en nombre de jours depuis le 1970-01-01 (LocalDate.toEpochDay)
+     * La conversion ne dépend pas du fuseau horaire et n'alloue que la LocalDate
+     * @param rs Le résultat positionné sur une ligne
+     * @param position La position de la colonne
+     * @return La date, ou null si la colonne est NULL
+     */
+    static LocalDate lireDate(ResultSet rs, int position) throws SQLException {
+        long jour = rs.getLong(position);
+        if (jour == 0 && rs.wasNull()) {
+            return null;
+        }
+        return LocalDate.ofEpochDay(jour);
+    }
+
+    /**
+     * Lie une date stockée en nombre de jours depuis le 1970-01-01
+     * @param stmt La requête
+     * @param index L'index du paramètre
+     * @param date La date, ou null
+     */
+    static void lierDate(PreparedStatement stmt, int index, LocalDate date) throws SQLException {
+        if (date == null) {
+            stmt.setNull(index, Types.INTEGER);
+        } else {
+            stmt.setLong(index, date.toEpochDay());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.gestionbibliotheque.dao;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registre des mesures par opération, publiées en JMX (JConsole, VisualVM)
+ * Chaque opération est enregistrée au premier appel sous le nom
+ * org.example.gestionbibliotheque:type=Operation,categorie=...,nom=...
+ * Catégories : DAO (requêtes exécutées par les méthodes des DAOs, enregistrées par JournalRequetesLentes),
+ * Interface (actions de l'interface, du clic à l'affichage du résultat), Pool (attente d'une connexion),
+ * Stockage (checkpoints du journal WAL) et Ecrivain (attente en file et transactions groupées de l'écrivain unique).
+ */
+public final class Metriques {
+
+    public static final String DOMAINE_JMX = "org.example.gestionbibliotheque";
+    public static final String CATEGORIE_DAO = "DAO";
+    public static final String CATEGORIE_INTERFACE = "Interface";
+    public static final String CATEGORIE_POOL = "Pool";
+    public static final String CATEGORIE_STOCKAGE = "Stockage";
+    public static final String CATEGORIE_ECRIVAIN = "Ecrivain";
+
+    private static final ConcurrentMap<String, MetriquesOperation> OPERATIONS = new ConcurrentHashMap<>();
+
+    private Metriques() {
+    }
+
+    /**
+     * Retourne les mesures d'une opération, créées et publiées en JMX au premier appel
+     * @param categorie La catégorie de l'opération
+     * @param nom Le nom de l'opération (par exemple LivreDAO.getLivres)
+     * @return Les mesures de l'opération
+     */
+    public static MetriquesOperation operation(String categorie, String nom) {
+        MetriquesOperation operation = OPERATIONS.get(nom);
+        if (operation != null) {
+            return operation;
+        }
+        return OPERATIONS.computeIfAbsent(nom, cle -> {
+            MetriquesOperation nouvelle = new MetriquesOperation(categorie, cle);
+            publier(nouvelle, "type=Operation,categorie=" + categorie + ",nom=" + cle);
+            return nouvelle;
+        });
+    }
+
+    /**
+     * @return Les mesures de toutes les opérations appelées depuis le démarrage
+     */
+    public static Collection<MetriquesOperation> getOperations() {
+        return Collections.unmodifiableCollection(OPERATIONS.values());
+    }
+
+    /**
+     * Publie un MXBean dans le serveur JMX de la plateforme
+     * Un échec de publication est signalé mais n'empêche pas l'application de fonctionner
+     * @param mbean L'objet à publier
+     * @param proprietes Les propriétés du nom JMX (type=...,nom=...)
+     */
+    static void publier(Object mbean, String proprietes) {
+        try {
+            MBeanServer serveur = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nom = new ObjectName(DOMAINE_JMX + ":" + proprietes);
+            if (!serveur.isRegistered(nom)) {
+                serveur.registerMBean(mbean, nom);
+            }
+        } catch (JMException e) {
+            System.err.println("Impossible de publier les mesures " + proprietes + " en JMX : " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.gestionbibliotheque.dao;
+
+import org.example.gestionbibliotheque.util.HistogrammeLatence;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mesures d'une opération : nombre d'appels, erreurs SQL, lignes retournées et histogramme des durées
+ */
+public class MetriquesOperation implements MetriquesOperationMXBean {
+
+    private final String categorie;
+    private final String nom;
+    private final HistogrammeLatence latences = new HistogrammeLatence();
+    private final LongAdder erreurs = new LongAdder();
+    private final LongAdder lignes = new LongAdder();
+
+    MetriquesOperation(String categorie, String nom) {
+        this.categorie = categorie;
+        this.nom = nom;
+    }
+
+    /**
+     * Enregistre un appel réussi
+     * @param nanos La durée de l'appel en nanosecondes
+     * @param nbLignes Le nombre de lignes retournées
+     */
+    public void enregistrer(long nanos, long nbLignes) {
+        latences.enregistrer(nanos);
+        lignes.add(nbLignes);
+    }
+
+    /**
+     * Enregistre un appel terminé par une erreur
+     * @param nanos La durée de l'appel en nanosecondes
+     */
+    public void enregistrerErreur(long nanos) {
+        latences.enregistrer(nanos);
+        erreurs.increment();
+    }
+
+    /**
+     * @return L'histogramme des durées, en nanosecondes
+     */
+    public HistogrammeLatence getLatences() {
+        return latences;
+    }
+
+    @Override
+    public String getNom() {
+        return nom;
+    }
+
+    @Override
+    public String getCategorie() {
+        return categorie;
+    }
+
+    @Override
+    public long getNombre() {
+        return latences.getNombre();
+    }
+
+    @Override
+    public long getErreurs() {
+        return erreurs.sum();
+    }
+
+    @Override
+    public long getLignes() {
+        return lignes.sum();
+    }
+
+    @Override
+    public double getMoyenneMs() {
+        return latences.getMoyenne() / 1e6;
+    }
+
+    @Override
+    public double getP50Ms() {
+        return latences.getPercentile(50) / 1e6;
+    }
+
+    @Override
+    public double getP99Ms() {
+        return latences.getPercentile(99) / 1e6;
+    }
+
+    @Override
+    public double getP999Ms() {
+        return latences.getPercentile(99.9) / 1e6;
+    }
+
+    @Override
+    public double getMaxMs() {
+        return latences.getMax() / 1e6;
+    }
+
+    @Override
+    public void reinitialiser() {
+        latences.reinitialiser();
+        erreurs.reset();
+        lignes.reset();
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.gestionbibliotheque.dao;
+
+/**
+ * Vue JMX des mesures d'une opération (méthode de DAO, action de l'interface, emprunt de connexion)
+ * Les durées sont en millisecondes ; les percentiles sont précis à environ 3 %.
+ */
+public interface MetriquesOperationMXBean {
+
+    String getNom();
+
+    String getCategorie();
+
+    long getNombre();
+
+    long getErreurs();
+
+    long getLignes();
+
+    double getMoyenneMs();
+
+    double getP50Ms();
+
+    double getP99Ms();
+
+    double getP999Ms();
+
+    double getMaxMs();
+
+    /**
+     * Remet les compteurs et l'histogramme à zéro
+     */
+    void reinitialiser();
+}
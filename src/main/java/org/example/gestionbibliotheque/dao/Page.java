@@ -0,0 +1,75 @@
+package org.example.gestionbibliotheque.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Page de résultats d'une lecture paginée par clé (keyset pagination)
+ * Au lieu d'un OFFSET, la page suivante reprend après la dernière ligne lue :
+ * le coût d'une page ne dépend donc pas de sa position dans la table.
+ * @param elements Les éléments de la page
+ * @param suivant Le curseur de la page suivante, ou null s'il s'agit de la dernière page
+ * @param <T> Le type des éléments
+ */
+public record Page<T>(List<T> elements, Curseur suivant) {
+
+    /**
+     * Position dans un parcours trié : valeur de la clé de tri et identifiant de la dernière ligne lue
+     * L'identifiant départage les lignes qui ont la même valeur de clé
+     * @param cle La valeur brute de la colonne de tri
+     * @param id L'identifiant de la dernière ligne lue
+     */
+    public record Curseur(Object cle, int id) {
+    }
+
+    /**
+     * @return true s'il n'y a plus de page après celle-ci
+     */
+    public boolean estDerniere() {
+        return suivant == null;
+    }
+
+    /**
+     * Construit le résultat d'une lecture qui a demandé une ligne de plus que la taille de page
+     * La ligne supplémentaire indique seulement qu'il reste des lignes ; elle n'est pas rendue
+     * @param elements Les lignes lues (au plus taille + 1)
+     * @param dernier Le curseur de la ligne de rang taille (ignoré s'il n'y a pas de ligne supplémentaire)
+     * @param taille La taille de page demandée
+     */
+    static <T> Page<T> creer(List<T> elements, Curseur dernier, int taille) {
+        if (elements.size() > taille) {
+            return new Page<>(List.copyOf(elements.subList(0, taille)), dernier);
+        }
+        return new Page<>(List.copyOf(elements), null);
+    }
+
+    // Condition de reprise après le curseur : (cle, id) > (?, ?), ou id > ? pour un tri par identifiant
+    static String conditionApres(String colonneTri, String colonneId) {
+        if (colonneTri.equals(colonneId)) {
+            return colonneId + " > ?";
+        }
+        return "(" + colonneTri + ", " + colonneId + ") > (?, ?)";
+    }
+
+    // Ordre de parcours correspondant à conditionApres
+    static String ordre(String colonneTri, String colonneId) {
+        return colonneTri.equals(colonneId) ? colonneId : colonneTri + ", " + colonneId;
+    }
+
+    // Lie les paramètres de conditionApres à partir de l'index donné et retourne l'index suivant
+    static int lierCurseur(PreparedStatement stmt, int index, Curseur curseur, boolean triParId) throws SQLException {
+        if (!triParId) {
+            stmt.setObject(index++, curseur.cle());
+        }
+        stmt.setInt(index++, curseur.id());
+        return index;
+    }
+
+    // Vérifie la taille de page demandée
+    static void verifierTaille(int taille) {
+        if (taille < 1) {
+            throw new IllegalArgumentException("La taille de page doit être au moins 1");
+        }
+    }
+}
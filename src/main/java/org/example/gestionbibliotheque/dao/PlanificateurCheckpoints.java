@@ -0,0 +1,178 @@
+package org.example.gestionbibliotheque.dao;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checkpoints WAL planifiés en arrière-plan
+ * SQLite ne recopie le journal WAL dans la base qu'à la validation qui fait passer le journal au-delà de
+ * wal_autocheckpoint pages, sur le thread de cette validation. Le planificateur fait ce travail à
+ * intervalle régulier sur son propre thread, en mode PASSIVE (sans attendre les lecteurs ni bloquer
+ * les écritures). Si le fichier WAL dépasse le seuil, le checkpoint est fait en mode TRUNCATE : il attend
+ * la fin des lectures en cours (dans la limite du busy_timeout) puis ramène le fichier à zéro.
+ * La durée des checkpoints est publiée par l'opération Stockage Checkpoint (lignes = pages recopiées).
+ */
+public final class PlanificateurCheckpoints {
+
+    /**
+     * Instantané des checkpoints
+     * @param checkpoints Le nombre de checkpoints effectués
+     * @param incomplets Le nombre de checkpoints qui n'ont pas pu recopier tout le journal (lecteurs en cours)
+     * @param tronques Le nombre de checkpoints en mode TRUNCATE
+     * @param erreurs Le nombre de checkpoints en échec
+     * @param tailleWalOctets La taille actuelle du fichier WAL
+     * @param tailleWalMaxOctets La plus grande taille du fichier WAL observée avant un checkpoint
+     * @param pagesWal Le nombre de pages du journal au dernier checkpoint
+     * @param pagesReportees Le nombre de pages que le dernier checkpoint n'a pas pu recopier
+     * @param derniereDureeNs La durée du dernier checkpoint
+     */
+    public record Statistiques(long checkpoints, long incomplets, long tronques, long erreurs, long tailleWalOctets,
+                               long tailleWalMaxOctets, long pagesWal, long pagesReportees, long derniereDureeNs) {
+    }
+
+    private static final MetriquesOperation METRIQUES =
+            Metriques.operation(Metriques.CATEGORIE_STOCKAGE, "Checkpoint");
+
+    private final ConnectionPool pool;
+    private final long seuilTronquerOctets;
+    private final ScheduledExecutorService planificateur;
+    private volatile Path fichierWal;
+    private final AtomicLong checkpoints = new AtomicLong();
+    private final AtomicLong incomplets = new AtomicLong();
+    private final AtomicLong tronques = new AtomicLong();
+    private final AtomicLong erreurs = new AtomicLong();
+    private final AtomicLong tailleWalMaxOctets = new AtomicLong();
+    private volatile long pagesWal;
+    private volatile long pagesReportees;
+    private volatile long derniereDureeNs;
+
+    /**
+     * Démarre les checkpoints périodiques
+     * @param pool Le pool qui fournit la connexion de chaque checkpoint
+     * @param periodeMs L'intervalle entre la fin d'un checkpoint et le début du suivant
+     * @param seuilTronquerOctets La taille du fichier WAL au-delà de laquelle il est ramené à zéro
+     */
+    PlanificateurCheckpoints(ConnectionPool pool, long periodeMs, long seuilTronquerOctets) {
+        if (periodeMs <= 0) {
+            throw new IllegalArgumentException("La période des checkpoints doit être positive");
+        }
+        this.pool = pool;
+        this.seuilTronquerOctets = seuilTronquerOctets;
+        this.planificateur = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "bibliotheque-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        planificateur.scheduleWithFixedDelay(this::executer, periodeMs, periodeMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Tâche planifiée : une erreur est signalée sans interrompre les checkpoints suivants
+    private void executer() {
+        try {
+            checkpoint();
+        } catch (SQLException e) {
+            System.err.println("Échec du checkpoint WAL : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Fait un checkpoint immédiatement
+     * @return Le nombre de pages recopiées dans la base
+     * @throws SQLException Si le checkpoint échoue
+     */
+    public long checkpoint() throws SQLException {
+        long debut = System.nanoTime();
+        try (Connection conn = pool.getConnection();
+             Statement stmt = conn.createStatement()) {
+            long tailleAvant = tailleWal(conn, stmt);
+            tailleWalMaxOctets.accumulateAndGet(tailleAvant, Math::max);
+            boolean tronquer = tailleAvant > seuilTronquerOctets;
+            debut = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery("PRAGMA wal_checkpoint(" + (tronquer ? "TRUNCATE" : "PASSIVE") + ")")) {
+                if (!rs.next()) {
+                    throw new SQLException("PRAGMA wal_checkpoint n'a rendu aucune ligne");
+                }
+                // Colonnes : 1 si le checkpoint a été bloqué, pages du journal, pages recopiées
+                boolean bloque = rs.getInt(1) != 0;
+                long pages = rs.getLong(2);
+                long recopiees = rs.getLong(3);
+                long duree = System.nanoTime() - debut;
+                METRIQUES.enregistrer(duree, Math.max(0, recopiees));
+                checkpoints.incrementAndGet();
+                if (tronquer) {
+                    tronques.incrementAndGet();
+                }
+                if (bloque || recopiees < pages) {
+                    incomplets.incrementAndGet();
+                }
+                pagesWal = Math.max(0, pages);
+                pagesReportees = Math.max(0, pages - recopiees);
+                derniereDureeNs = duree;
+                return Math.max(0, recopiees);
+            }
+        } catch (SQLException e) {
+            METRIQUES.enregistrerErreur(System.nanoTime() - debut);
+            erreurs.incrementAndGet();
+            throw e;
+        }
+    }
+
+    // Taille du fichier WAL ; son chemin est lu une fois dans la liste des bases de la connexion
+    private long tailleWal(Connection conn, Statement stmt) throws SQLException {
+        if (fichierWal == null) {
+            try (ResultSet rs = stmt.executeQuery("SELECT file FROM pragma_database_list WHERE name = 'main'")) {
+                String fichier = rs.next() ? rs.getString(1) : null;
+                if (fichier == null || fichier.isEmpty()) {
+                    // Base en mémoire : pas de fichier WAL
+                    return 0;
+                }
+                fichierWal = Path.of(fichier + "-wal");
+            }
+        }
+        return tailleWal();
+    }
+
+    /**
+     * @return La taille actuelle du fichier WAL, 0 s'il n'existe pas ou n'est pas encore connu
+     */
+    public long tailleWal() {
+        Path fichier = fichierWal;
+        if (fichier == null) {
+            return 0;
+        }
+        try {
+            return Files.exists(fichier) ? Files.size(fichier) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * @return Un instantané des checkpoints
+     */
+    public Statistiques getStatistiques() {
+        return new Statistiques(checkpoints.get(), incomplets.get(), tronques.get(), erreurs.get(), tailleWal(),
+                tailleWalMaxOctets.get(), pagesWal, pagesReportees, derniereDureeNs);
+    }
+
+    /**
+     * Arrête les checkpoints planifiés (un checkpoint en cours se termine)
+     */
+    void arreter() {
+        planificateur.shutdown();
+        try {
+            planificateur.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
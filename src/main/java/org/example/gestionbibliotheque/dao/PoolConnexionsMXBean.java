@@ -0,0 +1,40 @@
+package org.example.gestionbibliotheque.dao;
+
+/**
+ * Vue JMX de l'état du pool de connexions de l'application
+ * Le temps d'attente détaillé (percentiles) est publié par l'opération Pool ConnectionPool.getConnection.
+ */
+public interface PoolConnexionsMXBean {
+
+    String getUrl();
+
+    int getTailleMax();
+
+    int getActives();
+
+    int getInactives();
+
+    int getEnAttente();
+
+    long getEmprunts();
+
+    double getAttenteMoyenneMicros();
+
+    double getAttenteMaxMs();
+
+    long getCreees();
+
+    long getEvincees();
+
+    long getFuites();
+
+    int getTailleCacheRequetes();
+
+    long getRequetesSucces();
+
+    long getRequetesEchecs();
+
+    long getRequetesEvictions();
+
+    double getTauxSuccesRequetes();
+}
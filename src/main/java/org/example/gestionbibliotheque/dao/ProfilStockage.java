@@ -0,0 +1,127 @@
+package org.example.gestionbibliotheque.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+/**
+ * Profils de stockage SQLite appliqués à chaque connexion ouverte par le pool
+ * Tous les profils passent la base en WAL : les lectures ne sont plus bloquées par une écriture en cours
+ * et une transaction ne synchronise plus que le journal. Les profils diffèrent par la durabilité
+ * (synchronous), la mémoire accordée (cache de pages, mmap) et la fréquence des checkpoints.
+ * Le profil est choisi par -Dbibliotheque.stockage.profil=bureau|chargement|borne (bureau par défaut).
+ */
+public enum ProfilStockage {
+
+    /**
+     * Poste de prêt : WAL avec synchronous=NORMAL (une coupure de courant peut perdre les dernières
+     * transactions validées, jamais corrompre la base), cache de 16 Mo, 256 Mo projetés en mémoire
+     */
+    BUREAU("bureau", "NORMAL", 16 * 1024, 256L << 20, false, 1_000, 30_000L),
+
+    /**
+     * Chargement en masse (import, génération de jeux de données) : aucune synchronisation sur disque,
+     * grand cache, checkpoints automatiques espacés et checkpoints planifiés fréquents
+     * La base peut être perdue en cas de coupure : elle doit pouvoir être rechargée
+     */
+    CHARGEMENT("chargement", "OFF", 256 * 1024, 1L << 30, false, 10_000, 5_000L),
+
+    /**
+     * Borne de consultation : connexions en lecture seule (query_only), cache et mmap de lecture,
+     * pas de checkpoint planifié (le poste qui écrit s'en charge)
+     */
+    BORNE("borne", "NORMAL", 32 * 1024, 256L << 20, true, 1_000, 0L);
+
+    private final String nom;
+    private final String synchronous;
+    private final int cacheKo;
+    private final long mmapOctets;
+    private final boolean lectureSeule;
+    private final int pagesAutoCheckpoint;
+    private final long periodeCheckpointMs;
+
+    ProfilStockage(String nom, String synchronous, int cacheKo, long mmapOctets, boolean lectureSeule,
+                   int pagesAutoCheckpoint, long periodeCheckpointMs) {
+        this.nom = nom;
+        this.synchronous = synchronous;
+        this.cacheKo = cacheKo;
+        this.mmapOctets = mmapOctets;
+        this.lectureSeule = lectureSeule;
+        this.pagesAutoCheckpoint = pagesAutoCheckpoint;
+        this.periodeCheckpointMs = periodeCheckpointMs;
+    }
+
+    /**
+     * Lit le profil choisi par la propriété système bibliotheque.stockage.profil
+     * @return Le profil choisi, BUREAU par défaut
+     */
+    public static ProfilStockage depuisProprietesSysteme() {
+        return depuisNom(System.getProperty("bibliotheque.stockage.profil", BUREAU.nom));
+    }
+
+    /**
+     * @param nom Le nom du profil (bureau, chargement ou borne), sans tenir compte de la casse
+     * @return Le profil correspondant
+     */
+    public static ProfilStockage depuisNom(String nom) {
+        String cherche = nom.strip().toLowerCase(Locale.ROOT);
+        for (ProfilStockage profil : values()) {
+            if (profil.nom.equals(cherche)) {
+                return profil;
+            }
+        }
+        throw new IllegalArgumentException("Profil de stockage inconnu : " + nom + " (bureau, chargement ou borne)");
+    }
+
+    /**
+     * Passe la base en journal WAL
+     * journal_mode est persistant dans le fichier : il suffit de le modifier une fois, sur la première
+     * connexion ouverte (le pool le fait à l'ouverture de sa première connexion physique)
+     * @param connection Une connexion hors transaction
+     */
+    public static void activerWal(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA journal_mode = WAL");
+        }
+    }
+
+    /**
+     * Applique les pragmas du profil à une connexion
+     * Ces réglages valent pour la seule connexion et doivent être appliqués à chacune ;
+     * journal_mode, persistant dans le fichier, est réglé à part par activerWal.
+     * @param connection Une connexion hors transaction
+     */
+    public void appliquer(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA synchronous = " + synchronous);
+            stmt.execute("PRAGMA cache_size = -" + cacheKo);
+            stmt.execute("PRAGMA mmap_size = " + mmapOctets);
+            stmt.execute("PRAGMA temp_store = MEMORY");
+            stmt.execute("PRAGMA wal_autocheckpoint = " + pagesAutoCheckpoint);
+            stmt.execute("PRAGMA query_only = " + (lectureSeule ? "ON" : "OFF"));
+        }
+    }
+
+    /**
+     * @return Le nom du profil, tel qu'accepté par bibliotheque.stockage.profil
+     */
+    public String getNom() {
+        return nom;
+    }
+
+    /**
+     * @return true si les connexions de ce profil refusent les écritures
+     */
+    public boolean estLectureSeule() {
+        return lectureSeule;
+    }
+
+    /**
+     * La période peut être remplacée par -Dbibliotheque.stockage.checkpointMs=... (0 désactive)
+     * @return La période des checkpoints planifiés en millisecondes, 0 s'ils sont désactivés
+     */
+    public long getPeriodeCheckpointMs() {
+        return Long.getLong("bibliotheque.stockage.checkpointMs", periodeCheckpointMs);
+    }
+}
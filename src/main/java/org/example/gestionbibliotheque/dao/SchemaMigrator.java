@@ -0,0 +1,206 @@
+package org.example.gestionbibliotheque.dao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Moteur de migrations incrémentales du schéma
+ * Chaque migration est un script SQL versionné (src/main/resources/db/migration).
+ * Les versions appliquées sont enregistrées avec leur somme de contrôle dans la table schema_version :
+ * au démarrage seules les migrations en attente sont exécutées, et aucune instruction DDL
+ * n'est lancée quand le schéma est déjà à jour.
+ */
+public class SchemaMigrator {
+
+    /**
+     * Une migration du schéma
+     * @param version Le numéro de version (strictement croissant)
+     * @param description Une description courte de la migration
+     * @param script Le nom du script SQL dans /db/migration
+     */
+    public record Migration(int version, String description, String script) {
+    }
+
+    // Liste ordonnée des migrations connues de l'application
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Schéma initial", "V1__schema_initial.sql"),
+            new Migration(2, "Index des emprunts", "V2__index_emprunts.sql"),
+            new Migration(3, "Recherche plein texte du catalogue", "V3__recherche_plein_texte.sql"),
+            new Migration(4, "Index des clés de tri", "V4__index_tri.sql"),
+            new Migration(5, "Dates des emprunts en jours depuis l'époque", "V5__dates_jours_epoque.sql")
+    );
+
+    private static final String TABLE_VERSION = "schema_version";
+
+    private SchemaMigrator() {
+    }
+
+    /**
+     * Applique les migrations en attente
+     * @param connection La connexion à utiliser
+     * @return Le nombre de migrations appliquées
+     * @throws SQLException Si une migration échoue ou si un script déjà appliqué a été modifié
+     */
+    public static int migrer(Connection connection) throws SQLException {
+        if (!tableVersionExiste(connection)) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS schema_version (
+                        version INTEGER PRIMARY KEY,
+                        description TEXT NOT NULL,
+                        checksum INTEGER NOT NULL,
+                        date_application TEXT NOT NULL,
+                        duree_ms INTEGER NOT NULL
+                    );
+                """);
+            }
+        }
+
+        Map<Integer, Long> appliquees = lireVersionsAppliquees(connection);
+        int nbAppliquees = 0;
+        for (Migration migration : MIGRATIONS) {
+            String script = lireScript(migration);
+            long checksum = checksum(script);
+            Long checksumApplique = appliquees.get(migration.version());
+            if (checksumApplique != null) {
+                if (checksumApplique != checksum) {
+                    throw new SQLException("Le script de la migration V" + migration.version()
+                            + " (" + migration.script() + ") a été modifié après son application");
+                }
+                continue;
+            }
+            appliquer(connection, migration, script, checksum);
+            nbAppliquees++;
+        }
+
+        if (nbAppliquees == 0) {
+            System.out.println("Schéma à jour (version " + versionCourante() + "), aucune migration à appliquer");
+        }
+        return nbAppliquees;
+    }
+
+    /**
+     * @return La version la plus récente connue de l'application
+     */
+    public static int versionCourante() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version();
+    }
+
+    private static boolean tableVersionExiste(Connection connection) throws SQLException {
+        String sql = "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, TABLE_VERSION);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static Map<Integer, Long> lireVersionsAppliquees(Connection connection) throws SQLException {
+        Map<Integer, Long> versions = new HashMap<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                versions.put(rs.getInt("version"), rs.getLong("checksum"));
+            }
+        }
+        return versions;
+    }
+
+    // Exécute une migration et l'enregistre dans schema_version au sein d'une même transaction
+    private static void appliquer(Connection connection, Migration migration, String script, long checksum) throws SQLException {
+        long debut = System.nanoTime();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            try (Statement stmt = connection.createStatement()) {
+                for (String instruction : decouper(script)) {
+                    stmt.execute(instruction);
+                }
+            }
+            long dureeMs = (System.nanoTime() - debut) / 1_000_000;
+            String sql = "INSERT INTO schema_version (version, description, checksum, date_application, duree_ms) "
+                    + "VALUES (?, ?, ?, datetime('now'), ?)";
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, migration.version());
+                stmt.setString(2, migration.description());
+                stmt.setLong(3, checksum);
+                stmt.setLong(4, dureeMs);
+                stmt.executeUpdate();
+            }
+            connection.commit();
+            System.out.println("Migration V" + migration.version() + " (" + migration.description()
+                    + ") appliquée en " + dureeMs + " ms");
+        } catch (SQLException e) {
+            connection.rollback();
+            throw new SQLException("Échec de la migration V" + migration.version() + " : " + e.getMessage(), e);
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static String lireScript(Migration migration) throws SQLException {
+        String chemin = "/db/migration/" + migration.script();
+        try (InputStream in = SchemaMigrator.class.getResourceAsStream(chemin)) {
+            if (in == null) {
+                throw new SQLException("Script de migration introuvable : " + chemin);
+            }
+            // Normaliser les fins de ligne pour que la somme de contrôle ne dépende pas de la plateforme
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+        } catch (IOException e) {
+            throw new SQLException("Impossible de lire le script de migration " + chemin, e);
+        }
+    }
+
+    private static long checksum(String script) {
+        CRC32 crc = new CRC32();
+        crc.update(script.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    /**
+     * Découpe un script en instructions séparées par des points-virgules
+     * Les points-virgules internes aux blocs BEGIN ... END (déclencheurs) ne terminent pas l'instruction
+     * @param script Le contenu du script
+     * @return La liste des instructions
+     */
+    static List<String> decouper(String script) {
+        List<String> instructions = new ArrayList<>();
+        StringBuilder courante = new StringBuilder();
+        int profondeur = 0;
+        for (String ligne : script.split("\n")) {
+            String nettoyee = ligne.strip();
+            if (nettoyee.isEmpty() || nettoyee.startsWith("--")) {
+                continue;
+            }
+            courante.append(ligne).append('\n');
+            String majuscules = nettoyee.toUpperCase(Locale.ROOT);
+            if (majuscules.equals("BEGIN") || majuscules.endsWith(" BEGIN")) {
+                profondeur++;
+            }
+            if (majuscules.equals("END;") && profondeur > 0) {
+                profondeur--;
+            }
+            if (profondeur == 0 && nettoyee.endsWith(";")) {
+                instructions.add(courante.toString().strip());
+                courante.setLength(0);
+            }
+        }
+        if (!courante.isEmpty()) {
+            instructions.add(courante.toString().strip());
+        }
+        return instructions;
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.gestionbibliotheque.dao;
+
+/**
+ * Vue JMX du stockage SQLite : profil appliqué, taille du journal WAL et checkpoints planifiés
+ * Le détail des durées de checkpoint (percentiles) est publié par l'opération Stockage Checkpoint.
+ */
+public interface StockageMXBean {
+
+    String getProfil();
+
+    long getPeriodeCheckpointMs();
+
+    long getTailleWalOctets();
+
+    long getTailleWalMaxOctets();
+
+    long getCheckpoints();
+
+    long getCheckpointsIncomplets();
+
+    long getCheckpointsTronques();
+
+    long getCheckpointsEnErreur();
+
+    long getPagesWal();
+
+    long getPagesReportees();
+
+    double getDerniereDureeCheckpointMs();
+}
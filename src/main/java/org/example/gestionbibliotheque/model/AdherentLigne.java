@@ -0,0 +1,14 @@
+package org.example.gestionbibliotheque.model;
+
+/**
+ * Adhérent en lecture seule, tel que lu dans la base
+ * Contrairement à Adherent, cet enregistrement ne porte aucune propriété JavaFX : une ligne n'occupe
+ * qu'un objet (plus ses chaînes). À utiliser pour les lectures volumineuses ou les calculs.
+ * @param id Identifiant unique de l'adhérent
+ * @param nom Nom de l'adhérent
+ * @param prenom Prénom de l'adhérent
+ * @param email Adresse email de l'adhérent
+ * @param telephone Numéro de téléphone de l'adhérent
+ */
+public record AdherentLigne(int id, String nom, String prenom, String email, String telephone) {
+}
@@ -0,0 +1,48 @@
+package org.example.gestionbibliotheque.model;
+
+import javafx.beans.property.*;
+
+/**
+ * Emprunt accompagné du titre du livre et du nom de l'adhérent
+ * Cette projection est chargée en une seule requête (jointure) pour l'affichage de la table des emprunts
+ */
+public class EmpruntDetail extends Emprunt {
+    private final StringProperty titreLivre;   // Titre du livre emprunté
+    private final StringProperty nomAdherent;  // Nom de l'adhérent qui a emprunté le livre
+
+    /**
+     * Constructeur par défaut
+     * Crée un emprunt détaillé vide avec des propriétés initialisées
+     */
+    public EmpruntDetail() {
+        super();
+        this.titreLivre = new SimpleStringProperty("");
+        this.nomAdherent = new SimpleStringProperty("");
+    }
+
+    // Méthodes pour accéder aux propriétés (utilisées par JavaFX)
+    public StringProperty titreLivreProperty() {
+        return titreLivre;
+    }
+
+    public StringProperty nomAdherentProperty() {
+        return nomAdherent;
+    }
+
+    // Getters et setters classiques
+    public String getTitreLivre() {
+        return titreLivre.get();
+    }
+
+    public void setTitreLivre(String titreLivre) {
+        this.titreLivre.set(titreLivre != null ? titreLivre : "");
+    }
+
+    public String getNomAdherent() {
+        return nomAdherent.get();
+    }
+
+    public void setNomAdherent(String nomAdherent) {
+        this.nomAdherent.set(nomAdherent != null ? nomAdherent : "");
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.gestionbibliotheque.model;
+
+import java.time.LocalDate;
+
+/**
+ * Emprunt en lecture seule, tel que lu dans la base
+ * Un Emprunt porte six propriétés JavaFX (sept objets par ligne, plus les dates) ; cet enregistrement
+ * n'en a aucune. Les propriétés observables ne sont créées qu'à l'affichage, pour les cellules visibles.
+ * Le titre du livre et le nom de l'adhérent ne sont renseignés que par les lectures avec jointure.
+ * @param id Identifiant unique de l'emprunt
+ * @param livreId Identifiant du livre emprunté
+ * @param adherentId Identifiant de l'adhérent qui a emprunté le livre
+ * @param dateEmprunt Date d'emprunt du livre
+ * @param dateRetourPrevue Date de retour prévue du livre
+ * @param dateRetourEffective Date de retour effective, ou null si l'emprunt est en cours
+ * @param titreLivre Titre du livre emprunté, ou null sans jointure
+ * @param nomAdherent Nom de l'adhérent, ou null sans jointure
+ */
+public record EmpruntLigne(int id, int livreId, int adherentId, LocalDate dateEmprunt, LocalDate dateRetourPrevue,
+                           LocalDate dateRetourEffective, String titreLivre, String nomAdherent) {
+
+    /**
+     * @return true si le livre n'a pas encore été retourné
+     */
+    public boolean enCours() {
+        return dateRetourEffective == null;
+    }
+
+    /**
+     * Retourne une copie de l'emprunt clos à la date donnée
+     * @param dateRetour La date de retour effective
+     * @return L'emprunt retourné
+     */
+    public EmpruntLigne avecRetour(LocalDate dateRetour) {
+        return new EmpruntLigne(id, livreId, adherentId, dateEmprunt, dateRetourPrevue, dateRetour, titreLivre, nomAdherent);
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.gestionbibliotheque.model;
+
+/**
+ * Livre en lecture seule, tel que lu dans la base
+ * Contrairement à Livre, cet enregistrement ne porte aucune propriété JavaFX : une ligne n'occupe
+ * qu'un objet (plus ses chaînes). À utiliser pour les lectures volumineuses ou les calculs.
+ * @param id Identifiant unique du livre
+ * @param titre Titre du livre
+ * @param auteur Auteur du livre
+ * @param nbExemplaires Nombre d'exemplaires disponibles
+ */
+public record LivreLigne(int id, String titre, String auteur, int nbExemplaires) {
+}
@@ -0,0 +1,138 @@
+package org.example.gestionbibliotheque.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogramme de latences à précision relative constante (à la manière de HdrHistogram)
+ * Chaque puissance de deux est découpée en 32 intervalles : un percentile est donné à environ 3 % près,
+ * de la nanoseconde à plusieurs années, avec une mémoire fixe (moins de 16 Ko).
+ * L'enregistrement est sans verrou et peut être fait par plusieurs threads à la fois.
+ */
+public class HistogrammeLatence {
+
+    // 2^BITS_PRECISION intervalles par puissance de deux
+    private static final int BITS_PRECISION = 5;
+    private static final int SOUS_INTERVALLES = 1 << BITS_PRECISION;
+    private static final int NB_INTERVALLES = (64 - BITS_PRECISION + 1) * SOUS_INTERVALLES;
+
+    private final AtomicLongArray compteurs = new AtomicLongArray(NB_INTERVALLES);
+    private final LongAdder nombre = new LongAdder();
+    private final LongAdder somme = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Enregistre une durée
+     * @param nanos La durée en nanosecondes (les valeurs négatives sont comptées comme 0)
+     */
+    public void enregistrer(long nanos) {
+        long valeur = Math.max(0, nanos);
+        compteurs.incrementAndGet(indice(valeur));
+        nombre.increment();
+        somme.add(valeur);
+        max.accumulate(valeur);
+    }
+
+    /**
+     * @return Le nombre de durées enregistrées
+     */
+    public long getNombre() {
+        return nombre.sum();
+    }
+
+    /**
+     * @return La durée moyenne en nanosecondes (0 si rien n'a été enregistré)
+     */
+    public double getMoyenne() {
+        long n = nombre.sum();
+        return n == 0 ? 0 : (double) somme.sum() / n;
+    }
+
+    /**
+     * @return La durée maximale enregistrée en nanosecondes
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Retourne le percentile demandé
+     * @param percentile Le percentile entre 0 et 100 (par exemple 99.9)
+     * @return La durée en nanosecondes sous laquelle se trouve la proportion demandée des mesures
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Le percentile doit être compris entre 0 et 100");
+        }
+        long total = 0;
+        long[] instantane = new long[NB_INTERVALLES];
+        for (int i = 0; i < NB_INTERVALLES; i++) {
+            instantane[i] = compteurs.get(i);
+            total += instantane[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rang = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long cumul = 0;
+        for (int i = 0; i < NB_INTERVALLES; i++) {
+            cumul += instantane[i];
+            if (cumul >= rang) {
+                return Math.min(valeurMediane(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Ajoute les mesures d'un autre histogramme à celui-ci
+     * @param autre L'histogramme à fusionner
+     */
+    public void ajouter(HistogrammeLatence autre) {
+        for (int i = 0; i < NB_INTERVALLES; i++) {
+            long n = autre.compteurs.get(i);
+            if (n != 0) {
+                compteurs.addAndGet(i, n);
+            }
+        }
+        nombre.add(autre.nombre.sum());
+        somme.add(autre.somme.sum());
+        max.accumulate(autre.max.get());
+    }
+
+    /**
+     * Remet l'histogramme à zéro
+     * Les enregistrements concurrents d'une remise à zéro peuvent être perdus
+     */
+    public void reinitialiser() {
+        for (int i = 0; i < NB_INTERVALLES; i++) {
+            compteurs.set(i, 0);
+        }
+        nombre.reset();
+        somme.reset();
+        max.reset();
+    }
+
+    // Les valeurs inférieures à 32 ont chacune leur intervalle ; au-delà, les 5 bits qui suivent
+    // le bit de poids fort désignent l'intervalle dans la puissance de deux
+    private static int indice(long valeur) {
+        if (valeur < SOUS_INTERVALLES) {
+            return (int) valeur;
+        }
+        int bitFort = 63 - Long.numberOfLeadingZeros(valeur);
+        int decalage = bitFort - BITS_PRECISION;
+        int sousIntervalle = (int) (valeur >>> decalage) - SOUS_INTERVALLES;
+        return (decalage + 1) * SOUS_INTERVALLES + sousIntervalle;
+    }
+
+    // Valeur représentative (milieu) d'un intervalle
+    private static long valeurMediane(int indice) {
+        if (indice < SOUS_INTERVALLES) {
+            return indice;
+        }
+        int decalage = indice / SOUS_INTERVALLES - 1;
+        long debut = (long) (SOUS_INTERVALLES + indice % SOUS_INTERVALLES) << decalage;
+        return debut + ((1L << decalage) >>> 1);
+    }
+}
@@ -0,0 +1,191 @@
+package org.example.gestionbibliotheque.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Lecture en flux d'un fichier CSV dont la première ligne nomme les colonnes
+ * Le séparateur (virgule, point-virgule ou tabulation) est déduit de la ligne d'en-tête.
+ * Les champs entre guillemets peuvent contenir le séparateur, des guillemets doublés ("") et des retours
+ * à la ligne. Les lignes vides sont ignorées et les valeurs sont rendues sans espaces en début et en fin.
+ * Seul l'enregistrement en cours est gardé en mémoire.
+ */
+public final class LecteurCsv implements LecteurEnregistrements {
+
+    private static final char[] SEPARATEURS = {';', ',', '\t'};
+
+    private final BufferedReader lecteur;
+    private final char separateur;
+    private final int[] positions;
+    private final int nbColonnesRequises;
+    private long numeroLigne;
+
+    /**
+     * Lit la ligne d'en-tête et repère les colonnes demandées
+     * @param lecteur Le texte du fichier
+     * @param colonnes Les colonnes à extraire, sans tenir compte de la casse ; les autres sont ignorées
+     * @throws IOException Si le fichier est vide ou si une colonne demandée manque dans l'en-tête
+     */
+    public LecteurCsv(BufferedReader lecteur, String... colonnes) throws IOException {
+        this.lecteur = lecteur;
+        String entete = lecteur.readLine();
+        numeroLigne = 1;
+        if (entete == null) {
+            throw new IOException("Le fichier CSV est vide : la première ligne doit nommer les colonnes");
+        }
+        // Marque d'ordre des octets laissée par certains tableurs
+        if (entete.startsWith("\uFEFF")) {
+            entete = entete.substring(1);
+        }
+        this.separateur = detecterSeparateur(entete);
+        List<String> noms = new ArrayList<>();
+        decouper(entete, noms, new StringBuilder(), false);
+        this.positions = new int[colonnes.length];
+        int requises = 0;
+        for (int i = 0; i < colonnes.length; i++) {
+            positions[i] = -1;
+            for (int j = 0; j < noms.size(); j++) {
+                if (noms.get(j).strip().toLowerCase(Locale.ROOT).equals(colonnes[i].toLowerCase(Locale.ROOT))) {
+                    positions[i] = j;
+                    break;
+                }
+            }
+            if (positions[i] < 0) {
+                throw new IOException("Colonne " + colonnes[i] + " absente de l'en-tête (" + String.join(", ", noms)
+                        + ") ; colonnes attendues : " + String.join(", ", colonnes));
+            }
+            requises = Math.max(requises, positions[i] + 1);
+        }
+        this.nbColonnesRequises = requises;
+    }
+
+    // Le séparateur le plus fréquent hors guillemets dans l'en-tête
+    private static char detecterSeparateur(String entete) {
+        char retenu = ',';
+        int max = 0;
+        for (char candidat : SEPARATEURS) {
+            int n = 0;
+            boolean entreGuillemets = false;
+            for (int i = 0; i < entete.length(); i++) {
+                char c = entete.charAt(i);
+                if (c == '"') {
+                    entreGuillemets = !entreGuillemets;
+                } else if (c == candidat && !entreGuillemets) {
+                    n++;
+                }
+            }
+            if (n > max) {
+                max = n;
+                retenu = candidat;
+            }
+        }
+        return retenu;
+    }
+
+    @Override
+    public Enregistrement lire() throws IOException {
+        String texte = lecteur.readLine();
+        numeroLigne++;
+        while (texte != null && texte.isBlank()) {
+            texte = lecteur.readLine();
+            numeroLigne++;
+        }
+        if (texte == null) {
+            return null;
+        }
+        long debut = numeroLigne;
+        List<String> champs = new ArrayList<>(nbColonnesRequises);
+        StringBuilder champ = new StringBuilder();
+        StringBuilder brut = null;
+        // Un champ entre guillemets peut se poursuivre sur les lignes suivantes
+        while (decouper(texte, champs, champ, brut != null)) {
+            String suite = lecteur.readLine();
+            if (brut == null) {
+                brut = new StringBuilder(texte);
+            }
+            if (suite == null) {
+                return new Enregistrement(debut, null, brut.toString(), "Guillemet non fermé à la fin du fichier");
+            }
+            numeroLigne++;
+            brut.append('\n').append(suite);
+            champ.append('\n');
+            texte = suite;
+        }
+        String brutTexte = brut != null ? brut.toString() : texte;
+        if (champs.size() < nbColonnesRequises) {
+            return new Enregistrement(debut, null, brutTexte,
+                    champs.size() + " champ(s) au lieu d'au moins " + nbColonnesRequises);
+        }
+        String[] valeurs = new String[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            valeurs[i] = champs.get(positions[i]).strip();
+        }
+        return new Enregistrement(debut, valeurs, brutTexte, null);
+    }
+
+    /**
+     * Découpe une ligne en champs
+     * @param texte La ligne
+     * @param champs Les champs terminés
+     * @param champ Le champ en cours, à poursuivre
+     * @param entreGuillemets true si la ligne commence à l'intérieur d'un champ entre guillemets
+     * @return true si la ligne se termine à l'intérieur d'un champ entre guillemets (le champ se poursuit)
+     */
+    private boolean decouper(String texte, List<String> champs, StringBuilder champ, boolean entreGuillemets) {
+        boolean cite = entreGuillemets;
+        for (int i = 0; i < texte.length(); i++) {
+            char c = texte.charAt(i);
+            if (entreGuillemets) {
+                if (c != '"') {
+                    champ.append(c);
+                } else if (i + 1 < texte.length() && texte.charAt(i + 1) == '"') {
+                    champ.append('"');
+                    i++;
+                } else {
+                    entreGuillemets = false;
+                }
+            } else if (c == separateur) {
+                champs.add(champ.toString());
+                champ.setLength(0);
+                cite = false;
+            } else if (c == '"' && !cite && champ.toString().isBlank()) {
+                // Les espaces avant un guillemet ouvrant ne font pas partie du champ
+                champ.setLength(0);
+                entreGuillemets = true;
+                cite = true;
+            } else {
+                champ.append(c);
+            }
+        }
+        if (entreGuillemets) {
+            return true;
+        }
+        champs.add(champ.toString());
+        champ.setLength(0);
+        return false;
+    }
+
+    /**
+     * Met une valeur entre guillemets si elle contient un séparateur, un guillemet ou un retour à la ligne
+     * @param valeur La valeur à écrire dans un fichier CSV
+     * @return La valeur prête à être écrite
+     */
+    public static String proteger(String valeur) {
+        if (valeur == null) {
+            return "";
+        }
+        boolean aProteger = valeur.indexOf('"') >= 0 || valeur.indexOf('\n') >= 0 || valeur.indexOf('\r') >= 0;
+        for (char separateur : SEPARATEURS) {
+            aProteger |= valeur.indexOf(separateur) >= 0;
+        }
+        return aProteger ? '"' + valeur.replace("\"", "\"\"") + '"' : valeur;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lecteur.close();
+    }
+}
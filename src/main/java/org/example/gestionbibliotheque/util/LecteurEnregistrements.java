@@ -0,0 +1,29 @@
+package org.example.gestionbibliotheque.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Source d'enregistrements lue en flux, un enregistrement à la fois (fichier CSV ou JSON par ligne)
+ * Seules les colonnes demandées à l'ouverture sont extraites, dans l'ordre demandé ; un enregistrement
+ * illisible est rendu avec la raison de l'erreur pour que la lecture puisse continuer.
+ */
+public interface LecteurEnregistrements extends Closeable {
+
+    /**
+     * Enregistrement lu
+     * @param ligne Le numéro de la première ligne de l'enregistrement dans le fichier
+     * @param valeurs Les valeurs des colonnes demandées (null pour une valeur absente), null si l'enregistrement est illisible
+     * @param brut Le texte de l'enregistrement dans le fichier
+     * @param erreur La raison pour laquelle l'enregistrement est illisible, null s'il a été lu
+     */
+    record Enregistrement(long ligne, String[] valeurs, String brut, String erreur) {
+    }
+
+    /**
+     * Lit l'enregistrement suivant
+     * @return L'enregistrement, ou null à la fin du fichier
+     * @throws IOException Si la lecture du fichier échoue
+     */
+    Enregistrement lire() throws IOException;
+}
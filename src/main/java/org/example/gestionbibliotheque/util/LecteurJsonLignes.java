@@ -0,0 +1,183 @@
+package org.example.gestionbibliotheque.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Lecture en flux d'un fichier JSON à raison d'un objet par ligne (JSON Lines / NDJSON)
+ * Chaque ligne est un objet plat : les valeurs sont des chaînes, des nombres, des booléens ou null,
+ * rendues sous forme de texte. Les clés absentes donnent une valeur null, les clés inconnues sont ignorées.
+ * Une ligne qui n'est pas un objet valide est rendue en erreur sans interrompre la lecture.
+ */
+public final class LecteurJsonLignes implements LecteurEnregistrements {
+
+    private static final Pattern NOMBRE = Pattern.compile("-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?");
+
+    private final BufferedReader lecteur;
+    private final String[] colonnes;
+    private long numeroLigne;
+
+    /**
+     * @param lecteur Le texte du fichier
+     * @param colonnes Les clés à extraire, sans tenir compte de la casse
+     */
+    public LecteurJsonLignes(BufferedReader lecteur, String... colonnes) {
+        this.lecteur = lecteur;
+        this.colonnes = new String[colonnes.length];
+        for (int i = 0; i < colonnes.length; i++) {
+            this.colonnes[i] = colonnes[i].toLowerCase(Locale.ROOT);
+        }
+    }
+
+    @Override
+    public Enregistrement lire() throws IOException {
+        String texte;
+        do {
+            texte = lecteur.readLine();
+            numeroLigne++;
+        } while (texte != null && texte.isBlank());
+        if (texte == null) {
+            return null;
+        }
+        if (numeroLigne == 1 && texte.startsWith("\uFEFF")) {
+            texte = texte.substring(1);
+        }
+        try {
+            return new Enregistrement(numeroLigne, new Analyse(texte).objet(), texte, null);
+        } catch (IllegalArgumentException e) {
+            return new Enregistrement(numeroLigne, null, texte, e.getMessage());
+        }
+    }
+
+    // Analyse d'une ligne ; une erreur de syntaxe lève IllegalArgumentException avec sa position
+    private final class Analyse {
+        private final String texte;
+        private int position;
+
+        Analyse(String texte) {
+            this.texte = texte;
+        }
+
+        String[] objet() {
+            String[] valeurs = new String[colonnes.length];
+            attendre('{');
+            if (!suivantEst('}')) {
+                do {
+                    String cle = chaine();
+                    attendre(':');
+                    String valeur = valeur();
+                    String cleMinuscule = cle.toLowerCase(Locale.ROOT);
+                    for (int i = 0; i < colonnes.length; i++) {
+                        if (colonnes[i].equals(cleMinuscule)) {
+                            valeurs[i] = valeur;
+                        }
+                    }
+                } while (suivantEst(','));
+                attendre('}');
+            }
+            espaces();
+            if (position < texte.length()) {
+                throw erreur("texte après la fin de l'objet");
+            }
+            return valeurs;
+        }
+
+        private String valeur() {
+            espaces();
+            if (position >= texte.length()) {
+                throw erreur("valeur attendue");
+            }
+            char c = texte.charAt(position);
+            if (c == '"') {
+                return chaine();
+            }
+            if (c == '{' || c == '[') {
+                throw erreur("les objets et tableaux imbriqués ne sont pas pris en charge");
+            }
+            int debut = position;
+            while (position < texte.length() && ",} \t".indexOf(texte.charAt(position)) < 0) {
+                position++;
+            }
+            String litteral = texte.substring(debut, position);
+            if (litteral.equals("null")) {
+                return null;
+            }
+            if (litteral.equals("true") || litteral.equals("false") || NOMBRE.matcher(litteral).matches()) {
+                return litteral;
+            }
+            throw erreur("valeur invalide « " + litteral + " »");
+        }
+
+        private String chaine() {
+            attendre('"');
+            StringBuilder resultat = new StringBuilder();
+            while (position < texte.length()) {
+                char c = texte.charAt(position++);
+                if (c == '"') {
+                    return resultat.toString();
+                }
+                if (c != '\\') {
+                    resultat.append(c);
+                    continue;
+                }
+                if (position >= texte.length()) {
+                    break;
+                }
+                char echappe = texte.charAt(position++);
+                switch (echappe) {
+                    case '"', '\\', '/' -> resultat.append(echappe);
+                    case 'b' -> resultat.append('\b');
+                    case 'f' -> resultat.append('\f');
+                    case 'n' -> resultat.append('\n');
+                    case 'r' -> resultat.append('\r');
+                    case 't' -> resultat.append('\t');
+                    case 'u' -> {
+                        if (position + 4 > texte.length()) {
+                            throw erreur("séquence \\u incomplète");
+                        }
+                        try {
+                            resultat.append((char) Integer.parseInt(texte.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw erreur("séquence \\u invalide");
+                        }
+                        position += 4;
+                    }
+                    default -> throw erreur("échappement \\" + echappe + " inconnu");
+                }
+            }
+            throw erreur("chaîne non fermée");
+        }
+
+        private void espaces() {
+            while (position < texte.length() && Character.isWhitespace(texte.charAt(position))) {
+                position++;
+            }
+        }
+
+        private boolean suivantEst(char attendu) {
+            espaces();
+            if (position < texte.length() && texte.charAt(position) == attendu) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void attendre(char attendu) {
+            if (!suivantEst(attendu)) {
+                throw erreur("« " + attendu + " » attendu");
+            }
+        }
+
+        private IllegalArgumentException erreur(String message) {
+            return new IllegalArgumentException("JSON invalide, colonne " + (position + 1) + " : " + message);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lecteur.close();
+    }
+}
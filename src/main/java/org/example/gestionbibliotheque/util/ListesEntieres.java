@@ -0,0 +1,250 @@
+package org.example.gestionbibliotheque.util;
+
+import java.util.Arrays;
+
+/**
+ * Association d'une clé entière à une liste d'entiers, sans objet Integer
+ * Les clés sont rangées par adressage ouvert (sondage linéaire) dans un tableau d'int ; chaque clé
+ * présente possède un tableau d'int qui grandit par doublement. Une clé dont la liste devient vide
+ * est retirée de la table (suppression par recul, sans marqueur de tombe).
+ * L'ordre des valeurs d'une liste n'est pas conservé par les retraits. Cette classe n'est pas synchronisée.
+ */
+public final class ListesEntieres {
+
+    // Marque une case libre : cette valeur ne peut pas servir de clé
+    private static final int LIBRE = Integer.MIN_VALUE;
+    private static final int[] AUCUNE = new int[0];
+    private static final int TAILLE_LISTE_INITIALE = 2;
+
+    private int[] cles;
+    private int[][] listes;
+    private int[] tailles;
+    private int nbCles;
+    private long nbValeurs;
+
+    /**
+     * Crée une table vide
+     * @param capaciteInitiale Le nombre de clés prévu (la table grandit au besoin)
+     */
+    public ListesEntieres(int capaciteInitiale) {
+        allouer(capacitePour(capaciteInitiale));
+    }
+
+    /**
+     * Ajoute une valeur à la liste d'une clé
+     * @param cle La clé (différente de Integer.MIN_VALUE)
+     * @param valeur La valeur ajoutée
+     */
+    public void ajouter(int cle, int valeur) {
+        verifierCle(cle);
+        int i = position(cle);
+        if (cles[i] == LIBRE) {
+            if ((nbCles + 1) * 4L > cles.length * 3L) {
+                agrandir();
+                i = position(cle);
+            }
+            cles[i] = cle;
+            listes[i] = new int[TAILLE_LISTE_INITIALE];
+            nbCles++;
+        }
+        int[] liste = listes[i];
+        if (tailles[i] == liste.length) {
+            liste = Arrays.copyOf(liste, liste.length * 2);
+            listes[i] = liste;
+        }
+        liste[tailles[i]++] = valeur;
+        nbValeurs++;
+    }
+
+    /**
+     * Retire une occurrence d'une valeur de la liste d'une clé
+     * @param cle La clé
+     * @param valeur La valeur retirée
+     * @return true si la valeur était présente
+     */
+    public boolean retirer(int cle, int valeur) {
+        if (cle == LIBRE) {
+            return false;
+        }
+        int i = position(cle);
+        if (cles[i] == LIBRE) {
+            return false;
+        }
+        int[] liste = listes[i];
+        int taille = tailles[i];
+        for (int j = 0; j < taille; j++) {
+            if (liste[j] == valeur) {
+                // La dernière valeur prend la place de la valeur retirée
+                liste[j] = liste[taille - 1];
+                tailles[i] = taille - 1;
+                nbValeurs--;
+                if (taille == 1) {
+                    supprimer(i);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param cle La clé
+     * @param valeur La valeur cherchée
+     * @return true si la liste de la clé contient la valeur
+     */
+    public boolean contient(int cle, int valeur) {
+        if (cle == LIBRE) {
+            return false;
+        }
+        int i = position(cle);
+        if (cles[i] == LIBRE) {
+            return false;
+        }
+        int[] liste = listes[i];
+        for (int j = 0, taille = tailles[i]; j < taille; j++) {
+            if (liste[j] == valeur) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param cle La clé
+     * @return Le nombre de valeurs de la liste de la clé (0 si la clé est absente)
+     */
+    public int taille(int cle) {
+        if (cle == LIBRE) {
+            return 0;
+        }
+        int i = position(cle);
+        return cles[i] == LIBRE ? 0 : tailles[i];
+    }
+
+    /**
+     * @param cle La clé
+     * @return Une copie des valeurs de la liste de la clé (tableau vide si la clé est absente)
+     */
+    public int[] valeurs(int cle) {
+        if (cle == LIBRE) {
+            return AUCUNE;
+        }
+        int i = position(cle);
+        return cles[i] == LIBRE ? AUCUNE : Arrays.copyOf(listes[i], tailles[i]);
+    }
+
+    /**
+     * @return Le nombre de clés présentes
+     */
+    public int nbCles() {
+        return nbCles;
+    }
+
+    /**
+     * @return Le nombre total de valeurs, toutes clés confondues
+     */
+    public long nbValeurs() {
+        return nbValeurs;
+    }
+
+    /**
+     * Retire toutes les clés et libère les listes
+     */
+    public void vider() {
+        allouer(capacitePour(0));
+        nbCles = 0;
+        nbValeurs = 0;
+    }
+
+    /**
+     * Estime la mémoire occupée (tableaux de la table et listes), en-têtes d'objets compris
+     * @return Le nombre d'octets estimé
+     */
+    public long octetsEstimes() {
+        long octets = 16L + 4L * cles.length + 16L + 4L * listes.length + 16L + 4L * tailles.length;
+        for (int i = 0; i < cles.length; i++) {
+            if (cles[i] != LIBRE) {
+                octets += 16L + 4L * listes[i].length;
+            }
+        }
+        return octets;
+    }
+
+    // Case de la clé, ou première case libre de sa séquence de sondage
+    private int position(int cle) {
+        int masque = cles.length - 1;
+        int i = melanger(cle) & masque;
+        while (cles[i] != LIBRE && cles[i] != cle) {
+            i = (i + 1) & masque;
+        }
+        return i;
+    }
+
+    // Libère la case i puis recule les clés suivantes de la même séquence pour ne pas la rompre
+    private void supprimer(int i) {
+        int masque = cles.length - 1;
+        int libre = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & masque;
+            if (cles[j] == LIBRE) {
+                break;
+            }
+            int ideale = melanger(cles[j]) & masque;
+            // La clé en j peut remonter en libre si sa case idéale n'est pas dans ]libre, j]
+            if (((j - ideale) & masque) >= ((j - libre) & masque)) {
+                cles[libre] = cles[j];
+                listes[libre] = listes[j];
+                tailles[libre] = tailles[j];
+                libre = j;
+            }
+        }
+        cles[libre] = LIBRE;
+        listes[libre] = null;
+        tailles[libre] = 0;
+        nbCles--;
+    }
+
+    private void agrandir() {
+        int[] anciennesCles = cles;
+        int[][] anciennesListes = listes;
+        int[] anciennesTailles = tailles;
+        allouer(anciennesCles.length * 2);
+        for (int i = 0; i < anciennesCles.length; i++) {
+            if (anciennesCles[i] != LIBRE) {
+                int j = position(anciennesCles[i]);
+                cles[j] = anciennesCles[i];
+                listes[j] = anciennesListes[i];
+                tailles[j] = anciennesTailles[i];
+            }
+        }
+    }
+
+    private void allouer(int capacite) {
+        cles = new int[capacite];
+        Arrays.fill(cles, LIBRE);
+        listes = new int[capacite][];
+        tailles = new int[capacite];
+    }
+
+    // Puissance de deux gardant le taux de remplissage sous 3/4
+    private static int capacitePour(int nbCles) {
+        int capacite = 16;
+        while (capacite * 3L < Math.max(nbCles, 1) * 4L) {
+            capacite <<= 1;
+        }
+        return capacite;
+    }
+
+    // Hachage de Fibonacci : les identifiants SQLite consécutifs seraient sinon rangés dans des cases voisines
+    private static int melanger(int cle) {
+        int h = cle * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static void verifierCle(int cle) {
+        if (cle == LIBRE) {
+            throw new IllegalArgumentException("Clé réservée : " + cle);
+        }
+    }
+}
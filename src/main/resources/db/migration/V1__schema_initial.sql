@@ -0,0 +1,28 @@
+-- Schéma initial : livres, adhérents et emprunts
+-- IF NOT EXISTS permet d'adopter une base créée avant l'introduction des migrations
+
+CREATE TABLE IF NOT EXISTS Livres (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    titre TEXT NOT NULL,
+    auteur TEXT NOT NULL,
+    nb_exemplaires INTEGER NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS Adherents (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    nom TEXT NOT NULL,
+    prenom TEXT NOT NULL,
+    email TEXT NOT NULL UNIQUE,
+    telephone TEXT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS Emprunts (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    date_emprunt DATE NOT NULL,
+    date_retour_prevue DATE NOT NULL,
+    date_retour_effective DATE,
+    livre_id INTEGER NOT NULL,
+    adherent_id INTEGER NOT NULL,
+    FOREIGN KEY(livre_id) REFERENCES Livres(id),
+    FOREIGN KEY(adherent_id) REFERENCES Adherents(id)
+);
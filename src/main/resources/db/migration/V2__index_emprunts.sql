@@ -0,0 +1,12 @@
+-- Index des chemins d'accès aux emprunts
+-- rechercherParLivreId, rechercherParAdherentId et getEmpruntsEnCours n'ont plus à parcourir toute la table
+
+CREATE INDEX IF NOT EXISTS idx_emprunts_livre ON Emprunts(livre_id);
+
+CREATE INDEX IF NOT EXISTS idx_emprunts_adherent ON Emprunts(adherent_id);
+
+CREATE INDEX IF NOT EXISTS idx_emprunts_retour_prevue ON Emprunts(date_retour_prevue);
+
+-- Index partiel limité aux emprunts en cours : il reste petit même avec un long historique
+CREATE INDEX IF NOT EXISTS idx_emprunts_en_cours ON Emprunts(date_retour_prevue)
+    WHERE date_retour_effective IS NULL;
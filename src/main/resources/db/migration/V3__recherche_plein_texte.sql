@@ -0,0 +1,28 @@
+-- Index plein texte du catalogue (FTS5) pour la recherche par titre et auteur
+-- La table virtuelle ne stocke que l'index : le contenu reste dans Livres (content='Livres')
+
+CREATE VIRTUAL TABLE IF NOT EXISTS Livres_fts USING fts5(
+    titre,
+    auteur,
+    content = 'Livres',
+    content_rowid = 'id',
+    tokenize = 'unicode61 remove_diacritics 2'
+);
+
+-- Déclencheurs de synchronisation avec Livres
+CREATE TRIGGER IF NOT EXISTS livres_fts_insertion AFTER INSERT ON Livres BEGIN
+    INSERT INTO Livres_fts(rowid, titre, auteur) VALUES (new.id, new.titre, new.auteur);
+END;
+
+CREATE TRIGGER IF NOT EXISTS livres_fts_suppression AFTER DELETE ON Livres BEGIN
+    INSERT INTO Livres_fts(Livres_fts, rowid, titre, auteur) VALUES ('delete', old.id, old.titre, old.auteur);
+END;
+
+-- Seules les modifications du titre ou de l'auteur touchent l'index (pas les mouvements de stock)
+CREATE TRIGGER IF NOT EXISTS livres_fts_modification AFTER UPDATE OF titre, auteur ON Livres BEGIN
+    INSERT INTO Livres_fts(Livres_fts, rowid, titre, auteur) VALUES ('delete', old.id, old.titre, old.auteur);
+    INSERT INTO Livres_fts(rowid, titre, auteur) VALUES (new.id, new.titre, new.auteur);
+END;
+
+-- Indexer les livres déjà présents
+INSERT INTO Livres_fts(Livres_fts) VALUES ('rebuild');
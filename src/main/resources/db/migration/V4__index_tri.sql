@@ -0,0 +1,10 @@
+-- Index des clés de tri utilisées par la pagination par clé
+-- Chaque index contient implicitement l'identifiant (rowid), ce qui couvre le tri (cle, id)
+
+CREATE INDEX IF NOT EXISTS idx_livres_titre ON Livres(titre);
+
+CREATE INDEX IF NOT EXISTS idx_livres_auteur ON Livres(auteur);
+
+CREATE INDEX IF NOT EXISTS idx_adherents_nom ON Adherents(nom);
+
+CREATE INDEX IF NOT EXISTS idx_emprunts_date_emprunt ON Emprunts(date_emprunt);
@@ -0,0 +1,48 @@
+-- Dates des emprunts en nombre de jours depuis le 1970-01-01 (LocalDate.toEpochDay)
+-- Les dates étaient écrites par setDate : millisecondes de minuit, heure locale. Elles sont ramenées
+-- à la date locale puis converties en jours ; une date éventuellement stockée en texte (AAAA-MM-JJ) est aussi convertie.
+-- SQLite ne sait pas changer le type d'une colonne : la table est reconstruite, identifiants conservés.
+
+CREATE TABLE Emprunts_v5 (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    date_emprunt INTEGER NOT NULL,
+    date_retour_prevue INTEGER NOT NULL,
+    date_retour_effective INTEGER,
+    livre_id INTEGER NOT NULL,
+    adherent_id INTEGER NOT NULL,
+    FOREIGN KEY(livre_id) REFERENCES Livres(id),
+    FOREIGN KEY(adherent_id) REFERENCES Adherents(id)
+);
+
+INSERT INTO Emprunts_v5 (id, date_emprunt, date_retour_prevue, date_retour_effective, livre_id, adherent_id)
+SELECT id,
+       CAST(julianday(CASE typeof(date_emprunt) WHEN 'text' THEN date_emprunt
+           ELSE date(date_emprunt / 1000, 'unixepoch', 'localtime') END) - 2440587.5 AS INTEGER),
+       CAST(julianday(CASE typeof(date_retour_prevue) WHEN 'text' THEN date_retour_prevue
+           ELSE date(date_retour_prevue / 1000, 'unixepoch', 'localtime') END) - 2440587.5 AS INTEGER),
+       CAST(julianday(CASE typeof(date_retour_effective) WHEN 'text' THEN date_retour_effective
+           ELSE date(date_retour_effective / 1000, 'unixepoch', 'localtime') END) - 2440587.5 AS INTEGER),
+       livre_id, adherent_id
+FROM Emprunts;
+
+-- Conserver le compteur AUTOINCREMENT : les identifiants d'emprunts supprimés ne sont pas réattribués
+DELETE FROM sqlite_sequence WHERE name = 'Emprunts_v5';
+
+INSERT INTO sqlite_sequence (name, seq)
+SELECT 'Emprunts_v5', seq FROM sqlite_sequence WHERE name = 'Emprunts';
+
+DROP TABLE Emprunts;
+
+ALTER TABLE Emprunts_v5 RENAME TO Emprunts;
+
+-- Index supprimés avec l'ancienne table (V2 et V4)
+CREATE INDEX idx_emprunts_livre ON Emprunts(livre_id);
+
+CREATE INDEX idx_emprunts_adherent ON Emprunts(adherent_id);
+
+CREATE INDEX idx_emprunts_retour_prevue ON Emprunts(date_retour_prevue);
+
+CREATE INDEX idx_emprunts_en_cours ON Emprunts(date_retour_prevue)
+    WHERE date_retour_effective IS NULL;
+
+CREATE INDEX idx_emprunts_date_emprunt ON Emprunts(date_emprunt);
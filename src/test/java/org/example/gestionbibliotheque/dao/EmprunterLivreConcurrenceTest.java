@@ -0,0 +1,104 @@
+package org.example.gestionbibliotheque.dao;
+
+import org.example.gestionbibliotheque.model.Adherent;
+import org.example.gestionbibliotheque.model.Emprunt;
+import org.example.gestionbibliotheque.model.Livre;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Emprunts simultanés d'un même livre : la décrémentation conditionnelle du stock ne doit jamais
+ * prêter plus d'exemplaires qu'il n'y en a, quel que soit l'entrelacement des postes
+ */
+class EmprunterLivreConcurrenceTest {
+
+    private static final int NB_EXEMPLAIRES = 5;
+    private static final int NB_POSTES = 32;
+
+    private static String urlPrecedente;
+    private static int adherentId;
+
+    @TempDir
+    static Path repertoire;
+
+    @BeforeAll
+    static void creerBase() throws SQLException {
+        urlPrecedente = Database.getUrl();
+        Database.configurerUrl("jdbc:sqlite:" + repertoire.resolve("concurrence.db"));
+        Database.initDatabase();
+        Adherent adherent = new Adherent("Nom", "Prénom", "concurrence@exemple.fr", "20304050");
+        new AdherentDAO().ajouterAdherent(adherent);
+        adherentId = adherent.getId();
+    }
+
+    @AfterAll
+    static void fermerBase() {
+        Database.configurerUrl(urlPrecedente);
+    }
+
+    @RepeatedTest(3)
+    void lesExemplairesNeSontJamaisPretesDeuxFois() throws Exception {
+        Livre livre = new Livre("Le dernier exemplaire", "Un Auteur", NB_EXEMPLAIRES);
+        new LivreDAO().ajouterLivre(livre);
+        int livreId = livre.getId();
+
+        // Tous les postes attendent le signal de départ pour emprunter en même temps
+        CountDownLatch depart = new CountDownLatch(1);
+        ExecutorService postes = Executors.newFixedThreadPool(NB_POSTES);
+        List<Future<EmpruntDAO.ResultatEmprunt>> resultats = new ArrayList<>();
+        try {
+            for (int i = 0; i < NB_POSTES; i++) {
+                resultats.add(postes.submit(() -> {
+                    depart.await();
+                    LocalDate jour = LocalDate.now();
+                    return new EmpruntDAO().emprunterLivre(new Emprunt(livreId, adherentId, jour, jour.plusDays(14)));
+                }));
+            }
+            depart.countDown();
+
+            Map<EmpruntDAO.ResultatEmprunt, Integer> compte = new EnumMap<>(EmpruntDAO.ResultatEmprunt.class);
+            for (Future<EmpruntDAO.ResultatEmprunt> resultat : resultats) {
+                compte.merge(resultat.get(), 1, Integer::sum);
+            }
+            assertEquals(NB_EXEMPLAIRES, compte.getOrDefault(EmpruntDAO.ResultatEmprunt.EFFECTUE, 0));
+            assertEquals(NB_POSTES - NB_EXEMPLAIRES, compte.getOrDefault(EmpruntDAO.ResultatEmprunt.RUPTURE_DE_STOCK, 0));
+        } finally {
+            postes.shutdownNow();
+        }
+
+        // Relecture directe dans la base, sans passer par le cache des livres
+        try (Connection conn = Database.getConnection()) {
+            assertEquals(0, compter(conn, "SELECT nb_exemplaires FROM Livres WHERE id = ?", livreId));
+            assertEquals(NB_EXEMPLAIRES, compter(conn, "SELECT COUNT(*) FROM Emprunts WHERE livre_id = ?", livreId));
+        }
+    }
+
+    private static int compter(Connection conn, String sql, int livreId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, livreId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package org.example.gestionbibliotheque.dao;
+
+import org.example.gestionbibliotheque.model.Adherent;
+import org.example.gestionbibliotheque.model.Emprunt;
+import org.example.gestionbibliotheque.model.Livre;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vérifie que les requêtes des DAOs passent par les index des migrations (V2 et V4, recréés par V5)
+ * Les méthodes des DAOs sont appelées sur une base temporaire migrée ; un pilote JDBC de test relève le SQL
+ * qu'elles préparent, dont le plan (EXPLAIN QUERY PLAN) ne doit parcourir aucune table en entier.
+ * Une ligne de plan « SCAN table » sans index est un parcours complet ; « SCAN table USING INDEX » est un
+ * parcours dans l'ordre d'un index arrêté par LIMIT (pagination par clé) et reste admis.
+ * Les lectures de toute une table (getLivres, fluxEmprunts...) et les recherches de sous-chaîne
+ * (rechercherParTitre, LIKE '%texte%') parcourent la table par construction et ne sont pas appelées ici.
+ */
+class PlansRequetesTest {
+
+    private static final String PREFIXE_URL = "jdbc:plans:";
+
+    // SQL préparé par les DAOs depuis la fin des migrations
+    private static final Set<String> REQUETES = new ConcurrentSkipListSet<>();
+    private static Driver pilote;
+    private static String urlPrecedente;
+
+    @TempDir
+    static Path repertoire;
+
+    @BeforeAll
+    static void migrerBase() throws SQLException {
+        pilote = new PiloteEnregistreur();
+        DriverManager.registerDriver(pilote);
+        urlPrecedente = Database.getUrl();
+        Database.configurerUrl(PREFIXE_URL + repertoire.resolve("plans.db"));
+        Database.initDatabase();
+        REQUETES.clear();
+    }
+
+    @AfterAll
+    static void fermerBase() throws SQLException {
+        Database.configurerUrl(urlPrecedente);
+        DriverManager.deregisterDriver(pilote);
+    }
+
+    @Test
+    void aucuneRequeteNeParcourtUneTableEntiere() throws SQLException, IOException {
+        appelerLesDaos();
+        assertFalse(REQUETES.isEmpty(), "aucune requête relevée");
+
+        List<String> parcoursComplets = new ArrayList<>();
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + repertoire.resolve("plans.db"))) {
+            for (String sql : REQUETES) {
+                for (String ligne : plan(conn, sql)) {
+                    if (estParcoursComplet(ligne)) {
+                        parcoursComplets.add(ligne + "  <=  " + sql);
+                    }
+                }
+            }
+        }
+        assertTrue(parcoursComplets.isEmpty(), "parcours complets :\n" + String.join("\n", parcoursComplets));
+    }
+
+    // Appelle les méthodes des DAOs censées passer par un index, écritures comprises
+    private static void appelerLesDaos() throws SQLException, IOException {
+        LivreDAO livres = new LivreDAO();
+        AdherentDAO adherents = new AdherentDAO();
+        EmpruntDAO emprunts = new EmpruntDAO();
+
+        Livre livre = new Livre("Le titre", "Un Auteur", 3);
+        livres.ajouterLivre(livre);
+        Adherent adherent = new Adherent("Nom", "Prénom", "nom@exemple.fr", "20304050");
+        adherents.ajouterAdherent(adherent);
+        LocalDate jour = LocalDate.of(2024, 3, 1);
+
+        LivreDAO.viderCache();
+        livres.getLivreById(livre.getId());
+        livres.rechercherTexte("titre", 10);
+        livres.modifierLivre(livre);
+        for (LivreDAO.Tri tri : LivreDAO.Tri.values()) {
+            livres.getLivresPage(new Page.Curseur(tri == LivreDAO.Tri.ID ? 0 : "", 0), 10, tri);
+        }
+
+        AdherentDAO.viderCache();
+        adherents.getAdherentById(adherent.getId());
+        adherents.modifierAdherent(adherent);
+        for (AdherentDAO.Tri tri : AdherentDAO.Tri.values()) {
+            adherents.getAdherentsPage(new Page.Curseur(tri == AdherentDAO.Tri.ID ? 0 : "", 0), 10, tri);
+        }
+
+        Emprunt emprunt = new Emprunt(livre.getId(), adherent.getId(), jour, jour.plusDays(14));
+        emprunts.emprunterLivre(emprunt);
+        Emprunt saisi = new Emprunt(livre.getId(), adherent.getId(), jour, jour.plusDays(14));
+        emprunts.ajouterEmprunt(saisi);
+        emprunts.getEmpruntById(emprunt.getId());
+        emprunts.rechercherParLivreId(livre.getId());
+        emprunts.rechercherParAdherentId(adherent.getId());
+        try (Stream<Emprunt> flux = emprunts.fluxEmpruntsParLivreId(livre.getId())) {
+            flux.count();
+        }
+        try (Stream<Emprunt> flux = emprunts.fluxEmpruntsParAdherentId(adherent.getId())) {
+            flux.count();
+        }
+        emprunts.getEmpruntsEntre(jour, jour.plusDays(30));
+        emprunts.getEmpruntsAEcheance(jour, jour.plusDays(30));
+        emprunts.getEmpruntsEnRetard(jour.plusDays(30));
+        emprunts.getEmpruntsEnCours();
+        emprunts.compterEmpruntsEnCoursLivre(livre.getId());
+        emprunts.getIdsEmpruntsEnCoursAdherent(adherent.getId());
+        for (EmpruntDAO.Tri tri : EmpruntDAO.Tri.values()) {
+            for (EmpruntDAO.Filtre filtre : EmpruntDAO.Filtre.values()) {
+                Object cle = tri == EmpruntDAO.Tri.ID ? 0 : 0L;
+                emprunts.getEmpruntsLignesPage(new Page.Curseur(cle, 0), 10, tri, filtre);
+            }
+        }
+        emprunts.modifierEmprunt(saisi);
+        emprunts.retournerLivre(emprunt.getId());
+        emprunts.retournerLivres(List.of(saisi.getId()));
+        emprunts.supprimerEmprunt(saisi.getId());
+        EmpruntDAO.chargerIndex();
+
+        ExportateurEmprunts exportateur = new ExportateurEmprunts(ExportateurEmprunts.Format.CSV, false, 100);
+        Path export = repertoire.resolve("export.csv");
+        exportateur.exporter(new ExportateurEmprunts.Filtre(jour, jour.plusDays(30), null, null), export);
+        exportateur.exporter(new ExportateurEmprunts.Filtre(null, null, adherent.getId(), null), export);
+        exportateur.exporter(new ExportateurEmprunts.Filtre(jour, null, null, livre.getId()), export);
+
+        adherents.supprimerAdherent(adherent.getId());
+        livres.supprimerLivre(livre.getId());
+    }
+
+    private static List<String> plan(Connection conn, String sql) throws SQLException {
+        List<String> lignes = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            int nbParametres = stmt.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= nbParametres; i++) {
+                stmt.setNull(i, Types.NULL);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    lignes.add(rs.getString("detail"));
+                }
+            }
+        }
+        return lignes;
+    }
+
+    // SCAN sans index ni table virtuelle (FTS5) : toute la table est lue
+    private static boolean estParcoursComplet(String ligne) {
+        return ligne.startsWith("SCAN ") && !ligne.contains(" USING ") && !ligne.contains(" VIRTUAL TABLE ")
+                && !ligne.equals("SCAN CONSTANT ROW");
+    }
+
+    // Requêtes de données seulement : les PRAGMA, transactions et points de sauvegarde n'ont pas de plan
+    private static boolean estRequete(String sql) {
+        String debut = sql.stripLeading().toUpperCase(Locale.ROOT);
+        return debut.startsWith("SELECT") || debut.startsWith("UPDATE") || debut.startsWith("DELETE")
+                || debut.startsWith("INSERT") || debut.startsWith("WITH");
+    }
+
+    /**
+     * Pilote jdbc:plans:chemin : ouvre la base SQLite chemin et relève le SQL de chaque prepareStatement
+     */
+    private static final class PiloteEnregistreur implements Driver {
+
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            Connection cible = DriverManager.getConnection("jdbc:sqlite:" + url.substring(PREFIXE_URL.length()), info);
+            return (Connection) Proxy.newProxyInstance(PlansRequetesTest.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, methode, args) -> {
+                        if (methode.getName().equals("prepareStatement") && estRequete((String) args[0])) {
+                            REQUETES.add((String) args[0]);
+                        }
+                        try {
+                            return methode.invoke(cible, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url != null && url.startsWith(PREFIXE_URL);
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+}